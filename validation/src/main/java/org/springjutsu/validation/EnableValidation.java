@@ -19,4 +19,7 @@ public @interface EnableValidation {
 	boolean addDefaultContextHandlers() default true;
 	String errorMessagePrefix() default "errors";
 	String fieldLabelPrefix() default "";
+	int parallelCollectionThreshold() default 0;
+	int parallelism() default 0;
+	boolean shortCircuitPaths() default false;
 }
@@ -31,6 +31,9 @@ public class ValidationConfiguration implements ImportAware {
 		public ValidationManager validationManager()
 		{
 			ValidationManager validationManager = new ValidationManager();
+			validationManager.setParallelCollectionThreshold(enableValidation.<Integer>getNumber("parallelCollectionThreshold"));
+			validationManager.setParallelism(enableValidation.<Integer>getNumber("parallelism"));
+			validationManager.setShortCircuitPaths(enableValidation.getBoolean("shortCircuitPaths"));
 			return validationManager;
 		}
 		
@@ -23,8 +23,10 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.context.support.MessageSourceAccessor;
+import org.springjutsu.validation.rules.CompiledValidationRule;
 import org.springjutsu.validation.rules.ValidationRule;
 import org.springjutsu.validation.util.PathUtils;
+import org.springjutsu.validation.util.ValidationPath;
 
 /**
  * Responsible for handling the resolution
@@ -83,12 +85,12 @@ public class ValidationErrorMessageHandler {
 	 * For either the model or argument lookup, if EL is used in the path 
 	 * which resolves off the model, the literal value of the evaluated 
 	 * EL expression is used.
-	 * @param rule the rule which failed
+	 * @param compiledRule the compiled rule which failed
 	 * @param rootModel the root model (not failed bean)
 	 * @param errors standard Errors object to record error on.
 	 */
-	protected void logError(ValidationEvaluationContext context, ValidationRule rule) {
-		String localizedRulePath = context.localizePath(rule.getPath());
+	protected void logError(ValidationEvaluationContext context, CompiledValidationRule compiledRule) {
+		ValidationRule rule = compiledRule.getRule();
 		String errorMessageKey = rule.getMessage();
 		String errorMessageText = rule.getMessageText();
 		
@@ -98,8 +100,8 @@ public class ValidationErrorMessageHandler {
         	errorMessageKey = (StringUtils.isNotBlank(errorMessagePrefix) ? errorMessagePrefix + "." : "") + rule.getType();
         }
 		
-		String modelMessageKey = getMessageResolver(context, rule, true);
-        String ruleArg = getMessageResolver(context, rule, false);
+		String modelMessageKey = getMessageResolver(context, compiledRule, true);
+        String ruleArg = getMessageResolver(context, compiledRule, false);
 		
 		MessageSourceResolvable modelMessageResolvable = 
 			new DefaultMessageSourceResolvable(new String[] {modelMessageKey}, modelMessageKey);
@@ -107,16 +109,13 @@ public class ValidationErrorMessageHandler {
 			new DefaultMessageSourceResolvable(new String[] {ruleArg}, ruleArg);
 		
 		// get the local path to error, in case errors object is on nested path.
-		String errorMessagePath = rule.getErrorPath();
-        if (StringUtils.isNotBlank(errorMessagePath)) {
-        	errorMessagePath = context.localizePath(errorMessagePath);
-        } else {
-        	errorMessagePath = localizedRulePath;
-        }
-		
-		if (PathUtils.containsEL(errorMessagePath)) {
+		// paths stay parsed until recorded on the Errors object.
+		ValidationPath errorValidationPath = compiledRule.hasErrorPath() 
+			? compiledRule.getErrorValidationPath() : compiledRule.getValidationPath();
+		if (errorValidationPath == null) {
 			throw new IllegalStateException("Could not log error for rule: " + rule.toString() + ". Rules with EL path should specify the errorPath attribute.");
 		}
+		String errorMessagePath = context.localizePath(errorValidationPath).toString();
 		
 		String defaultError = 
 				StringUtils.isNotBlank(errorMessageText) ? errorMessageText :
@@ -128,13 +127,37 @@ public class ValidationErrorMessageHandler {
 			errorMessageKey, new Object[] {modelMessageResolvable, 
 			argumentMessageResolvable}, defaultError);
 		
-		resolvedMessage = (String) context.getSpelResolver().resolveSPELString(resolvedMessage);
-		context.getErrors().rejectValue(errorMessagePath, 
+		if (PathUtils.containsEL(resolvedMessage)) {
+			resolvedMessage = resolveMessageEL(context, compiledRule, resolvedMessage);
+		}
+		context.rejectValue(errorMessagePath, 
 			PathUtils.appendPath("messageOverride", errorMessageKey), 
 			new Object[] {modelMessageResolvable, argumentMessageResolvable},
 			resolvedMessage);
 	}
 	
+	/**
+	 * Resolves EL within the message of the given failed rule.
+	 * Rules inlined from a validation template are resolved with the 
+	 * template pushed, so that "currentModel" refers to the template
+	 * base model, as it would for rules run through the template.
+	 * @param context The current validation context
+	 * @param compiledRule the failed rule
+	 * @param message the message containing EL
+	 * @return the resolved message
+	 */
+	protected String resolveMessageEL(ValidationEvaluationContext context, CompiledValidationRule compiledRule, String message) {
+		if (!compiledRule.isInlinedFromTemplate()) {
+			return (String) context.getSpelResolver().resolveSPELString(message);
+		}
+		context.pushTemplate(compiledRule.getInlinedTemplateName(), compiledRule.getInlinedTemplateBasePath());
+		try {
+			return (String) context.getSpelResolver().resolveSPELString(message);
+		} finally {
+			context.popTemplate();
+		}
+	}
+	
 	/**	
 	 * This method is responsible for getting the the String used
 	 * to resolve the message that should be recorded as the error message.
@@ -155,8 +178,8 @@ public class ValidationErrorMessageHandler {
 	 * @return A string used to look up the message to resolve as the model
 	 * or argument of a failed validation rule, as determined by resolveAsModel. 
 	 */
-	protected String getMessageResolver(ValidationEvaluationContext context, ValidationRule rule, boolean resolveAsModel) {
-		String rulePath = resolveAsModel ? rule.getPath() : rule.getValue();
+	protected String getMessageResolver(ValidationEvaluationContext context, CompiledValidationRule rule, boolean resolveAsModel) {
+		String rulePath = resolveAsModel ? rule.getRule().getPath() : rule.getValue();
 		// if there is no path, return.
 		if (rulePath == null || rulePath.length() < 1) {
 			return rulePath;
@@ -170,7 +193,7 @@ public class ValidationErrorMessageHandler {
 				expressionlessValue = expressionlessValue.substring(6);
 			}
 			// check if path matches a path on the model.
-			if (new BeanWrapperImpl(context.getRootModel()).isReadableProperty(expressionlessValue)) {
+			if (context.getPropertyPathAccessor().isReadableProperty(context.getRootModel(), expressionlessValue)) {
 				// Since this matched a model path, get the label 
 				// for the resolved model.
 				return getModelMessageKey(expressionlessValue, context.getRootModel());
@@ -183,7 +206,9 @@ public class ValidationErrorMessageHandler {
 		} else {
 			if (resolveAsModel) {
 				// not an expression, just get the model message key.
-				return getModelMessageKey(context.localizePath(rulePath), context.getRootModel());
+				return rule.getValidationPath() != null
+					? getModelMessageKey(context.localizePath(rule.getValidationPath()), context.getRootModel())
+					: getModelMessageKey(context.localizePath(rulePath), context.getRootModel());
 			} else {
 				// not an expression, return literal
 				return rulePath;
@@ -213,20 +238,32 @@ public class ValidationErrorMessageHandler {
 		if (rawRulePath == null || rawRulePath.length() < 1) {
 			return rawRulePath;
 		}
+		return getModelMessageKey(ValidationPath.parse(rawRulePath), rootModel);
+	}
+	
+	/**
+	 * Resolves the message key for a parsed path on the model,
+	 * as does @link{#getModelMessageKey(String, Object)}.
+	 * @param rulePath parsed validation rule path to the failed field.
+	 * @param rootModel The root model owning the field that failed.
+	 * @return A message key used to resolve a message describing the field
+	 * that failed.
+	 */
+	protected String getModelMessageKey(ValidationPath rulePath, Object rootModel) {
 		
-		// clean up any collection and/or map indexing paths from last path segment.
-		String rulePath = rawRulePath.trim().replaceAll("\\[[^\\]]+\\]$", "");
-
+		if (rulePath.isEmpty()) {
+			return "";
+		}
+		
+		// the field is the last path segment, without any collection and/or map index.
+		int lastSegment = rulePath.size() - 1;
+		String fieldPath = rulePath.getProperty(lastSegment);
 		Class<?> parentType = null;
-		String fieldPath = null;
 		
-		if (rulePath.contains(".")) {
-			fieldPath = rulePath.substring(rulePath.lastIndexOf(".") + 1);
-			String parentPath = rulePath.substring(0, rulePath.lastIndexOf("."));
+		if (lastSegment > 0) {
 			BeanWrapperImpl beanWrapper = new BeanWrapperImpl(rootModel);
-			parentType = beanWrapper.getPropertyType(parentPath);
+			parentType = beanWrapper.getPropertyType(rulePath.subPath(0, lastSegment).toString());
 		} else {
-			fieldPath = rulePath;
 			parentType = rootModel.getClass();
 		}
 		
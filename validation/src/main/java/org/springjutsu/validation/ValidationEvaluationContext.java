@@ -17,24 +17,32 @@
 package org.springjutsu.validation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.TypeConverter;
 import org.springframework.validation.Errors;
-import org.springjutsu.validation.exceptions.CircularValidationTemplateReferenceException;
-import org.springjutsu.validation.exceptions.IllegalTemplateReferenceException;
-import org.springjutsu.validation.rules.ValidationRule;
-import org.springjutsu.validation.rules.ValidationTemplate;
-import org.springjutsu.validation.rules.ValidationTemplateReference;
+import org.springjutsu.validation.context.ValidationContextHandler;
+import org.springjutsu.validation.context.ValidationGroupIndex;
+import org.springjutsu.validation.rules.CompiledValidationRule;
 import org.springjutsu.validation.spel.CurrentModelPropertyAccessor;
 import org.springjutsu.validation.spel.SPELResolver;
+import org.springjutsu.validation.spel.SPELTemplate;
+import org.springjutsu.validation.util.ChangedPathSet;
+import org.springjutsu.validation.util.CollectionMember;
+import org.springjutsu.validation.util.PathScopedIdentitySet;
 import org.springjutsu.validation.util.PathUtils;
+import org.springjutsu.validation.util.PropertyPathAccessor;
+import org.springjutsu.validation.util.ReflectivePropertyPathAccessor;
+import org.springjutsu.validation.util.ValidationPath;
 
 /**
  * The ValidationEvaluationContext is responsible for tracking
@@ -46,6 +54,9 @@ import org.springjutsu.validation.util.PathUtils;
  * SPEL resolver initialized for any current validation context(s).
  * Also provides details of the current paths being evaluated, 
  * for purposes of logging and error message resolution. 
+ * A context may be reused for many validations, one at a time,
+ * and builds its SPEL resolver and bean wrapper only when first
+ * needed, so that validations which use no EL don't pay for them.
  * @author Clark Duplichien
  *
  */
@@ -57,63 +68,193 @@ public class ValidationEvaluationContext {
 	private Errors errors;
 	
 	/**
-	 * A bean wrapper wrapping the base model object under validation.
+	 * The base model object under validation.
+	 */
+	private Object rootModel;
+	
+	/**
+	 * A bean wrapper wrapping the base model object under validation,
+	 * created when first requested.
 	 */
 	private BeanWrapper modelWrapper;
 	
 	/**
 	 * The SPEL resolver, with named contexts initialized by 
-	 * any active ValidationContextHandler instances. 
+	 * any active ValidationContextHandler instances,
+	 * created when first needed to resolve EL. 
 	 */
 	private SPELResolver spelResolver;
 	
+	/**
+	 * Reads rule models and sub beans from the current model.
+	 */
+	private PropertyPathAccessor propertyPathAccessor;
+	
+	/**
+	 * Used when no property path accessor is given.
+	 */
+	private static final PropertyPathAccessor defaultPropertyPathAccessor = new ReflectivePropertyPathAccessor();
+	
 	/**
 	 * The deep nested path to the current model being evaluated,
-	 * rooted from the base model object under evaluation
+	 * rooted from the base model object under evaluation.
+	 * This and the other stacks of this context are array lists
+	 * pushed and popped at the end, so that they iterate from
+	 * the bottom up, as paths are joined.
 	 */
-	private Stack<String> nestedPath;
+	private List<String> nestedPath;
+	
+	/**
+	 * The parsed nested path at each level of the nested path,
+	 * each joined onto the last, so that the current nested path
+	 * need not be joined from its segments on every use.
+	 */
+	private List<ValidationPath> nestedValidationPaths;
+	
+	/**
+	 * The models at each level of the nested path, 
+	 * starting with the base model object under evaluation.
+	 * Kept in step with the nested path, so that rules
+	 * can be resolved relative to the current model
+	 * rather than from the base model on every read.
+	 */
+	private List<Object> nestedModels;
 	
 	/**
 	 * A stack of active validation templates in the order they
 	 * were activated. Also used to detect infinite recursion.
 	 */
-	private Stack<String> templateNames;
+	private List<String> templateNames;
 	
 	/**
 	 * A nested path from the base model object including all
 	 * path segments provided by validation template base paths.
 	 */
-	private Stack<String> templateBasePaths;
+	private List<String> templateBasePaths;
+	
+	/**
+	 * The parsed template base path for each active validation
+	 * template, each joined onto the last, so that the current
+	 * base path need not be joined from its segments on every use.
+	 */
+	private List<ValidationPath> templateValidationBasePaths;
 	
 	/**
 	 * Maps path segments indicating collections to 
-	 * path segment replacements indicating the current collection
-	 * index being evaluated. In other words, keeps track of the current
-	 * position within nested collections. 
+	 * the collection member currently being evaluated, whose indexed
+	 * path replaces the collection path. In other words, keeps track 
+	 * of the current position within nested collections. 
 	 */
-	private Map<String, String> collectionPathReplacements;
+	private Map<ValidationPath, CollectionMember> collectionMembers;
 	
 	/**
 	 * The active JSR-303 validation groups. 
 	 * Spring calls them validation hints.
 	 * Sounds more mysterious.
 	 * It's like we're looking for clues, man.
+	 * Named only when first asked for.
 	 */
 	private String[] validationHints;
 	
 	/**
-	 * Checked model hashes prevent infinite recursion.
-	 * As the recursion stack grows, each list of checked model hashes
-	 * is inherited from the prior state in the stack.
+	 * The validation hints as given, less any validation options.
+	 */
+	private Object[] validationHintObjects;
+	
+	/**
+	 * The IDs of the active validation groups, as interned by 
+	 * @link{ValidationGroupIndex}, or null if not known, 
+	 * in which case group contexts are matched by name.
+	 */
+	private BitSet activeGroups;
+	
+	/**
+	 * Checked models prevent infinite recursion.
+	 * Each model is marked as checked on the nested path level
+	 * at which it is validated, and is forgotten again once that
+	 * level is popped, so the checked models are always exactly
+	 * those on the current nested path.
 	 * This allows the same bean to be validated on different nested 
 	 * path structures, but will prevent infinite recursive validation
 	 * of the same bean on the same nested path structure in the event
 	 * of a cyclic datamodel, as bi-direction relationships are not 
 	 * uncommon within JPA bean models. 
-	 * This collection must still handle hashes when not recursed, and
-	 * as such will always be one push deeper than the nested path stack.
+	 * Models are compared by identity, so that potentially expensive
+	 * or colliding user hashCode() implementations are not invoked.
+	 */
+	private PathScopedIdentitySet checkedModels;
+	
+	/**
+	 * Used to create the SPEL resolver.
+	 */
+	private TypeConverter typeConverter;
+	
+	/**
+	 * The handlers of the validation contexts currently active,
+	 * in the order activated, each of which will initialize the
+	 * SPEL resolver once an expression needs its scopes.
+	 */
+	private List<ValidationContextHandler> activeContextHandlers;
+	
+	/**
+	 * Errors recorded by a forked context, to be replayed
+	 * onto the parent context in order once the fork is done.
+	 * Null unless this context is a fork.
+	 */
+	private List<Rejection> deferredRejections;
+	
+	/**
+	 * Limits on the work done by this validation, 
+	 * picked out from the validation hints.
 	 */
-	private Stack<List<Integer>> checkedModelHashes;
+	private ValidationOptions options;
+	
+	/**
+	 * The number of errors recorded by this validation.
+	 */
+	private int errorCount;
+	
+	/**
+	 * The number of errors recorded against the bean at each
+	 * level of the nested path, indexed by nested path depth,
+	 * and grown as needed.
+	 */
+	private int[] entityErrorCounts;
+	
+	/**
+	 * Whether rules on a path which has already failed
+	 * are skipped, as configured for the current entity.
+	 */
+	private boolean shortCircuitingPaths;
+	
+	/**
+	 * The localized paths on which a rule has failed,
+	 * tracked only while short circuiting paths.
+	 */
+	private Set<ValidationPath> failedPaths;
+	
+	/**
+	 * When only some paths are being validated, the changed paths
+	 * which rules must read in order to be run. Null otherwise.
+	 */
+	private ChangedPathSet changedPaths;
+	
+	/**
+	 * Rule models and arguments already resolved at the current
+	 * position, keyed by localized path, or by parsed template for EL,
+	 * so that sibling rules, nested rules and error messages reading 
+	 * the same path or expression within a validation don't read or 
+	 * evaluate it again. Cleared whenever the position changes, that is, 
+	 * on pushing or popping a nested path, template, collection member 
+	 * or validation context, as these change what paths and EL resolve to.
+	 * Rules are expected not to modify the model under validation.
+	 */
+	private Map<Object, Object> resolvedValues;
+	
+	/**
+	 * Stands in for resolved null values.
+	 */
+	private static final Object NULL_VALUE = new Object();
 	
 	/**
 	 * Constructs a new ValidationEvaluationContext.
@@ -124,24 +265,333 @@ public class ValidationEvaluationContext {
 	 * @param validationHints Any JSR-303 validation groups to activate
 	 */
 	public ValidationEvaluationContext(Object model, Errors errors, TypeConverter typeConverter, Object... validationHints) {
-		this.modelWrapper = model == null ? null : new BeanWrapperImpl(model);
+		this(model, errors, typeConverter, defaultPropertyPathAccessor, validationHints);
+	}
+	
+	/**
+	 * Constructs a new ValidationEvaluationContext.
+	 * There will be a single ValidationEvalautionContext created
+	 * for each model validation performed.  
+	 * @param model The object to validate
+	 * @param errors The errors object on which to record errors
+	 * @param propertyPathAccessor Reads rule models and sub beans
+	 * @param validationHints Any JSR-303 validation groups to activate
+	 */
+	public ValidationEvaluationContext(Object model, Errors errors, TypeConverter typeConverter, 
+			PropertyPathAccessor propertyPathAccessor, Object... validationHints) {
+		this.propertyPathAccessor = propertyPathAccessor;
+		this.typeConverter = typeConverter;
+		this.rootModel = model;
 		this.errors = errors;
-		this.validationHints = new String[validationHints.length];
-		for (int i = 0; i < validationHints.length; i++) {
-			this.validationHints[i] = 
-				(validationHints[i] instanceof Class<?>) ? 
-					((Class<?>) validationHints[i]).getCanonicalName() :
-						String.valueOf(validationHints[i]);
+		initValidationHints(validationHints);
+		this.nestedPath = new ArrayList<String>();
+		this.nestedValidationPaths = new ArrayList<ValidationPath>();
+		this.nestedModels = new ArrayList<Object>();
+		this.nestedModels.add(model);
+		this.checkedModels = new PathScopedIdentitySet();
+		this.templateNames = new ArrayList<String>();
+		this.templateBasePaths = new ArrayList<String>();
+		this.templateValidationBasePaths = new ArrayList<ValidationPath>();
+		this.collectionMembers = new LinkedHashMap<ValidationPath, CollectionMember>();
+		this.activeContextHandlers = new ArrayList<ValidationContextHandler>();
+		this.entityErrorCounts = new int[16];
+		this.failedPaths = new HashSet<ValidationPath>();
+		this.resolvedValues = new HashMap<Object, Object>();
+	}
+	
+	/**
+	 * Constructs a fork of the given context, positioned at the
+	 * same nested path, template and collection iteration, but
+	 * recording errors to be replayed later by the parent context.
+	 * The fork builds its own SPEL resolver and model wrapper, 
+	 * if it needs them, as neither is thread safe, so contexts 
+	 * should only be forked while no validation contexts are active.
+	 * @param parent the context to fork
+	 */
+	protected ValidationEvaluationContext(ValidationEvaluationContext parent) {
+		this.propertyPathAccessor = parent.propertyPathAccessor;
+		this.typeConverter = parent.typeConverter;
+		this.rootModel = parent.rootModel;
+		this.errors = parent.errors;
+		this.validationHints = parent.validationHints;
+		this.validationHintObjects = parent.validationHintObjects;
+		this.activeGroups = parent.activeGroups;
+		this.nestedPath = new ArrayList<String>(parent.nestedPath);
+		this.nestedValidationPaths = new ArrayList<ValidationPath>(parent.nestedValidationPaths);
+		this.nestedModels = new ArrayList<Object>(parent.nestedModels);
+		this.checkedModels = parent.checkedModels.copy();
+		this.templateNames = new ArrayList<String>(parent.templateNames);
+		this.templateBasePaths = new ArrayList<String>(parent.templateBasePaths);
+		this.templateValidationBasePaths = new ArrayList<ValidationPath>(parent.templateValidationBasePaths);
+		this.collectionMembers = new LinkedHashMap<ValidationPath, CollectionMember>(parent.collectionMembers);
+		this.activeContextHandlers = new ArrayList<ValidationContextHandler>();
+		this.deferredRejections = new ArrayList<Rejection>();
+		this.options = parent.options;
+		this.errorCount = parent.errorCount;
+		this.entityErrorCounts = parent.entityErrorCounts.clone();
+		this.shortCircuitingPaths = parent.shortCircuitingPaths;
+		this.failedPaths = new HashSet<ValidationPath>(parent.failedPaths);
+		this.changedPaths = parent.changedPaths;
+		this.resolvedValues = new HashMap<Object, Object>();
+	}
+	
+	/**
+	 * Picks out any validation options from the given validation hints,
+	 * and records the remaining validation groups, to be named when needed.
+	 * @param validationHints Any JSR-303 validation groups to activate
+	 */
+	private void initValidationHints(Object[] validationHints) {
+		this.options = null;
+		Object[] hintObjects = new Object[validationHints.length];
+		int hintCount = 0;
+		for (Object validationHint : validationHints) {
+			if (validationHint instanceof ValidationOptions) {
+				this.options = (ValidationOptions) validationHint;
+			} else {
+				hintObjects[hintCount++] = validationHint;
+			}
+		}
+		if (this.options == null) {
+			this.options = new ValidationOptions();
 		}
-		this.spelResolver = new SPELResolver(model, typeConverter);
+		this.validationHintObjects = hintCount == hintObjects.length ? hintObjects : Arrays.copyOf(hintObjects, hintCount);
+		this.validationHints = null;
+		this.activeGroups = null;
+	}
+	
+	/**
+	 * Registers the current model scope on the SPEL resolver.
+	 */
+	private void initCurrentModelScope() {
 		this.spelResolver.getScopedContext().addPropertyAccessor(new CurrentModelPropertyAccessor());
-		this.spelResolver.getScopedContext().addContext("currentModel", this.new CurrentModelAccessor());
-		this.nestedPath = new Stack<String>();
-		this.checkedModelHashes = new Stack<List<Integer>>();
-		this.checkedModelHashes.push(new ArrayList<Integer>());
-		this.templateNames = new Stack<String>();
-		this.templateBasePaths = new Stack<String>();
-		this.collectionPathReplacements = new LinkedHashMap<String, String>();
+		this.spelResolver.getScopedContext().addDynamicContext("currentModel", this.new CurrentModelAccessor());
+	}
+	
+	/**
+	 * Resets this context to validate another model, reusing its
+	 * SPEL resolver and path structures rather than building new ones,
+	 * as is done when validating a batch of models.
+	 * Must only be called between validations, never during one.
+	 * @param model The object to validate
+	 * @param errors The errors object on which to record errors
+	 */
+	protected void reuse(Object model, Errors errors) {
+		if (isFork()) {
+			throw new IllegalStateException("Cannot reuse a forked context");
+		}
+		this.rootModel = model;
+		if (model != null && this.modelWrapper instanceof BeanWrapperImpl) {
+			((BeanWrapperImpl) this.modelWrapper).setWrappedInstance(model);
+		} else {
+			this.modelWrapper = null;
+		}
+		this.errors = errors;
+		if (this.spelResolver != null) {
+			this.spelResolver.setModel(model);
+		}
+		this.nestedPath.clear();
+		this.nestedValidationPaths.clear();
+		this.nestedModels.clear();
+		this.nestedModels.add(model);
+		this.checkedModels.clear();
+		this.templateNames.clear();
+		this.templateBasePaths.clear();
+		this.templateValidationBasePaths.clear();
+		this.collectionMembers.clear();
+		this.activeContextHandlers.clear();
+		this.errorCount = 0;
+		this.entityErrorCounts[0] = 0;
+		this.shortCircuitingPaths = false;
+		this.failedPaths.clear();
+		this.changedPaths = null;
+		this.resolvedValues.clear();
+	}
+	
+	/**
+	 * Resets this context to validate another model, 
+	 * with different validation hints.
+	 * @param model The object to validate
+	 * @param errors The errors object on which to record errors
+	 * @param validationHints Any JSR-303 validation groups to activate
+	 * @see #reuse(Object, Errors)
+	 */
+	protected void reuse(Object model, Errors errors, Object... validationHints) {
+		reuse(model, errors);
+		initValidationHints(validationHints);
+	}
+	
+	/**
+	 * Drops this context's references to the last model validated
+	 * and its errors, so that they may be garbage collected while
+	 * the context is kept idle for reuse.
+	 */
+	protected void release() {
+		reuse(null, null);
+	}
+	
+	/**
+	 * Forks this context, so that validation may proceed
+	 * from the current position on another thread.
+	 * @return the forked context
+	 * @see #mergeFork(ValidationEvaluationContext)
+	 */
+	protected ValidationEvaluationContext fork() {
+		if (hasActiveContexts()) {
+			throw new IllegalStateException("Cannot fork while validation contexts are active");
+		}
+		return new ValidationEvaluationContext(this);
+	}
+	
+	/**
+	 * Replays the errors recorded by the given fork onto this context,
+	 * in the order in which they were recorded.
+	 * @param fork a context forked from this one
+	 */
+	protected void mergeFork(ValidationEvaluationContext fork) {
+		for (Rejection rejection : fork.deferredRejections) {
+			rejectValue(rejection.field, rejection.errorCode, rejection.errorArgs, rejection.defaultMessage);
+		}
+		fork.deferredRejections.clear();
+		failedPaths.addAll(fork.failedPaths);
+	}
+	
+	/**
+	 * @return true if this context was forked from another.
+	 */
+	protected boolean isFork() {
+		return deferredRejections != null;
+	}
+	
+	/**
+	 * Records a validation error, directly on the errors
+	 * object, or to be replayed later if this context is a fork.
+	 * @see Errors#rejectValue(String, String, Object[], String)
+	 */
+	protected void rejectValue(String field, String errorCode, Object[] errorArgs, String defaultMessage) {
+		errorCount++;
+		entityErrorCounts[nestedPath.size()]++;
+		if (deferredRejections != null) {
+			deferredRejections.add(new Rejection(field, errorCode, errorArgs, defaultMessage));
+		} else {
+			errors.rejectValue(field, errorCode, errorArgs, defaultMessage);
+		}
+	}
+	
+	/**
+	 * @return the limits on the work done by this validation.
+	 */
+	public ValidationOptions getOptions() {
+		return options;
+	}
+	
+	/**
+	 * @return the number of errors recorded by this validation.
+	 */
+	public int getErrorCount() {
+		return errorCount;
+	}
+	
+	/**
+	 * @return true if the maximum number of errors for
+	 * the whole validation has been recorded, after which 
+	 * no further rules should be run or beans visited.
+	 */
+	protected boolean isErrorLimitReached() {
+		return options.getMaxErrors() > 0 && errorCount >= options.getMaxErrors();
+	}
+	
+	/**
+	 * @return true if either the maximum number of errors for
+	 * the whole validation, or for the bean at the current nested path,
+	 * has been recorded, after which no further rules should
+	 * be run against the bean at the current nested path.
+	 */
+	protected boolean isEntityErrorLimitReached() {
+		return isErrorLimitReached() || (options.getMaxErrorsPerEntity() > 0 
+			&& entityErrorCounts[nestedPath.size()] >= options.getMaxErrorsPerEntity());
+	}
+	
+	/**
+	 * @return true if rules on a path which has
+	 * already failed should be skipped.
+	 */
+	protected boolean isShortCircuitingPaths() {
+		return shortCircuitingPaths;
+	}
+	
+	/**
+	 * @param shortCircuitingPaths whether rules on a path 
+	 * which has already failed should be skipped.
+	 */
+	protected void setShortCircuitingPaths(boolean shortCircuitingPaths) {
+		this.shortCircuitingPaths = shortCircuitingPaths;
+	}
+	
+	/**
+	 * @param localizedPath a path localized by @link{#localizePath(ValidationPath)}
+	 * @return true if a rule on the given path has failed.
+	 */
+	protected boolean isPathFailed(ValidationPath localizedPath) {
+		return failedPaths.contains(localizedPath);
+	}
+	
+	/**
+	 * Records that a rule on the given path has failed.
+	 * @param localizedPath a path localized by @link{#localizePath(ValidationPath)}
+	 */
+	protected void markPathFailed(ValidationPath localizedPath) {
+		failedPaths.add(localizedPath);
+	}
+	
+	/**
+	 * @return the changed paths which rules must read in order to be run,
+	 * or null if all rules are being run.
+	 */
+	public ChangedPathSet getChangedPaths() {
+		return changedPaths;
+	}
+	
+	/**
+	 * @param changedPaths the changed paths which rules must read
+	 * in order to be run, or null to run all rules.
+	 */
+	protected void setChangedPaths(ChangedPathSet changedPaths) {
+		this.changedPaths = changedPaths;
+	}
+	
+	/**
+	 * Indicates that a validation context has been activated. 
+	 * Its handler will initialize the SPEL resolver only 
+	 * once an expression needs the scopes it adds.
+	 * @param contextHandler the handler of the activated context
+	 */
+	protected void pushActiveContext(ValidationContextHandler contextHandler) {
+		positionChanged();
+		activeContextHandlers.add(contextHandler);
+		if (spelResolver != null) {
+			spelResolver.deferInitialization(contextHandler);
+		}
+	}
+	
+	/**
+	 * Indicates that the most recently activated 
+	 * validation context is no longer active, discarding
+	 * any scopes its handler added to the SPEL resolver.
+	 */
+	protected void popActiveContext() {
+		positionChanged();
+		ValidationContextHandler contextHandler = 
+			activeContextHandlers.remove(activeContextHandlers.size() - 1);
+		if (spelResolver != null) {
+			spelResolver.revertInitialization(contextHandler);
+		}
+	}
+	
+	/**
+	 * @return true if any validation contexts are active.
+	 */
+	protected boolean hasActiveContexts() {
+		return !activeContextHandlers.isEmpty();
 	}
 	
 	/**
@@ -150,8 +600,7 @@ public class ValidationEvaluationContext {
 	 * This does not include any active template base paths.
 	 */
 	public Object getBeanAtNestedPath() {
-		String joinedPath = PathUtils.joinPathSegments(nestedPath);
-		return joinedPath.isEmpty() ? getRootModel() : modelWrapper.getPropertyValue(joinedPath);
+		return nestedModels.get(nestedModels.size() - 1);
 	}
 	
 	/**
@@ -159,7 +608,7 @@ public class ValidationEvaluationContext {
 	 * @return true if the given bean has already been validated.
 	 */
 	protected boolean previouslyValidated(Object bean) {
-		return checkedModelHashes.peek().contains(bean.hashCode());
+		return checkedModels.contains(bean);
 	}
 	
 	/**
@@ -168,14 +617,14 @@ public class ValidationEvaluationContext {
 	 * @param bean the bean to mark validated
 	 */
 	protected void markValidated(Object bean) {
-		checkedModelHashes.peek().add(bean.hashCode());
+		checkedModels.add(bean);
 	}
 	
 	/**
 	 * @return the base bean being validated
 	 */
 	public Object getRootModel() {
-		return modelWrapper == null ? null : modelWrapper.getWrappedInstance();
+		return rootModel;
 	}
 	
 	/**
@@ -183,8 +632,7 @@ public class ValidationEvaluationContext {
 	 * on any nested and/or template paths. 
 	 */
 	public Object getCurrentModel() {
-		String currentPath = getCurrentNestedPath();
-		return currentPath.isEmpty() ? getRootModel() : modelWrapper.getPropertyValue(currentPath);
+		return readPath(ValidationPath.EMPTY);
 	}
 	
 	/**
@@ -192,51 +640,111 @@ public class ValidationEvaluationContext {
 	 * is to be validated by the current rule. This path may contain
 	 * EL, and if it does, we delegate to @link(#resolveEL(String))
 	 * to resolve that EL.
-	 * @param rule The rule for which to resolve the model
+	 * @param rule The compiled rule for which to resolve the model
 	 * @return the resolved rule model
 	 */
-	protected Object resolveRuleModel(ValidationRule rule) {
-		Object result = null;
-		if (rule.getPath() == null || rule.getPath().isEmpty()) {
+	protected Object resolveRuleModel(CompiledValidationRule rule) {
+		if (!rule.hasPath()) {
 			return getRootModel();
 		}
-		// TODO / Note to self: the expression is actually the rule path,
-		// which at this point has already been localized by the nested path
-		// via rule cloning, so long as the rule path didn't contain EL
-		if (PathUtils.containsEL(rule.getPath())) {
-			result = spelResolver.resolveSPELString(rule.getPath());
+		if (rule.isPathContainingEL()) {
+			return resolveTemplate(rule.getPathTemplate());
 		} else {
-			BeanWrapperImpl beanWrapper = new BeanWrapperImpl(getRootModel());
-			String localizedRulePath = localizePath(rule.getPath());
-			// TODO: Why is this check here?
-			// Under what circumstances did we want this to return null
-			// instead of throwing an exception?
-			if (beanWrapper.isReadableProperty(localizedRulePath)) {
-				result = beanWrapper.getPropertyValue(localizedRulePath);
-			}
+			return readPath(rule.getValidationPath());
 		}
-		return result;
 	}
 	
 	/**
 	 * Responsible for determining the argument to be passed to the rule.
 	 * If the argument expression string contains EL, it will be resolved,
 	 * otherwise, the expression string is taken as a literal argument.
-	 * @param rule the rule for which to resolve argument
-	 * @param expression The string path expression for the model.
+	 * @param rule the compiled rule for which to resolve argument
 	 * @return the Object to serve as a rule argument
 	 */
-	protected Object resolveRuleArgument(ValidationRule rule) {
-		Object result = null;
-		if (rule.getValue() == null || rule.getValue().isEmpty()) {
+	protected Object resolveRuleArgument(CompiledValidationRule rule) {
+		if (!rule.hasValue()) {
 			return null;
 		}
-		if (PathUtils.containsEL(rule.getValue())) {
-			result = spelResolver.resolveSPELString(rule.getValue());
+		if (rule.isValueContainingEL()) {
+			return resolveTemplate(rule.getValueTemplate());
 		} else {
-			result = rule.getValue();
+			return rule.getValue();
+		}
+	}
+	
+	/**
+	 * Reads the given sub path (e.g. rule path) at the current position,
+	 * unless already read there. The path is localized as by 
+	 * @link{#localizeRelativePath(ValidationPath)}, except that a path 
+	 * within the innermost collection member it falls in is read from 
+	 * that member, rather than building its indexed path and walking
+	 * it from the current nested model.
+	 * Paths which are not readable resolve to null.
+	 * @param subPath the path to read
+	 * @return the value at the path
+	 */
+	protected Object readPath(ValidationPath subPath) {
+		ValidationPath path = getTemplateValidationBasePath().append(subPath);
+		Object result = resolvedValues.get(path);
+		if (result == null) {
+			result = readLocalizedPath(path);
+			resolvedValues.put(path, result == null ? NULL_VALUE : result);
+		}
+		return result == NULL_VALUE ? null : result;
+	}
+	
+	/**
+	 * Applies collection members to the given path as they are
+	 * needed to match further collection members, and reads the path 
+	 * from the innermost collection member it falls in, if any.
+	 * @param path a path including any template base paths
+	 * @return the value at the path
+	 */
+	private Object readLocalizedPath(ValidationPath path) {
+		ValidationPath localizedPath = path;
+		CollectionMember pendingMember = null;
+		for (CollectionMember collectionMember : collectionMembers.values()) {
+			if (pendingMember != null) {
+				localizedPath = localizedPath.replacePrefix(pendingMember.getCollectionPath(), pendingMember.getPath());
+				pendingMember = null;
+			}
+			if (localizedPath.startsWith(collectionMember.getCollectionPath())) {
+				pendingMember = collectionMember;
+			}
+		}
+		Object model = getBeanAtNestedPath();
+		if (pendingMember != null) {
+			model = pendingMember.getMember();
+			localizedPath = localizedPath.subPath(pendingMember.getCollectionPath().size(), localizedPath.size());
+		}
+		if (localizedPath.isEmpty()) {
+			return model;
+		}
+		return model == null ? null : propertyPathAccessor.getPropertyValue(model, localizedPath.toString());
+	}
+	
+	/**
+	 * Resolves the EL in the given parsed string, 
+	 * unless already resolved at the current position.
+	 * @param template the parsed string
+	 * @return the resolved value
+	 */
+	protected Object resolveTemplate(SPELTemplate template) {
+		Object result = resolvedValues.get(template);
+		if (result == null) {
+			result = getSpelResolver().resolveSPELTemplate(template);
+			resolvedValues.put(template, result == null ? NULL_VALUE : result);
+		}
+		return result == NULL_VALUE ? null : result;
+	}
+	
+	/**
+	 * Forgets the values resolved at the previous position.
+	 */
+	private void positionChanged() {
+		if (!resolvedValues.isEmpty()) {
+			resolvedValues.clear();
 		}
-		return result;
 	}
 	
 	/**
@@ -246,9 +754,28 @@ public class ValidationEvaluationContext {
 	 * @return the object at the pushed nested path.
 	 */
 	protected Object pushNestedPath(String subPath) {
-		nestedPath.push(subPath);
-		checkedModelHashes.push(new ArrayList<Integer>(checkedModelHashes.peek()));
-		return getBeanAtNestedPath();
+		return pushNestedPath(subPath, propertyPathAccessor.getPropertyValue(getBeanAtNestedPath(), subPath));
+	}
+	
+	/**
+	 * Used during recursive sub-bean validation to indicate
+	 * that the validation process is moving to a sub bean path,
+	 * when the sub bean has already been read by the caller.
+	 * @param subPath the field name of a sub bean which will be validated next
+	 * @param subBean the sub bean at the given field
+	 * @return the object at the pushed nested path.
+	 */
+	protected Object pushNestedPath(String subPath, Object subBean) {
+		positionChanged();
+		nestedPath.add(subPath);
+		nestedValidationPaths.add(getNestedValidationPath().append(subPath));
+		nestedModels.add(subBean);
+		checkedModels.push();
+		if (nestedPath.size() == entityErrorCounts.length) {
+			entityErrorCounts = Arrays.copyOf(entityErrorCounts, entityErrorCounts.length * 2);
+		}
+		entityErrorCounts[nestedPath.size()] = 0;
+		return subBean;
 	}
 	
 	/**
@@ -257,35 +784,35 @@ public class ValidationEvaluationContext {
 	 * to its owning object.
 	 */
 	protected void popNestedPath() {
-		nestedPath.pop();
-		checkedModelHashes.pop();
+		positionChanged();
+		nestedPath.remove(nestedPath.size() - 1);
+		nestedValidationPaths.remove(nestedValidationPaths.size() - 1);
+		nestedModels.remove(nestedModels.size() - 1);
+		checkedModels.pop();
 	}
 	
 	/**
-	 * Pushes a validation template onto the validation template stack,
-	 * after ensuring that the given validation template is not already active
-	 * in order to prevent infinite recursion of nested validation templates
-	 * @param templateReference the validation template reference object which indicates
-	 * what nested path the validation template applies to
-	 * @param actualTemplate the validation template referenced by the validation template reference
+	 * Pushes a validation template onto the validation template stack.
+	 * Circular template use, and templates referenced on paths of the 
+	 * wrong class, are rejected by the @link{ValidationRulesContainer}
+	 * during container startup, so need not be checked here.
+	 * @param templateName the name of the referenced validation template
+	 * @param basePath the nested path the validation template applies to
 	 */
-	protected void pushTemplate(ValidationTemplateReference templateReference, ValidationTemplate actualTemplate) {
-		if (templateNames.contains(templateReference.getTemplateName())) {
-			throw new CircularValidationTemplateReferenceException(
-				"Circular use of validation template named " + templateReference.getTemplateName());
-		}
-		String localizedTemplatePath = localizePath(templateReference.getBasePath());
-		Class<?> templateTargetClass = PathUtils.getClassForPath(modelWrapper.getWrappedClass(), localizedTemplatePath, true);
-		if (!actualTemplate.getApplicableEntityClass().isAssignableFrom(templateTargetClass)) {
-			throw new IllegalTemplateReferenceException(
-				"Template named " + actualTemplate.getName() + 
-				" expects class " + actualTemplate.getApplicableEntityClass() +
-				" but got instance of " + templateTargetClass);
-		}
-		
-				
-		templateNames.push(templateReference.getTemplateName());
-		templateBasePaths.push(templateReference.getBasePath());
+	protected void pushTemplate(String templateName, String basePath) {
+		pushTemplate(templateName, ValidationPath.parse(basePath));
+	}
+	
+	/**
+	 * Pushes a validation template onto the validation template stack.
+	 * @param templateName the name of the referenced validation template
+	 * @param basePath the parsed nested path the validation template applies to
+	 */
+	protected void pushTemplate(String templateName, ValidationPath basePath) {
+		positionChanged();
+		templateNames.add(templateName);
+		templateBasePaths.add(basePath.toString());
+		templateValidationBasePaths.add(getTemplateValidationBasePath().append(basePath));
 	}
 	
 	/**
@@ -293,8 +820,10 @@ public class ValidationEvaluationContext {
 	 * the validation template and template reference stacks.
 	 */
 	protected void popTemplate() {
-		templateNames.pop();
-		templateBasePaths.pop();
+		positionChanged();
+		templateNames.remove(templateNames.size() - 1);
+		templateBasePaths.remove(templateBasePaths.size() - 1);
+		templateValidationBasePaths.remove(templateValidationBasePaths.size() - 1);
 	}
 	
 	/**
@@ -303,6 +832,10 @@ public class ValidationEvaluationContext {
 	 * 1) prepends with template base paths
 	 * 2) prepends resultant path with nestedPath
 	 * 3) applies collection replacements 
+	 * The resulting path is relative to the base model object, and 
+	 * is intended for reporting: use @link{#localizeRelativePath(String)}
+	 * to read from the current nested model.
+	 * Paths containing EL are returned as is.
 	 * @param subPath the path to localize
 	 * @return currently localizedPath
 	 */
@@ -310,24 +843,71 @@ public class ValidationEvaluationContext {
 		if (PathUtils.containsEL(subPath)) {
 			return subPath;
 		}
-		String localizedPath = PathUtils.appendPath(
-				PathUtils.joinPathSegments(nestedPath),
-				PathUtils.joinPathSegments(templateBasePaths), 
-				subPath);
+		return localizePath(ValidationPath.parse(subPath)).toString();
+	}
+	
+	/**
+	 * Localizes a parsed sub path to the current context,
+	 * as does @link{#localizePath(String)}.
+	 * @param subPath the parsed path to localize
+	 * @return the localized path, relative to the base model object
+	 */
+	protected ValidationPath localizePath(ValidationPath subPath) {
+		return getNestedValidationPath().append(localizeRelativePath(subPath));
+	}
+	
+	/**
+	 * Performs the following operations to localize a sub path
+	 * (e.g. rule path) to the current nested model:
+	 * 1) prepends with template base paths
+	 * 2) applies collection replacements 
+	 * Paths containing EL are returned as is.
+	 * @param subPath the path to localize
+	 * @return path localized relative to the current nested model
+	 */
+	protected String localizeRelativePath(String subPath) {
+		if (PathUtils.containsEL(subPath)) {
+			return subPath;
+		}
+		return localizeRelativePath(ValidationPath.parse(subPath)).toString();
+	}
+	
+	/**
+	 * Localizes a parsed sub path to the current nested model,
+	 * as does @link{#localizeRelativePath(String)}.
+	 * Collection path replacements match whole path segments.
+	 * @param subPath the parsed path to localize
+	 * @return path localized relative to the current nested model
+	 */
+	protected ValidationPath localizeRelativePath(ValidationPath subPath) {
+		ValidationPath localizedPath = getTemplateValidationBasePath().append(subPath);
 		// Apply collection path replacements.
 		// Multiple collection paths may build off of one another,
 		// so it is important to run all possible path replacements.
 		// Path replacement order is maintained by the use of a LinkedHashMap
-		for (Map.Entry<String, String> collectionPathReplacement : collectionPathReplacements.entrySet()) {
-			if (localizedPath.startsWith(collectionPathReplacement.getKey())) {
-				localizedPath = localizedPath.replaceAll(
-					"^" + Pattern.quote(collectionPathReplacement.getKey()),
-					collectionPathReplacement.getValue());
-			}
+		for (CollectionMember collectionMember : collectionMembers.values()) {
+			localizedPath = localizedPath.replacePrefix(
+				collectionMember.getCollectionPath(), collectionMember.getPath());
 		}
 		return localizedPath;
 	}
 	
+	/**
+	 * @return the current nested path, parsed.
+	 */
+	private ValidationPath getNestedValidationPath() {
+		return nestedValidationPaths.isEmpty() 
+			? ValidationPath.EMPTY : nestedValidationPaths.get(nestedValidationPaths.size() - 1);
+	}
+	
+	/**
+	 * @return the base paths of all active validation templates, parsed and joined.
+	 */
+	private ValidationPath getTemplateValidationBasePath() {
+		return templateValidationBasePaths.isEmpty() 
+			? ValidationPath.EMPTY : templateValidationBasePaths.get(templateValidationBasePaths.size() - 1);
+	}
+	
 	/**
 	 * @return the current nested path including any 
 	 * pushed nested paths from recursive sub bean validation,
@@ -335,7 +915,7 @@ public class ValidationEvaluationContext {
 	 * and any collection path replacements from collection iteration.
 	 */
 	public String getCurrentNestedPath() {
-		return localizePath("");
+		return localizePath(ValidationPath.EMPTY).toString();
 	}
 	
 	/**
@@ -343,8 +923,31 @@ public class ValidationEvaluationContext {
 	 * for any active JSR-303 validation groups
 	 */
 	public String[] getValidationHints() {
+		if (validationHints == null) {
+			String[] hintNames = new String[validationHintObjects.length];
+			for (int i = 0; i < hintNames.length; i++) {
+				hintNames[i] = ValidationGroupIndex.getGroupName(validationHintObjects[i]);
+			}
+			validationHints = hintNames;
+		}
 		return validationHints;
 	}
+	
+	/**
+	 * @return the IDs of the active validation groups, as interned by
+	 * @link{ValidationGroupIndex}, or null if not known.
+	 */
+	public BitSet getActiveGroups() {
+		return activeGroups;
+	}
+	
+	/**
+	 * @param activeGroups the IDs of the active validation groups,
+	 * as interned by @link{ValidationGroupIndex} from the validation hints.
+	 */
+	public void setActiveGroups(BitSet activeGroups) {
+		this.activeGroups = activeGroups;
+	}
 
 	/**
 	 * @return the Errors object on which validation errors
@@ -356,17 +959,36 @@ public class ValidationEvaluationContext {
 
 	/**
 	 * @return the bean wrapper wrapping the base bean
-	 * under validation
+	 * under validation, or null if there is none
 	 */
 	public BeanWrapper getModelWrapper() {
+		if (modelWrapper == null && rootModel != null) {
+			modelWrapper = new BeanWrapperImpl(rootModel);
+		}
 		return modelWrapper;
 	}
 
+	/**
+	 * @return the accessor used to read rule models
+	 * and sub beans from the current model
+	 */
+	public PropertyPathAccessor getPropertyPathAccessor() {
+		return propertyPathAccessor;
+	}
+
 	/**
 	 * @return the current SPELResolver initialized
-	 * by any active ValidationContextHandler instances
+	 * by any active ValidationContextHandler instances,
+	 * which is built when first requested.
 	 */
 	public SPELResolver getSpelResolver() {
+		if (spelResolver == null) {
+			spelResolver = new SPELResolver(rootModel, typeConverter);
+			initCurrentModelScope();
+			for (ValidationContextHandler contextHandler : activeContextHandlers) {
+				spelResolver.deferInitialization(contextHandler);
+			}
+		}
 		return spelResolver;
 	}
 
@@ -374,38 +996,68 @@ public class ValidationEvaluationContext {
 	 * @return the current stack of nested paths pushed
 	 * by recursive sub bean validation.
 	 */
-	protected Stack<String> getNestedPath() {
+	protected List<String> getNestedPath() {
 		return nestedPath;
 	}	
+	
+	/**
+	 * @return the current stack of models at each level
+	 * of the nested path, starting with the base model.
+	 */
+	protected List<Object> getNestedModels() {
+		return nestedModels;
+	}
 
 	/**
-	 * @return the hash codes of model beans already validated
+	 * @return the model beans already validated on the current nested path
 	 */
-	protected Stack<List<Integer>> getCheckedModelHashes() {
-		return checkedModelHashes;
+	protected PathScopedIdentitySet getCheckedModels() {
+		return checkedModels;
 	}
 	
 	/**
 	 * @return the names of active validation templates
 	 */
-	protected Stack<String> getTemplateNames() {
+	protected List<String> getTemplateNames() {
 		return templateNames;
 	}
 
 	/**
 	 * @return the nested stack of active validation template base paths
 	 */
-	protected Stack<String> getTemplateBasePaths() {
+	protected List<String> getTemplateBasePaths() {
 		return templateBasePaths;
 	}
 	
 	/**
-	 * @return the collection path replacements indicating for each 
-	 * nested collection path the indexed collection path for the current
-	 * iteration of the validated collection.
+	 * @return the collection members being evaluated, by the nested
+	 * collection path whose indexed path they replace it with, for the 
+	 * current iteration of the validated collection. Paths are relative 
+	 * to the current nested model. Use @link{#pushCollectionMember(CollectionMember)}
+	 * and @link{#popCollectionMember(ValidationPath)} to change them.
+	 */
+	protected Map<ValidationPath, CollectionMember> getCollectionMembers() {
+		return collectionMembers;
+	}
+	
+	/**
+	 * Used during collection iteration to indicate that the 
+	 * validation process is moving to a collection member.
+	 * @param collectionMember the collection member
+	 */
+	protected void pushCollectionMember(CollectionMember collectionMember) {
+		positionChanged();
+		collectionMembers.put(collectionMember.getCollectionPath(), collectionMember);
+	}
+	
+	/**
+	 * Called after validating a collection member, this 
+	 * method returns the validation context to the collection.
+	 * @param collectionPath the path of the collection
 	 */
-	protected Map<String, String> getCollectionPathReplacements() {
-		return collectionPathReplacements;
+	protected void popCollectionMember(ValidationPath collectionPath) {
+		positionChanged();
+		collectionMembers.remove(collectionPath);
 	}
 	
 	/**
@@ -424,4 +1076,23 @@ public class ValidationEvaluationContext {
 		
 	}
 
+	/**
+	 * A validation error recorded by a forked context.
+	 */
+	private static class Rejection {
+		
+		private final String field;
+		private final String errorCode;
+		private final Object[] errorArgs;
+		private final String defaultMessage;
+		
+		public Rejection(String field, String errorCode, Object[] errorArgs, String defaultMessage) {
+			this.field = field;
+			this.errorCode = errorCode;
+			this.errorArgs = errorArgs;
+			this.defaultMessage = defaultMessage;
+		}
+		
+	}
+
 }
@@ -18,38 +18,59 @@ package org.springjutsu.validation;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
 
-import org.apache.commons.collections.map.SingletonMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.springframework.aop.support.AopUtils;
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.SimpleTypeConverter;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.GenericTypeResolver;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.beanvalidation.CustomValidatorBean;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springjutsu.validation.context.ValidationContextHandler;
 import org.springjutsu.validation.context.ValidationContextHandlerContainer;
 import org.springjutsu.validation.executors.RuleExecutor;
 import org.springjutsu.validation.executors.RuleExecutorContainer;
 import org.springjutsu.validation.rules.CollectionStrategy;
+import org.springjutsu.validation.rules.CompiledRuleHolder;
+import org.springjutsu.validation.rules.CompiledTemplateReference;
+import org.springjutsu.validation.rules.CompiledValidationContext;
+import org.springjutsu.validation.rules.CompiledValidationEntity;
+import org.springjutsu.validation.rules.CompiledValidationRule;
 import org.springjutsu.validation.rules.RuleErrorMode;
-import org.springjutsu.validation.rules.RuleHolder;
 import org.springjutsu.validation.rules.ValidationContext;
-import org.springjutsu.validation.rules.ValidationEntity;
 import org.springjutsu.validation.rules.ValidationRule;
 import org.springjutsu.validation.rules.ValidationRulesContainer;
-import org.springjutsu.validation.rules.ValidationTemplate;
-import org.springjutsu.validation.rules.ValidationTemplateReference;
+import org.springjutsu.validation.util.ChangedPathSet;
+import org.springjutsu.validation.util.CollectionMember;
+import org.springjutsu.validation.util.CollectionMembers;
+import org.springjutsu.validation.util.CollectionTraversal;
+import org.springjutsu.validation.util.PathMetadata;
 import org.springjutsu.validation.util.PathUtils;
+import org.springjutsu.validation.util.PropertyPathAccessor;
+import org.springjutsu.validation.util.ReflectivePropertyPathAccessor;
+import org.springjutsu.validation.util.RuleExecutorUtils;
+import org.springjutsu.validation.util.ValidationPath;
 
 /**
  * Registerable as a JSR-303 @link{CustomValidatorBean}, this 
@@ -117,6 +138,61 @@ public class ValidationManager extends CustomValidatorBean {
 	 */
 	protected TypeConverter typeConverter;
 	
+	/**
+	 * Reads rule models and sub beans from the model under validation.
+	 * If none is configured, a @link{ReflectivePropertyPathAccessor} is used.
+	 */
+	@Autowired(required=false)
+	protected PropertyPathAccessor propertyPathAccessor;
+	
+	/**
+	 * The minimum number of members a collection must have
+	 * for its members to be validated in parallel.
+	 * Zero, the default, disables parallel validation.
+	 */
+	protected int parallelCollectionThreshold = 0;
+	
+	/**
+	 * The number of threads used for parallel collection validation,
+	 * run on a pool of that size. Zero, the default, splits collections 
+	 * for one thread per available processor, run on the common pool.
+	 */
+	protected int parallelism = 0;
+	
+	/**
+	 * Whether rules on a path are skipped once a rule on that path
+	 * has failed, for entities which don't configure this themselves.
+	 */
+	protected boolean shortCircuitPaths = false;
+	
+	/**
+	 * Runs parallel collection validation. Unless configured, 
+	 * this is created on first use if a parallelism is set,
+	 * or is otherwise the common pool.
+	 */
+	protected ForkJoinPool collectionPool;
+	
+	/**
+	 * True if the collection pool was created by this manager,
+	 * and so is to be shut down with it.
+	 */
+	private boolean collectionPoolCreated = false;
+	
+	/**
+	 * The number of models validated by each task
+	 * when a batch is validated across an executor.
+	 */
+	public static final int BATCH_CHUNK_SIZE = 64;
+	
+	/**
+	 * An idle evaluation context for each thread, reused by the 
+	 * next validation on that thread rather than building a new one.
+	 * Taken while in use, so that a validation started from within
+	 * another, such as by a rule executor, builds its own context.
+	 */
+	private final ThreadLocal<ValidationEvaluationContext> idleContexts = 
+		new ThreadLocal<ValidationEvaluationContext>();
+	
 	@Override
 	public boolean supports(Class<?> clazz) {
 		return rulesContainer.supportsClass(clazz);
@@ -133,7 +209,8 @@ public class ValidationManager extends CustomValidatorBean {
 	
 	/**
 	 * Hook point to perform validation without a web request,
-	 * but with specific JSR-303 groups.
+	 * but with specific JSR-303 groups, and optionally 
+	 * @link{ValidationOptions} to limit the errors recorded.
 	 */
 	public Errors validate(Object target, Object... validationHints) {
 		Errors errors = new BeanPropertyBindingResult(target, "validationTarget");
@@ -141,6 +218,155 @@ public class ValidationManager extends CustomValidatorBean {
 		return errors;
 	}
 	
+	/**
+	 * Hook point to validate a single property, such as a field
+	 * being edited on a form, without validating the whole model.
+	 * Only rules which read the property, directly or through EL, 
+	 * or whose reads can't be determined, are run.
+	 * Not to be confused with the JSR-303 validateProperty.
+	 * @param target the model to validate
+	 * @param path the path of the property, relative to the model
+	 * @param validationHints any JSR-303 validation groups to activate
+	 * @return the errors recorded by the rules which were run
+	 */
+	public Errors validatePath(Object target, String path, Object... validationHints) {
+		return validatePaths(target, Collections.singleton(path), validationHints);
+	}
+	
+	/**
+	 * Hook point to validate only the properties of a model which 
+	 * have changed, such as on autosave, without validating the whole model.
+	 * Only rules which read one of the changed paths, directly or through EL,
+	 * or whose reads can't be determined, are run.
+	 * A changed path also affects rules on the properties nested within it,
+	 * and paths without collection indexes apply to every member.
+	 * @param target the model to validate
+	 * @param changedPaths the paths of the changed properties, relative to the model
+	 * @param validationHints any JSR-303 validation groups to activate
+	 * @return the errors recorded by the rules which were run
+	 * @see ChangedPathSet
+	 */
+	public Errors validatePaths(Object target, Set<String> changedPaths, Object... validationHints) {
+		Errors errors = new BeanPropertyBindingResult(target, "validationTarget");
+		ValidationEvaluationContext context = acquireContext(target, errors, validationHints);
+		try {
+			context.setChangedPaths(new ChangedPathSet(changedPaths));
+			doValidate(context);
+		} finally {
+			releaseContext(context);
+		}
+		return errors;
+	}
+	
+	/**
+	 * Hook point to validate a batch of independent models
+	 * without a web request, such as records in a batch job.
+	 * A single evaluation context is reused across all of the
+	 * models, rather than preparing one for each.
+	 * @param targets the models to validate
+	 * @param validationHints any JSR-303 validation groups to activate
+	 * @return the errors for each model, in iteration order, 
+	 * so that the errors for the nth model are at index n.
+	 */
+	public List<Errors> validateAll(Iterable<?> targets, Object... validationHints) {
+		return validateAll(targets, null, validationHints);
+	}
+	
+	/**
+	 * Hook point to validate a stream of independent models
+	 * without a web request, as for @link{#validateAll(Iterable, Object...)}.
+	 * The stream is consumed in order through its iterator.
+	 * @param targets the models to validate
+	 * @param validationHints any JSR-303 validation groups to activate
+	 * @return the errors for each model, in encounter order, 
+	 * so that the errors for the nth model are at index n.
+	 */
+	public List<Errors> validateAll(Stream<?> targets, Object... validationHints) {
+		return validateAll(targets, null, validationHints);
+	}
+	
+	/**
+	 * Hook point to validate a stream of independent models without 
+	 * a web request, fanning them out across the given executor, 
+	 * as for @link{#validateAll(Iterable, ExecutorService, Object...)}.
+	 * The stream is consumed in order through its iterator.
+	 * @param targets the models to validate
+	 * @param executor the executor on which to validate the chunks,
+	 * or null to validate all models on the calling thread.
+	 * @param validationHints any JSR-303 validation groups to activate
+	 * @return the errors for each model, in encounter order, 
+	 * so that the errors for the nth model are at index n.
+	 */
+	public List<Errors> validateAll(Stream<?> targets, ExecutorService executor, Object... validationHints) {
+		final Iterator<?> targetIterator = targets.iterator();
+		return validateAll(new Iterable<Object>() {
+			@SuppressWarnings("unchecked")
+			public Iterator<Object> iterator() {
+				return (Iterator<Object>) targetIterator;
+			}
+		}, executor, validationHints);
+	}
+	
+	/**
+	 * Hook point to validate a batch of independent models
+	 * without a web request, fanning them out across the given executor.
+	 * Models are validated in chunks of @link{#BATCH_CHUNK_SIZE}, 
+	 * each chunk reusing a single evaluation context.
+	 * @param targets the models to validate
+	 * @param executor the executor on which to validate the chunks,
+	 * or null to validate all models on the calling thread.
+	 * @param validationHints any JSR-303 validation groups to activate
+	 * @return the errors for each model, in iteration order, 
+	 * so that the errors for the nth model are at index n.
+	 */
+	public List<Errors> validateAll(Iterable<?> targets, ExecutorService executor, final Object... validationHints) {
+		List<Errors> results = new ArrayList<Errors>();
+		if (executor == null) {
+			ValidationEvaluationContext context = null;
+			try {
+				for (Object target : targets) {
+					Errors errors = new BeanPropertyBindingResult(target, "validationTarget");
+					if (context == null) {
+						context = acquireContext(target, errors, validationHints);
+					} else {
+						context.reuse(target, errors);
+					}
+					doValidate(context);
+					results.add(errors);
+				}
+			} finally {
+				if (context != null) {
+					releaseContext(context);
+				}
+			}
+			return results;
+		}
+		
+		List<Future<List<Errors>>> chunks = new ArrayList<Future<List<Errors>>>();
+		try {
+			Iterator<?> targetIterator = targets.iterator();
+			while (targetIterator.hasNext()) {
+				final List<Object> chunk = new ArrayList<Object>(BATCH_CHUNK_SIZE);
+				while (targetIterator.hasNext() && chunk.size() < BATCH_CHUNK_SIZE) {
+					chunk.add(targetIterator.next());
+				}
+				chunks.add(executor.submit(withCallerThreadContext(new Callable<List<Errors>>() {
+					public List<Errors> call() {
+						return validateAll(chunk, null, validationHints);
+					}
+				})));
+			}
+			for (Future<List<Errors>> chunk : chunks) {
+				results.addAll(awaitTask(chunk, "batch validation"));
+			}
+		} finally {
+			for (Future<List<Errors>> chunk : chunks) {
+				chunk.cancel(true);
+			}
+		}
+		return results;
+	}
+	
 	/**
 	 * Validation entry point defined in SpringValidatorAdapter
 	 */
@@ -158,7 +384,44 @@ public class ValidationManager extends CustomValidatorBean {
 	 */
 	@Override
 	public void validate(Object target, Errors errors, Object... validationHints) {
-		doValidate(new ValidationEvaluationContext(target, errors, getTypeConverter(), validationHints));
+		ValidationEvaluationContext context = acquireContext(target, errors, validationHints);
+		try {
+			doValidate(context);
+		} finally {
+			releaseContext(context);
+		}
+	}
+	
+	/**
+	 * Prepares an evaluation context for a validation, reusing
+	 * this thread's idle context if it has one, or else building one.
+	 * @param target the model to validate
+	 * @param errors the errors object on which to record errors
+	 * @param validationHints any JSR-303 validation groups to activate
+	 * @return the context, to be handed back to 
+	 * @link{#releaseContext(ValidationEvaluationContext)} once done.
+	 */
+	protected ValidationEvaluationContext acquireContext(Object target, Errors errors, Object... validationHints) {
+		ValidationEvaluationContext context = idleContexts.get();
+		if (context == null) {
+			context = new ValidationEvaluationContext(target, errors, getTypeConverter(), 
+				getPropertyPathAccessor(), validationHints);
+		} else {
+			idleContexts.set(null);
+			context.reuse(target, errors, validationHints);
+		}
+		context.setActiveGroups(rulesContainer.getValidationGroupIndex().getHintBits(validationHints));
+		return context;
+	}
+	
+	/**
+	 * Keeps the given context as this thread's idle context,
+	 * after dropping its references to the model and errors.
+	 * @param context a context from @link{#acquireContext(Object, Errors, Object...)}
+	 */
+	protected void releaseContext(ValidationEvaluationContext context) {
+		context.release();
+		idleContexts.set(context);
 	}
 	
 	/**
@@ -174,13 +437,20 @@ public class ValidationManager extends CustomValidatorBean {
 			String nestedPath = PathUtils.joinPathSegments(context.getNestedPath());
 			log.debug("Current recursion path is: " + (nestedPath.isEmpty() ? "root object" : nestedPath));
 		}
-		if (context.getModelWrapper() == null) {
+		if (context.getRootModel() == null) {
 			if (log.isDebugEnabled()) {
 				log.debug("Attempted to validate null object, skipping.");
 			}
 			return;
 		}
 		
+		if (context.isErrorLimitReached()) {
+			if (log.isDebugEnabled()) {
+				log.debug("Error limit reached, skipping.");
+			}
+			return;
+		}
+		
 		Object validateMe = context.getBeanAtNestedPath();
 		if (log.isDebugEnabled()) {
 			log.debug("Found object to validate: " + String.valueOf(validateMe));
@@ -196,38 +466,56 @@ public class ValidationManager extends CustomValidatorBean {
 			context.markValidated(validateMe);
 		}
 		
-		ValidationEntity validationEntity = rulesContainer.getValidationEntity(validateMe.getClass());
+		CompiledValidationEntity validationEntity = rulesContainer.getCompiledValidationEntity(validateMe.getClass());
+		if (validationEntity == null) {
+			if (log.isDebugEnabled()) {
+				log.debug("No validation entity for " + validateMe.getClass() + ", skipping.");
+			}
+			return;
+		}
 		
+		boolean wasShortCircuitingPaths = context.isShortCircuitingPaths();
+		context.setShortCircuitingPaths(validationEntity.getShortCircuitPaths() != null 
+			? validationEntity.getShortCircuitPaths() : shortCircuitPaths);
 		callRules(context, validationEntity);
+		context.setShortCircuitingPaths(wasShortCircuitingPaths);
 		 
 		// Get fields for subbeans and iterate
-		BeanWrapperImpl subBeanWrapper = new BeanWrapperImpl(validateMe);
+		PropertyPathAccessor propertyPathAccessor = context.getPropertyPathAccessor();
 		
 		for (Map.Entry<String, Class<?>> recursionPath : validationEntity.getRecursivePropertyPaths().entrySet()) {
 			
-			if (List.class.isAssignableFrom(recursionPath.getValue()) || recursionPath.getValue().isArray()) {
-				Object potentialList = subBeanWrapper.getPropertyValue(recursionPath.getKey());
-				List<?> list = (List<?>) (recursionPath.getValue().isArray() && potentialList != null 
-					? Arrays.asList(potentialList) : potentialList);
+			if (context.isErrorLimitReached()) {
+				break;
+			}
+			
+			if (CollectionTraversal.isTraversable(recursionPath.getValue())) {
+				final CollectionTraversal members = CollectionTraversal.forCollection(
+					propertyPathAccessor.getPropertyValue(validateMe, recursionPath.getKey()));
 				
-				if (list == null || list.isEmpty()) {
+				if (members == null || members.size() == 0) {
 					continue;
 				}
 				
-				for (int i = 0; i < list.size(); i++) {
-					String nestedPathSegment = recursionPath.getKey() + "[" + i + "]";
-					if (log.isDebugEnabled()) {
-						log.debug("Pushing nested path: " + nestedPathSegment);
+				// walk the collection in place: split between threads where
+				// members can be read by position, and otherwise in order.
+				final String collectionPath = recursionPath.getKey();
+				if (members.isRandomAccess()) {
+					validateCollectionMembers(context, members.size(), new CollectionMemberValidation() {
+						public void validateMember(ValidationEvaluationContext memberContext, int index) {
+							validateNestedMember(memberContext, collectionPath + "[" + index + "]", members.get(index));
+						}
+					});
+				} else {
+					CollectionTraversal.Cursor cursor = members.cursor();
+					while (!context.isErrorLimitReached() && cursor.next()) {
+						validateNestedMember(context, collectionPath + cursor.getIndex(), cursor.get());
 					}
-					
-					context.pushNestedPath(nestedPathSegment);
-					doValidate(context);
-					context.popNestedPath();
-					log.debug("Done validating nested path: " + nestedPathSegment);
 				}
 				
 			} else {
-				context.pushNestedPath(recursionPath.getKey());
+				context.pushNestedPath(recursionPath.getKey(), 
+					propertyPathAccessor.getPropertyValue(validateMe, recursionPath.getKey()));
 				doValidate(context);
 				context.popNestedPath();
 			}
@@ -239,51 +527,88 @@ public class ValidationManager extends CustomValidatorBean {
 		}
 	}
 	
+	/**
+	 * Validates a member of a collection found during recursive
+	 * sub bean validation, on the given nested path.
+	 * @param context the current validation context
+	 * @param nestedPathSegment the indexed path of the member, such as "customers[2]"
+	 * @param member the member to validate
+	 */
+	protected void validateNestedMember(ValidationEvaluationContext context, String nestedPathSegment, Object member) {
+		if (log.isDebugEnabled()) {
+			log.debug("Pushing nested path: " + nestedPathSegment);
+		}
+		context.pushNestedPath(nestedPathSegment, member);
+		doValidate(context);
+		context.popNestedPath();
+		log.debug("Done validating nested path: " + nestedPathSegment);
+	}
+	
 	/**
 	 * Responsible for invoking all validation rules within the given rule holder.
 	 * Invokes non-scoped validation rules, template-scoped validation rules,
 	 * and then context-scoped validation rules in turn.
 	 * @param context The validation context object which indicates the current object
 	 * against which the rules should be evaluated. 
-	 * @param ruleHolder could be the base validation entity, a validation rule that passed,
-	 * a validation template, or a validation context.
+	 * @param ruleHolder could be the compiled base validation entity, a validation rule
+	 * that passed, a validation template, or a validation context.
 	 */
-	@SuppressWarnings("unchecked")
-	protected void callRules(ValidationEvaluationContext context, RuleHolder ruleHolder) {
-		for (ValidationRule rule : ruleHolder.getRules()) {
+	protected void callRules(ValidationEvaluationContext context, CompiledRuleHolder ruleHolder) {
+		for (CompiledValidationRule rule : ruleHolder.getRules()) {
+			
+			// stop once the error limit for this bean has been reached.
+			if (context.isEntityErrorLimitReached()) {
+				return;
+			}
+			
+			// when validating changed paths, skip rules which don't read them.
+			if (!isAffectedByChangedPaths(context, rule)) {
+				continue;
+			}
 			
-			// break down any collections into indexed paths.
-			SingletonMap collectionReplacements = resolveCollectionPathReplacements(context, rule);
+			// break down any collections into their members.
+			final CollectionMembers collectionMembers = resolveCollectionMembers(context, rule);
 			
-			// if there are no collection replacements to be made, 
+			// if there are no collection members to iterate, 
 			// run the rule (and any sub rules) as normal.
-			if (collectionReplacements == null) {
+			if (collectionMembers == null) {
 				handleValidationRule(context, rule);
 			} else {
-				// Otherwise, iterate through the collection replacements,
-				// and run the rule (and any sub rules) for each base path.
-				String collectionReplacementKey = (String) collectionReplacements.getKey();
-				List<String> collectionReplacementValues = (List<String>) collectionReplacements.getValue();
+				// Otherwise, iterate through the members beneath each
+				// member of the outermost collection, and run the rule 
+				// (and any sub rules) for each member.
+				final CompiledValidationRule collectionRule = rule;
 				
-				for (String collectionReplacementValue : collectionReplacementValues) {
-					context.getCollectionPathReplacements()
-						.put(collectionReplacementKey, collectionReplacementValue);
-					handleValidationRule(context, rule);
-					context.getCollectionPathReplacements().remove(collectionReplacementKey);
+				if (collectionMembers.isGroupedByOuterPosition()) {
+					validateCollectionMembers(context, collectionMembers.getOuterSize(), new CollectionMemberValidation() {
+						public void validateMember(ValidationEvaluationContext memberContext, int index) {
+							handleValidationRule(memberContext, collectionRule, collectionMembers.iterator(index));
+						}
+					});
+				} else {
+					handleValidationRule(context, collectionRule, collectionMembers.iterator());
 				}
 			}
 		}
-		for (ValidationTemplateReference templateReference : ruleHolder.getTemplateReferences()) {
-			ValidationTemplate actualTemplate = 
-				rulesContainer.getValidationTemplateMap().get(templateReference.getTemplateName());
-			context.pushTemplate(templateReference, actualTemplate);
-			callRules(context, actualTemplate);
+		for (CompiledTemplateReference templateReference : ruleHolder.getTemplateReferences()) {
+			if (context.isEntityErrorLimitReached()) {
+				return;
+			}
+			context.pushTemplate(templateReference.getTemplateName(), templateReference.getValidationBasePath());
+			callRules(context, templateReference.getTemplate());
 			context.popTemplate();
 		}
 		
-		for (ValidationContext validationContext : ruleHolder.getValidationContexts()) {
-			ValidationContextHandler contextHandler = 
-				contextHandlerContainer.getContextHandlerForType(validationContext.getType());
+		// group contexts whose groups are all inactive are filtered out 
+		// up front, when the active groups are known.
+		BitSet activeGroups = context.getActiveGroups();
+		List<CompiledValidationContext> validationContexts = activeGroups == null 
+			? ruleHolder.getValidationContexts() : ruleHolder.getValidationContexts(activeGroups);
+		for (CompiledValidationContext validationContext : validationContexts) {
+			if (context.isEntityErrorLimitReached()) {
+				return;
+			}
+			ValidationContextHandler contextHandler = validationContext.getContextHandler();
 			
 			// if we're performing sub bean validation,
 			// and the current context handler does not permit
@@ -292,17 +617,192 @@ public class ValidationManager extends CustomValidatorBean {
 				continue;
 			}
 			
-			// if the specified context is active
-			// initialize the spel resolver, run the rules, then reset the resolver
-			if (contextHandler.isActive(validationContext.getQualifiers(), 
-					context.getRootModel(), context.getValidationHints())) {
-				contextHandler.initializeSPELResolver(context.getSpelResolver());
-				callRules(context, validationContext);
-				context.getSpelResolver().reset();
+			// if the specified context is active, run the rules,
+			// initializing the spel resolver only if EL needs it,
+			// then pop any scopes added if it was initialized.
+			if ((activeGroups != null && validationContext.isGroup()) 
+					|| contextHandler.isActive(validationContext.getQualifiers(), 
+						context.getRootModel(), context.getValidationHints())) {
+				context.pushActiveContext(contextHandler);
+				try {
+					callRules(context, validationContext);
+				} finally {
+					context.popActiveContext();
+				}
 			}
 		}
 	}
 	
+	/**
+	 * Validates each member of a collection, either in turn,
+	 * or in parallel when parallel collection validation is enabled,
+	 * the collection is large enough, and the context can be forked.
+	 * When run in parallel, the members are split into contiguous ranges
+	 * by a @link{CollectionRangeValidation} run on the collection pool,
+	 * each range validated on a forked context, and the errors from each 
+	 * are merged back in member order, so that the errors are the same 
+	 * as when run in turn.
+	 * Forked contexts do not themselves validate in parallel, nor are
+	 * collections validated in parallel when errors are limited by 
+	 * @link{ValidationOptions}, so that exactly the same errors are recorded.
+	 * Members are no longer visited once the error limit is reached.
+	 * @param context The current validation context
+	 * @param size The number of members in the collection
+	 * @param memberValidation Validates a single member
+	 */
+	protected void validateCollectionMembers(final ValidationEvaluationContext context, 
+			int size, final CollectionMemberValidation memberValidation) {
+		int threads = Math.min(getParallelism(), size);
+		if (parallelCollectionThreshold <= 0 || size < parallelCollectionThreshold 
+				|| threads < 2 || context.isFork() || context.hasActiveContexts() 
+				|| context.getOptions().isLimited()) {
+			for (int i = 0; i < size && !context.isErrorLimitReached(); i++) {
+				memberValidation.validateMember(context, i);
+			}
+			return;
+		}
+		
+		// several ranges per thread, so that idle threads can steal work.
+		int rangeSize = Math.max(1, size / (threads * 4));
+		List<ValidationEvaluationContext> forks = getCollectionPool().invoke(
+			new CollectionRangeValidation(context, memberValidation, 0, size, rangeSize,
+				RequestContextHolder.getRequestAttributes(), LocaleContextHolder.getLocaleContext()));
+		for (ValidationEvaluationContext fork : forks) {
+			context.mergeFork(fork);
+		}
+	}
+	
+	/**
+	 * Validates a range of collection members on the collection pool, 
+	 * splitting it in two until it is no larger than the range size, 
+	 * then validating it on a context forked from the given context.
+	 * Each range runs with the web request and locale of the thread
+	 * which started the validation, as rules and message resolution
+	 * may depend on either.
+	 * The result is the forked context of each range, in member order.
+	 */
+	protected static class CollectionRangeValidation extends RecursiveTask<List<ValidationEvaluationContext>> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final ValidationEvaluationContext context;
+		
+		private final CollectionMemberValidation memberValidation;
+		
+		private final int start;
+		
+		private final int end;
+		
+		private final int rangeSize;
+		
+		private final RequestAttributes requestAttributes;
+		
+		private final LocaleContext localeContext;
+		
+		/**
+		 * @param context the context to fork for each range
+		 * @param memberValidation validates a single member
+		 * @param start the first member of the range
+		 * @param end the member after the last member of the range
+		 * @param rangeSize the largest range validated without splitting
+		 * @param requestAttributes the web request to validate with
+		 * @param localeContext the locale to validate with
+		 */
+		protected CollectionRangeValidation(ValidationEvaluationContext context, 
+				CollectionMemberValidation memberValidation, int start, int end, int rangeSize,
+				RequestAttributes requestAttributes, LocaleContext localeContext) {
+			this.context = context;
+			this.memberValidation = memberValidation;
+			this.start = start;
+			this.end = end;
+			this.rangeSize = rangeSize;
+			this.requestAttributes = requestAttributes;
+			this.localeContext = localeContext;
+		}
+		
+		@Override
+		protected List<ValidationEvaluationContext> compute() {
+			if (end - start > rangeSize) {
+				int middle = (start + end) >>> 1;
+				CollectionRangeValidation lower = new CollectionRangeValidation(context, 
+					memberValidation, start, middle, rangeSize, requestAttributes, localeContext);
+				CollectionRangeValidation upper = new CollectionRangeValidation(context, 
+					memberValidation, middle, end, rangeSize, requestAttributes, localeContext);
+				upper.fork();
+				List<ValidationEvaluationContext> forks = lower.compute();
+				forks.addAll(upper.join());
+				return forks;
+			}
+			// forking only reads the context, which is left alone until every range is done.
+			ValidationEvaluationContext fork = context.fork();
+			RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+			LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+			RequestContextHolder.setRequestAttributes(requestAttributes);
+			LocaleContextHolder.setLocaleContext(localeContext);
+			try {
+				for (int i = start; i < end; i++) {
+					memberValidation.validateMember(fork, i);
+				}
+			} finally {
+				RequestContextHolder.setRequestAttributes(previousRequestAttributes);
+				LocaleContextHolder.setLocaleContext(previousLocaleContext);
+			}
+			List<ValidationEvaluationContext> forks = new ArrayList<ValidationEvaluationContext>();
+			forks.add(fork);
+			return forks;
+		}
+		
+	}
+	
+	/**
+	 * Wraps the given task so that it runs with the web request
+	 * and locale of the calling thread, as rules and message 
+	 * resolution may depend on either.
+	 * @param task the task to wrap
+	 * @return the wrapped task
+	 */
+	protected <T> Callable<T> withCallerThreadContext(final Callable<T> task) {
+		final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		final LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+		return new Callable<T>() {
+			public T call() throws Exception {
+				RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+				LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+				RequestContextHolder.setRequestAttributes(requestAttributes);
+				LocaleContextHolder.setLocaleContext(localeContext);
+				try {
+					return task.call();
+				} finally {
+					RequestContextHolder.setRequestAttributes(previousRequestAttributes);
+					LocaleContextHolder.setLocaleContext(previousLocaleContext);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Waits for the given task to complete, rethrowing any 
+	 * runtime exception or error it failed with.
+	 * @param task the task to wait for
+	 * @param description describes the task, for exception messages
+	 * @return the result of the task
+	 */
+	protected <T> T awaitTask(Future<T> task, String description) {
+		try {
+			return task.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted during " + description, ie);
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ee.getCause();
+			} else if (ee.getCause() instanceof Error) {
+				throw (Error) ee.getCause();
+			}
+			throw new IllegalStateException("Error during " + description, ee.getCause());
+		}
+	}
+	
 	/**
 	 * Runs the provided rule, and on success either executes the child rules 
 	 * (if present) or just continued (if no children present) or on failure
@@ -310,7 +810,24 @@ public class ValidationManager extends CustomValidatorBean {
 	 * @param context The current validation context indicating the object being validated
 	 * @param rule The validation rule to execute
 	 */
-	protected void handleValidationRule(ValidationEvaluationContext context, ValidationRule rule) {
+	protected void handleValidationRule(ValidationEvaluationContext context, CompiledValidationRule rule) {
+		if (!isAffectedByChangedPaths(context, rule)) {
+			return;
+		}
+		
+		// When short circuiting paths, skip rules on a path which has already failed.
+		// Only plain property paths are tracked, and conditions are always evaluated.
+		ValidationPath shortCircuitPath = null;
+		if (context.isShortCircuitingPaths() && rule.hasPath() && !rule.isPathContainingEL()) {
+			shortCircuitPath = context.localizePath(rule.getValidationPath());
+			if (!rule.hasChildren() && context.isPathFailed(shortCircuitPath)) {
+				if (log.isDebugEnabled()) {
+					log.debug("Path " + shortCircuitPath + " has already failed, skipping rule: " + rule);
+				}
+				return;
+			}
+		}
+		
 		if (passes(rule, context)) {
 			// If the rule passes and it has children,
 			// it is a condition for nested elements.
@@ -331,120 +848,113 @@ public class ValidationManager extends CustomValidatorBean {
 				// If the rule has no children and fails,
 				// perform fail action.
 				validationErrorMessageHandler.logError(context, rule);
+				if (shortCircuitPath != null) {
+					context.markPathFailed(shortCircuitPath);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Determines whether the given rule must be run when validating
+	 * only changed paths, using the dependencies found when the rule 
+	 * was compiled, localized to the current nested and template paths.
+	 * @param context The current validation context
+	 * @param rule The rule to check
+	 * @return true if all rules are being run, or the rule
+	 * reads a changed path, or the rule's reads are unknown.
+	 */
+	protected boolean isAffectedByChangedPaths(ValidationEvaluationContext context, CompiledValidationRule rule) {
+		ChangedPathSet changedPaths = context.getChangedPaths();
+		if (changedPaths == null || rule.isDependingOnAnyPath()) {
+			return true;
+		}
+		for (ValidationPath dependencyPath : rule.getDependencyValidationPaths()) {
+			if (changedPaths.affects(context.localizePath(dependencyPath))) {
+				return true;
+			}
+		}
+		for (ValidationPath rootDependencyPath : rule.getRootDependencyValidationPaths()) {
+			if (changedPaths.affects(rootDependencyPath)) {
+				return true;
 			}
 		}
+		return false;
 	}
 	
 	/**
-	 * Determines all the indexed collection paths which can be
-	 * derived from the current path, which should be passed to
-	 * the rule being evaluated, based on the rule's given strategy 
-	 * for handling collections.
+	 * Runs the given rule against each of the given collection members in turn,
+	 * until the error limit for the current bean is reached.
+	 * @param context The current validation context
+	 * @param rule The validation rule to execute
+	 * @param members The collection members to run the rule against
+	 */
+	protected void handleValidationRule(ValidationEvaluationContext context, 
+			CompiledValidationRule rule, Iterator<CollectionMember> members) {
+		while (members.hasNext() && !context.isEntityErrorLimitReached()) {
+			CollectionMember member = members.next();
+			context.pushCollectionMember(member);
+			handleValidationRule(context, rule);
+			context.popCollectionMember(member.getCollectionPath());
+		}
+	}
+	
+	/**
+	 * Determines the collections on the rule path which the rule 
+	 * should be run against each member of, based on the rule's given 
+	 * strategy for handling collections. Members are read lazily from 
+	 * the collections themselves as the rule is run against them.
 	 * @param context The current validation context indicating the object being validated
 	 * @param rule The rule for which any collections will be handled.
-	 * @return a mapping of the deepest possible nested collection path 
-	 * to a list of indexed collection path replacements.
+	 * @return the members of the deepest possible nested collection path,
+	 * or null if the rule is not run against collection members.
 	 */
-	@SuppressWarnings("rawtypes")
-	protected SingletonMap resolveCollectionPathReplacements(ValidationEvaluationContext context, ValidationRule rule) {
-		String path = context.localizePath(rule.getPath());
-		
+	protected CollectionMembers resolveCollectionMembers(ValidationEvaluationContext context, CompiledValidationRule rule) {
 		// Do nothing with EL paths.
-		if (PathUtils.containsEL(path)) {
+		if (rule.isPathContainingEL()) {
 			return null;
 		}
 		
-		BeanWrapper rootModelWrapper = new BeanWrapperImpl(context.getRootModel());
-		List<String> collectionPaths = new ArrayList<String>();
-		List<ValidationRule> brokenDownRules = new ArrayList<ValidationRule>();
+		// Collection paths are resolved relative to the current nested model.
+		ValidationPath path = context.localizeRelativePath(rule.getValidationPath());
+		Object model = context.getBeanAtNestedPath();
 		
 		// First we need to discover which tokens within the given path are collections, if any.
-		// We'll also determine the last collection in the path in order to conditionally apply
-		// the user-specified collectionStrategy.
-		Class<?>[] pathClasses = 
-			PathUtils.getClassesForPathTokens(rootModelWrapper.getWrappedClass(), path, false);
+		// The declared types along the path are resolved once per class and path.
+		PathMetadata pathMetadata = PathUtils.getPathMetadata(model.getClass(), path);
 		
 		// check for empty path
-		if (pathClasses == null) {
-			brokenDownRules.add(rule);
+		if (pathMetadata == null) {
 			return null;
 		}
 		
-		boolean[] tokenCollection = new boolean[pathClasses.length];
-		int lastCollectionIndex = -1;
-		for (int i = 0; i < pathClasses.length; i++) {
-			tokenCollection[i] = pathClasses[i].isArray() || List.class.isAssignableFrom(pathClasses[i]);
-			if (tokenCollection[i]) {
-				lastCollectionIndex = i;
+		// tokens which already give an index refer to a single member, not the collection.
+		int[] collectionTokens = new int[pathMetadata.size()];
+		int collectionCount = 0;
+		for (int i = 0; i < pathMetadata.size(); i++) {
+			if (pathMetadata.isCollection(i) && path.getIndex(i) == null) {
+				collectionTokens[collectionCount++] = i;
 			}
 		}
-		
-		// if there's no collections here to replace, stop wasting time and return.
-		if (lastCollectionIndex == -1 || 
-				(lastCollectionIndex == 0 && rule.getCollectionStrategy() == CollectionStrategy.VALIDATE_COLLECTION_OBJECT)) {
-			brokenDownRules.add(rule);
+		if (collectionCount == 0) {
 			return null;
 		}
 		
-		// Resolve the base path for the collection(s):
-		// This is everything from the beggining of the path
-		// to the token of the last collection.
-		String[] tokens = path.split("\\.");
-		String baseCollectionPath = PathUtils.appendPath(Arrays.copyOfRange(tokens, 0, lastCollectionIndex + 1));
-		
-		for (int i = 0; i <= lastCollectionIndex; i++) {
-			String token = tokens[i];
-			// if first pass, add the token as the root path.
-			if (i == 0) {
-				collectionPaths.add(token);
-			} else {
-				// otherwise, append the new token to all existing paths.
-				List <String> appendedCollectionPaths = new ArrayList<String>();
-				for (String collectionPath : collectionPaths) {
-					appendedCollectionPaths.add(PathUtils.appendPath(collectionPath, token));
-				}
-				collectionPaths.clear();
-				collectionPaths = appendedCollectionPaths;
-			}
-			
-			// iterate through new appended paths, and break down collection tokens.
-			List<String> brokenDownCollectionPaths = new ArrayList<String>();
-			Iterator<String> collectionPathIterator = collectionPaths.iterator();
-			while (collectionPathIterator.hasNext()) {
-				String collectionPath = collectionPathIterator.next();
-				Class pathClass = rootModelWrapper.getPropertyType(collectionPath);
-				if (pathClass != null && (pathClass.isArray() || List.class.isAssignableFrom(pathClass))) {
-					
-					// if this is the final collection in the path
-					// and the collection strategy is validateCollectionObject,
-					// leave the collection as an object reference and continue.
-					if (i == lastCollectionIndex
-							&& rule.getCollectionStrategy() == CollectionStrategy.VALIDATE_COLLECTION_OBJECT) {
-						continue;
-					}
-					
-					// otherwise, treat as iteration: 
-					// remove the reference to the collection object and generate sub-paths.
-					collectionPathIterator.remove();
-					
-					Object collectionObject = rootModelWrapper.getPropertyValue(collectionPath);
-					// skip this path for sub bean validation if the collection itself is null.
-					if (collectionObject == null) {
-						continue;
-					}
-					// Add each index of the collection as a subpath for iteration.
-					int collectionSize = pathClass.isArray() ? 
-						((Object[]) collectionObject).length : 
-						((List) collectionObject).size();
-					for (int j = 0; j < collectionSize; j++) {
-						brokenDownCollectionPaths.add(collectionPath + "[" + j + "]");
-					}
-				}
-			}
-			collectionPaths.addAll(brokenDownCollectionPaths);
+		// The base path for the collection(s) is everything from 
+		// the beginning of the path to the token of the last collection.
+		// If the collection strategy is validateCollectionObject,
+		// the last collection is left as an object reference.
+		int lastCollectionToken = collectionTokens[collectionCount - 1];
+		if (rule.getCollectionStrategy() == CollectionStrategy.VALIDATE_COLLECTION_OBJECT) {
+			collectionCount--;
 		}
 		
-		return new SingletonMap(baseCollectionPath, collectionPaths);
+		// if there's no collections here to iterate, stop wasting time and return.
+		if (collectionCount == 0) {
+			return null;
+		}
+		return new CollectionMembers(model, path.subPath(0, lastCollectionToken + 1), 
+			Arrays.copyOf(collectionTokens, collectionCount), context.getPropertyPathAccessor());
 	}
 
 	/**
@@ -452,12 +962,12 @@ public class ValidationManager extends CustomValidatorBean {
 	 * by calling the rule executor.
 	 * Delegates to extract the model and arguments from 
 	 * the sub path defined on the XML rule. 
-	 * @param rule The validation rule to run
+	 * @param rule The compiled validation rule to run
 	 * @param rootModel The model to run the rule on.
 	 * @return
 	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	protected boolean passes(ValidationRule rule, ValidationEvaluationContext context) {
+	protected boolean passes(CompiledValidationRule rule, ValidationEvaluationContext context) {
 		if (log.isDebugEnabled()) {
 			log.debug("Preparing to execute rule: " + rule);
 			log.debug("Actual rule path is " + context.localizePath(rule.getPath()));
@@ -471,22 +981,20 @@ public class ValidationManager extends CustomValidatorBean {
 		
 		Object ruleArg = context.resolveRuleArgument(rule);
 		if (log.isDebugEnabled()) {
-			log.debug("Resolved rule argument: " + ruleModel);
+			log.debug("Resolved rule argument: " + ruleArg);
 		}
 
 		// call method
 		boolean isValid;
 		RuleExecutor executor = rule.getRuleExecutor();
-		if (executor == null) {
-			executor = ruleExecutorContainer.getRuleExecutorByName(rule.getType());
-		}
 		
 		try {
-			// perform conversion on argument
-			Object convertedRuleArg = convertRuleArgument(ruleArg, executor);
+			// perform conversion on argument, unless done at compile time
+			Object convertedRuleArg = rule.isValueConverted() 
+				? rule.getConvertedValue() : convertRuleArgument(ruleArg, rule.getArgumentType());
 			isValid = executor.validate(ruleModel, convertedRuleArg);
 		} catch (Exception ve) {
-			throw new RuntimeException("Error occured during validation of "+ rule.getType() != null ? rule.getType() : rule.getRuleExecutor().getClass() + " for " + rule.getPath() + ": ", ve);
+			throw new RuntimeException("Error occured during validation of " + rule + ": ", ve);
 		}
 		log.debug("Rule executor returned " + isValid);
 		return isValid;
@@ -502,15 +1010,121 @@ public class ValidationManager extends CustomValidatorBean {
 	 */
 	@SuppressWarnings("rawtypes")
 	public Object convertRuleArgument(Object ruleArg, RuleExecutor executor) {
-		Object convertedRuleArg = ruleArg;
-		if (ruleArg != null) {
-			Class<?> unwrappedExecutorClass = AopUtils.getTargetClass(executor);
-			Class<?>[] parameterizedTypes = GenericTypeResolver.resolveTypeArguments(unwrappedExecutorClass, RuleExecutor.class);
-			if (parameterizedTypes != null) {
-				convertedRuleArg = getTypeConverter().convertIfNecessary(ruleArg, parameterizedTypes[1]);
+		return convertRuleArgument(ruleArg, RuleExecutorUtils.getArgumentType(executor));
+	}
+	
+	/**
+	 * Converts the given validation rule argument into the
+	 * given argument type, if it is not already of that type.
+	 * @param ruleArg the rule argument to convert
+	 * @param argumentType the argument type, or null if unresolved
+	 * @return the converted argument
+	 */
+	protected Object convertRuleArgument(Object ruleArg, Class<?> argumentType) {
+		if (ruleArg == null || argumentType == null || argumentType.isInstance(ruleArg)) {
+			return ruleArg;
+		}
+		return getTypeConverter().convertIfNecessary(ruleArg, argumentType);
+	}
+	
+	/**
+	 * Return the pool for parallel collection validation: the configured
+	 * pool, else a pool of the configured parallelism, created on first use,
+	 * else the common pool.
+	 */
+	protected synchronized ForkJoinPool getCollectionPool() {
+		if (this.collectionPool == null) {
+			if (this.parallelism > 0) {
+				this.collectionPool = new ForkJoinPool(this.parallelism);
+				this.collectionPoolCreated = true;
+			} else {
+				return ForkJoinPool.commonPool();
 			}
 		}
-		return convertedRuleArg;
+		return this.collectionPool;
+	}
+	
+	/**
+	 * @param collectionPool the pool on which to run parallel collection validation
+	 */
+	public synchronized void setCollectionPool(ForkJoinPool collectionPool) {
+		shutdownCollectionPool();
+		this.collectionPool = collectionPool;
+	}
+	
+	/**
+	 * Shuts down the pool for parallel collection validation, 
+	 * if it was created by this manager.
+	 */
+	@PreDestroy
+	public synchronized void shutdownCollectionPool() {
+		if (this.collectionPool != null && this.collectionPoolCreated) {
+			this.collectionPool.shutdown();
+		}
+		this.collectionPool = null;
+		this.collectionPoolCreated = false;
+	}
+	
+	/**
+	 * @return the number of threads used for parallel collection validation.
+	 */
+	public int getParallelism() {
+		return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @param parallelism the number of threads used for parallel collection 
+	 * validation, or zero to use one thread per available processor.
+	 */
+	public synchronized void setParallelism(int parallelism) {
+		if (this.collectionPoolCreated) {
+			shutdownCollectionPool();
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return the minimum number of members a collection must have
+	 * for its members to be validated in parallel, or zero if disabled.
+	 */
+	public int getParallelCollectionThreshold() {
+		return parallelCollectionThreshold;
+	}
+
+	/**
+	 * @param parallelCollectionThreshold the minimum number of members a 
+	 * collection must have for its members to be validated in parallel, 
+	 * or zero to disable parallel collection validation.
+	 */
+	public void setParallelCollectionThreshold(int parallelCollectionThreshold) {
+		this.parallelCollectionThreshold = parallelCollectionThreshold;
+	}
+	
+	/**
+	 * @return whether rules on a path are skipped once a rule on that path
+	 * has failed, for entities which don't configure this themselves.
+	 */
+	public boolean isShortCircuitPaths() {
+		return shortCircuitPaths;
+	}
+
+	/**
+	 * @param shortCircuitPaths whether rules on a path are skipped once 
+	 * a rule on that path has failed, for entities which don't 
+	 * configure this themselves.
+	 */
+	public void setShortCircuitPaths(boolean shortCircuitPaths) {
+		this.shortCircuitPaths = shortCircuitPaths;
+	}
+	
+	/**
+	 * Return the PropertyPathAccessor, creating the default if none was configured.
+	 */
+	protected PropertyPathAccessor getPropertyPathAccessor() {
+		if (this.propertyPathAccessor == null) {
+			this.propertyPathAccessor = new ReflectivePropertyPathAccessor();
+		}
+		return this.propertyPathAccessor;
 	}
 	
 	/**
@@ -526,5 +1140,18 @@ public class ValidationManager extends CustomValidatorBean {
 		return this.typeConverter;
 	}
 
-}
+	/**
+	 * Validates a single member of a collection
+	 * @see ValidationManager#validateCollectionMembers
+	 */
+	protected interface CollectionMemberValidation {
+		
+		/**
+		 * @param memberContext the context in which to validate the member
+		 * @param index the index of the member to validate
+		 */
+		void validateMember(ValidationEvaluationContext memberContext, int index);
+		
+	}
 
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation;
+
+/**
+ * Options which limit how much work a single validation performs.
+ * Passed to the @link{ValidationManager} alongside any validation
+ * hints, e.g. validationManager.validate(model, ValidationOptions.failFast()),
+ * where they are picked out from the hints rather than treated as a group.
+ * Once a limit is reached, no further rules are run, and no further
+ * templates, collection members or sub beans are visited, so that
+ * callers who only need to know whether a model is valid don't pay
+ * for discovering every error on an invalid model.
+ */
+public class ValidationOptions {
+
+	/**
+	 * The maximum number of errors to record for the
+	 * whole validation, or zero for no limit.
+	 */
+	private int maxErrors = 0;
+
+	/**
+	 * The maximum number of errors to record for any single
+	 * bean on the model graph, or zero for no limit.
+	 * Once reached, the remaining rules for that bean are skipped,
+	 * but its sub beans are still validated.
+	 */
+	private int maxErrorsPerEntity = 0;
+
+	/**
+	 * @return options which stop validation at the first error.
+	 */
+	public static ValidationOptions failFast() {
+		return maxErrors(1);
+	}
+
+	/**
+	 * @param maxErrors the maximum number of errors to record
+	 * @return options which stop validation once the given
+	 * number of errors have been recorded.
+	 */
+	public static ValidationOptions maxErrors(int maxErrors) {
+		ValidationOptions options = new ValidationOptions();
+		options.setMaxErrors(maxErrors);
+		return options;
+	}
+
+	/**
+	 * @param maxErrorsPerEntity the maximum number of errors to record per bean
+	 * @return options which skip the remaining rules for a bean once
+	 * the given number of errors have been recorded for it.
+	 */
+	public static ValidationOptions maxErrorsPerEntity(int maxErrorsPerEntity) {
+		ValidationOptions options = new ValidationOptions();
+		options.setMaxErrorsPerEntity(maxErrorsPerEntity);
+		return options;
+	}
+
+	/**
+	 * @return true if any limit is set.
+	 */
+	public boolean isLimited() {
+		return maxErrors > 0 || maxErrorsPerEntity > 0;
+	}
+
+	/**
+	 * @return the maximum number of errors to record
+	 * for the whole validation, or zero for no limit.
+	 */
+	public int getMaxErrors() {
+		return maxErrors;
+	}
+
+	/**
+	 * @param maxErrors the maximum number of errors to record
+	 * for the whole validation, or zero for no limit.
+	 */
+	public void setMaxErrors(int maxErrors) {
+		if (maxErrors < 0) {
+			throw new IllegalArgumentException("maxErrors must not be negative");
+		}
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * @return the maximum number of errors to record for
+	 * any single bean on the model graph, or zero for no limit.
+	 */
+	public int getMaxErrorsPerEntity() {
+		return maxErrorsPerEntity;
+	}
+
+	/**
+	 * @param maxErrorsPerEntity the maximum number of errors to record
+	 * for any single bean on the model graph, or zero for no limit.
+	 */
+	public void setMaxErrorsPerEntity(int maxErrorsPerEntity) {
+		if (maxErrorsPerEntity < 0) {
+			throw new IllegalArgumentException("maxErrorsPerEntity must not be negative");
+		}
+		this.maxErrorsPerEntity = maxErrorsPerEntity;
+	}
+
+	@Override
+	public String toString() {
+		return "ValidationOptions [maxErrors=" + maxErrors + ", maxErrorsPerEntity=" + maxErrorsPerEntity + "]";
+	}
+
+}
@@ -22,6 +22,7 @@ import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -78,9 +79,9 @@ public class MVCFormValidationContextHandler implements ValidationContextHandler
 	 * Initialize SPEL access to MVC scopes including
 	 * request parameters, request attributes,
 	 * MVC Path Variables and session attributes.
+	 * Each scope is only bound once an expression uses it.
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
 	public void initializeSPELResolver(SPELResolver spelResolver) {
 		
 		// initialize property accessors
@@ -88,23 +89,33 @@ public class MVCFormValidationContextHandler implements ValidationContextHandler
 		
 		// access scoped request
 		RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
-		HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
-		
-		// get path variable map
-		Map<String, String> uriTemplateVars = 
-			(Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
-		if (uriTemplateVars == null) {
-			uriTemplateVars = new HashMap<String, String>();
-		}
+		final HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
 		
 		// initialize named contexts
-		spelResolver.getScopedContext().addContext("requestParameters", 
-				new HttpRequestParametersNamedAttributeAccessor(request));
-		spelResolver.getScopedContext().addContext("pathVariables", uriTemplateVars);
-		spelResolver.getScopedContext().addContext("requestAttributes", 
-				new HttpRequestAttributesNamedAttributeAccessor(request));
-		spelResolver.getScopedContext().addContext("session", 
-				new HttpSessionAttributesNamedAttributeAccessor(request));
+		spelResolver.getScopedContext().addLazyContext("requestParameters", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return new HttpRequestParametersNamedAttributeAccessor(request);
+			}
+		});
+		spelResolver.getScopedContext().addLazyContext("pathVariables", new ObjectFactory<Object>() {
+			@SuppressWarnings("unchecked")
+			public Object getObject() {
+				// get path variable map
+				Map<String, String> uriTemplateVars = 
+					(Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+				return uriTemplateVars == null ? new HashMap<String, String>() : uriTemplateVars;
+			}
+		});
+		spelResolver.getScopedContext().addLazyContext("requestAttributes", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return new HttpRequestAttributesNamedAttributeAccessor(request);
+			}
+		});
+		spelResolver.getScopedContext().addLazyContext("session", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return new HttpSessionAttributesNamedAttributeAccessor(request);
+			}
+		});
 	}
 	
 	/**
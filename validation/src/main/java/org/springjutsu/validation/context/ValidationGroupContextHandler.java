@@ -16,10 +16,8 @@
 
 package org.springjutsu.validation.context;
 
-import java.util.Arrays;
 import java.util.Set;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.springjutsu.validation.spel.SPELResolver;
 
 /**
@@ -37,11 +35,18 @@ public class ValidationGroupContextHandler implements ValidationContextHandler {
 	 * Validation groups are active if any 
 	 * of the specified qualifiers is an exact 
 	 * match to any of the currently specified
-	 * validation hints (group names)
+	 * validation hints (group names).
+	 * Compiled group contexts are usually matched by 
+	 * @link{ValidationGroupIndex} instead.
 	 */
 	@Override
 	public boolean isActive(Set<String> qualifiers, Object rootModel, String[] validationHints) {
-		return !CollectionUtils.intersection(qualifiers, Arrays.asList(validationHints)).isEmpty();
+		for (String validationHint : validationHints) {
+			if (qualifiers.contains(validationHint)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
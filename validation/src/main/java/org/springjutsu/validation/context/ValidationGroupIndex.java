@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.context;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springjutsu.validation.ValidationOptions;
+
+/**
+ * Interns the names of validation groups used by &lt;group&gt;
+ * contexts to integer IDs, as group contexts are compiled, so
+ * that the groups of a context, and the groups activated by the
+ * validation hints of a validate call, are each held as a bitset,
+ * and a group context is matched by intersecting the two,
+ * as @link{ValidationGroupContextHandler} would match group names.
+ * Validation hints naming groups used by no group context are ignored.
+ */
+public class ValidationGroupIndex {
+
+	/**
+	 * The bitset of no groups, which must not be modified.
+	 */
+	private static final BitSet NO_GROUPS = new BitSet(0);
+
+	/**
+	 * The canonical names of validation hint classes, since
+	 * @link{Class#getCanonicalName()} is not cached by the class.
+	 */
+	private static final ConcurrentMap<Class<?>, String> hintClassNames = new ConcurrentHashMap<Class<?>, String>();
+
+	/**
+	 * The ID of each interned group name.
+	 */
+	private final ConcurrentMap<String, Integer> groupIds = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * @param validationHint a validation hint
+	 * @return the group name the hint activates: the canonical
+	 * name of a hint class, or else the hint's string value.
+	 */
+	public static String getGroupName(Object validationHint) {
+		if (!(validationHint instanceof Class<?>)) {
+			return String.valueOf(validationHint);
+		}
+		Class<?> hintClass = (Class<?>) validationHint;
+		String groupName = hintClassNames.get(hintClass);
+		if (groupName == null) {
+			groupName = String.valueOf(hintClass.getCanonicalName());
+			hintClassNames.put(hintClass, groupName);
+		}
+		return groupName;
+	}
+
+	/**
+	 * Interns the given group names, as when compiling a group context.
+	 * @param groupNames the group names
+	 * @return the bitset of the IDs of the given groups.
+	 */
+	public synchronized BitSet getGroupBits(Collection<String> groupNames) {
+		BitSet groupBits = new BitSet();
+		for (String groupName : groupNames) {
+			Integer groupId = groupIds.get(groupName);
+			if (groupId == null) {
+				groupId = groupIds.size();
+				groupIds.put(groupName, groupId);
+			}
+			groupBits.set(groupId);
+		}
+		return groupBits;
+	}
+
+	/**
+	 * @param validationHints the validation hints of a validate call;
+	 * any hint other than @link{ValidationOptions} is taken as a group,
+	 * named as by @link{#getGroupName(Object)}, as for enum group markers.
+	 * @return the bitset of the IDs of the groups the hints activate,
+	 * which must not be modified.
+	 */
+	public BitSet getHintBits(Object[] validationHints) {
+		BitSet hintBits = NO_GROUPS;
+		for (Object validationHint : validationHints) {
+			if (!(validationHint instanceof ValidationOptions)) {
+				Integer groupId = groupIds.get(getGroupName(validationHint));
+				if (groupId != null) {
+					if (hintBits == NO_GROUPS) {
+						hintBits = new BitSet();
+					}
+					hintBits.set(groupId);
+				}
+			}
+		}
+		return hintBits;
+	}
+
+	/**
+	 * @return the number of interned group names.
+	 */
+	public int size() {
+		return groupIds.size();
+	}
+
+}
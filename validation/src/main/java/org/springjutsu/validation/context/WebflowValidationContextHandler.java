@@ -18,9 +18,11 @@ package org.springjutsu.validation.context;
 
 import java.util.Set;
 
+import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.webflow.execution.RequestContext;
 import org.springframework.webflow.execution.RequestContextHolder;
 import org.springframework.webflow.expression.spel.FlowVariablePropertyAccessor;
+import org.springjutsu.validation.spel.NamedScopeEvaluationContext;
 import org.springjutsu.validation.spel.ReadCheckingMapAdaptablePropertyAccessor;
 import org.springjutsu.validation.spel.SPELResolver;
 import org.springjutsu.validation.util.RequestUtils;
@@ -91,6 +93,7 @@ public class WebflowValidationContextHandler implements ValidationContextHandler
 	/**
 	 * Initialize the SPEL resolver with access to
 	 * Spring Web Flow specific scopes.
+	 * Each scope is only bound once an expression uses it.
 	 */
 	@Override
 	public void initializeSPELResolver(SPELResolver spelResolver) {
@@ -99,17 +102,50 @@ public class WebflowValidationContextHandler implements ValidationContextHandler
 		spelResolver.getScopedContext().addPropertyAccessor(new FlowVariablePropertyAccessor());
 		
 		// init named contexts
-		RequestContext requestContext = RequestContextHolder.getRequestContext();
-		spelResolver.getScopedContext().addContext("requestScope", requestContext.getRequestScope());
-		spelResolver.getScopedContext().addContext("flashScope", requestContext.getFlashScope());
+		final RequestContext requestContext = RequestContextHolder.getRequestContext();
+		NamedScopeEvaluationContext scopedContext = spelResolver.getScopedContext();
+		scopedContext.addLazyContext("requestScope", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return requestContext.getRequestScope();
+			}
+		});
+		scopedContext.addLazyContext("flashScope", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return requestContext.getFlashScope();
+			}
+		});
 		if (requestContext.inViewState()) {
-			spelResolver.getScopedContext().addContext("viewScope", requestContext.getViewScope());
+			scopedContext.addLazyContext("viewScope", new ObjectFactory<Object>() {
+				public Object getObject() {
+					return requestContext.getViewScope();
+				}
+			});
 		}
-		spelResolver.getScopedContext().addContext("flowScope", requestContext.getFlowScope());
-		spelResolver.getScopedContext().addContext("conversationScope", requestContext.getConversationScope());
-		spelResolver.getScopedContext().addContext("requestParameters", requestContext.getRequestParameters());
-		spelResolver.getScopedContext().addContext("requestAttributes", requestContext.getExternalContext().getRequestMap());
-		spelResolver.getScopedContext().addContext("session", requestContext.getExternalContext().getSessionMap());
+		scopedContext.addLazyContext("flowScope", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return requestContext.getFlowScope();
+			}
+		});
+		scopedContext.addLazyContext("conversationScope", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return requestContext.getConversationScope();
+			}
+		});
+		scopedContext.addLazyContext("requestParameters", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return requestContext.getRequestParameters();
+			}
+		});
+		scopedContext.addLazyContext("requestAttributes", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return requestContext.getExternalContext().getRequestMap();
+			}
+		});
+		scopedContext.addLazyContext("session", new ObjectFactory<Object>() {
+			public Object getObject() {
+				return requestContext.getExternalContext().getSessionMap();
+			}
+		});
 	}
 	
 }
@@ -11,4 +11,5 @@ public interface ValidationEntityBuilder extends Builder<ValidationEntity>
 	public ValidationEntityBuilder havingExcludedPaths(String... excludedPaths);
 	public ValidationEntityBuilder havingRules(ValidationRuleBuilder... rules);
 	public ValidationEntityBuilder havingValidationContexts(ValidationContextBuilder... contexts);
+	public ValidationEntityBuilder withShortCircuitPaths(Boolean shortCircuitPaths);
 }
\ No newline at end of file
@@ -121,6 +121,17 @@ public class ValidationConfigurationDefinitionParser implements BeanDefinitionPa
 		validationRulesContainerBuilder.addPropertyValue("excludeAnnotations", excludeAnnotations);
 		validationRulesContainerBuilder.addPropertyValue("includeAnnotations", includeAnnotations);
 		
+		// Parse execution configuration...
+		Element executionConfig = (Element) configNode.getElementsByTagNameNS(configNode.getNamespaceURI(), "execution-config").item(0);
+		if (executionConfig != null) {
+			validationManagerBuilder.addPropertyValue("parallelCollectionThreshold", 
+					executionConfig.getAttribute("parallelCollectionThreshold"));
+			validationManagerBuilder.addPropertyValue("parallelism", 
+					executionConfig.getAttribute("parallelism"));
+			validationManagerBuilder.addPropertyValue("shortCircuitPaths", 
+					executionConfig.getAttribute("shortCircuitPaths"));
+		}
+		
 		// Parse context configuration...
 		Element contextConfig = (Element) configNode.getElementsByTagNameNS(configNode.getNamespaceURI(), "context-config").item(0);
 		if (contextConfig != null) {
@@ -115,6 +115,9 @@ public class ValidationEntityDefinitionParser implements BeanDefinitionParser {
 		entityDefinition.getPropertyValues().add("validationClass", modelClass);
 		entityDefinition.getPropertyValues().add("includedPaths", includePaths);
 		entityDefinition.getPropertyValues().add("excludedPaths", excludePaths);
+		if (entityNode.hasAttribute("shortCircuitPaths")) {
+			entityDefinition.getPropertyValues().add("shortCircuitPaths", entityNode.getAttribute("shortCircuitPaths"));
+		}
 		String entityName = parserContext.getReaderContext().registerWithGeneratedName(entityDefinition);
 		parserContext.registerComponent(new BeanComponentDefinition(entityDefinition, entityName));
 		return null;
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.rules;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The compiled counterpart of a @link{RuleHolder}.
+ * Compiled rule holders are built once by the
+ * @link{ValidationRulesContainer} during container startup,
+ * and hold rules, template references and contexts which
+ * have already been bound to their executors, templates and
+ * context handlers. The ValidationManager walks this structure
+ * instead of re-interpreting the raw rule tree on every validation.
+ * Once built, the held lists are not modified.
+ * @see ValidationRulesContainer
+ */
+public class CompiledRuleHolder {
+
+	/**
+	 * The maximum number of combinations of active groups for which
+	 * the contexts to run are kept by each rule holder.
+	 */
+	public static final int MAX_CACHED_GROUP_COMBINATIONS = 32;
+
+	/**
+	 * The compiled rules to evaluate on the model object.
+	 */
+	private List<CompiledValidationRule> rules = Collections.emptyList();
+
+	/**
+	 * The compiled template references to evaluate on the model object.
+	 */
+	private List<CompiledTemplateReference> templateReferences = Collections.emptyList();
+
+	/**
+	 * The compiled contexts which conditionally apply additional rules.
+	 */
+	private List<CompiledValidationContext> validationContexts = Collections.emptyList();
+
+	/**
+	 * True if any of the contexts is a group context.
+	 */
+	private boolean hasGroupContexts;
+
+	/**
+	 * The contexts to run for each combination of active groups seen.
+	 */
+	private final ConcurrentMap<BitSet, List<CompiledValidationContext>> groupedValidationContexts = 
+		new ConcurrentHashMap<BitSet, List<CompiledValidationContext>>();
+
+	public List<CompiledValidationRule> getRules() {
+		return rules;
+	}
+
+	void setRules(List<CompiledValidationRule> rules) {
+		this.rules = Collections.unmodifiableList(rules);
+	}
+
+	public List<CompiledTemplateReference> getTemplateReferences() {
+		return templateReferences;
+	}
+
+	void setTemplateReferences(List<CompiledTemplateReference> templateReferences) {
+		this.templateReferences = Collections.unmodifiableList(templateReferences);
+	}
+
+	public List<CompiledValidationContext> getValidationContexts() {
+		return validationContexts;
+	}
+
+	void setValidationContexts(List<CompiledValidationContext> validationContexts) {
+		this.validationContexts = Collections.unmodifiableList(validationContexts);
+		this.hasGroupContexts = false;
+		for (CompiledValidationContext validationContext : validationContexts) {
+			hasGroupContexts |= validationContext.isGroup();
+		}
+		this.groupedValidationContexts.clear();
+	}
+
+	/**
+	 * Gets the contexts to run while the given groups are active,
+	 * in order: every context other than a group context, and
+	 * each group context with any of the given groups.
+	 * Group contexts in the list need not be checked again.
+	 * Lists are kept for a bounded number of group combinations.
+	 * @param activeGroups the IDs of the active groups
+	 * @return the contexts to run.
+	 */
+	public List<CompiledValidationContext> getValidationContexts(BitSet activeGroups) {
+		if (!hasGroupContexts) {
+			return validationContexts;
+		}
+		List<CompiledValidationContext> contexts = groupedValidationContexts.get(activeGroups);
+		if (contexts == null) {
+			contexts = new ArrayList<CompiledValidationContext>();
+			for (CompiledValidationContext validationContext : validationContexts) {
+				if (!validationContext.isGroup() || validationContext.isActive(activeGroups)) {
+					contexts.add(validationContext);
+				}
+			}
+			contexts = Collections.unmodifiableList(contexts);
+			while (groupedValidationContexts.size() >= MAX_CACHED_GROUP_COMBINATIONS) {
+				Iterator<BitSet> cachedGroups = groupedValidationContexts.keySet().iterator();
+				if (!cachedGroups.hasNext()) {
+					break;
+				}
+				cachedGroups.next();
+				cachedGroups.remove();
+			}
+			groupedValidationContexts.putIfAbsent((BitSet) activeGroups.clone(), contexts);
+		}
+		return contexts;
+	}
+
+	/**
+	 * @return true if there are any nested rules,
+	 * template references or contexts.
+	 */
+	public boolean hasChildren() {
+		return !rules.isEmpty() || !templateReferences.isEmpty() || !validationContexts.isEmpty();
+	}
+
+}
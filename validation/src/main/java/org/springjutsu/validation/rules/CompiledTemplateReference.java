@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.rules;
+
+import org.springjutsu.validation.util.ValidationPath;
+
+/**
+ * A @link{ValidationTemplateReference} compiled for execution,
+ * bound to the compiled template it references.
+ * @see ValidationTemplateReference
+ * @see CompiledValidationTemplate
+ */
+public class CompiledTemplateReference {
+
+	/**
+	 * The template reference this was compiled from.
+	 */
+	private final ValidationTemplateReference templateReference;
+
+	/**
+	 * The compiled template being referenced.
+	 */
+	private final CompiledValidationTemplate template;
+
+	/**
+	 * The parsed base path of the referenced object.
+	 */
+	private final ValidationPath validationBasePath;
+
+	/**
+	 * Default constructor.
+	 * @param templateReference the template reference to compile
+	 * @param template the compiled template referenced
+	 */
+	public CompiledTemplateReference(ValidationTemplateReference templateReference, CompiledValidationTemplate template) {
+		this.templateReference = templateReference;
+		this.template = template;
+		this.validationBasePath = ValidationPath.parse(templateReference.getBasePath());
+	}
+
+	/**
+	 * @return the template reference this was compiled from
+	 */
+	public ValidationTemplateReference getTemplateReference() {
+		return templateReference;
+	}
+
+	/**
+	 * @return the compiled template being referenced
+	 */
+	public CompiledValidationTemplate getTemplate() {
+		return template;
+	}
+
+	/**
+	 * @return the base path of the referenced object
+	 */
+	public String getBasePath() {
+		return templateReference.getBasePath();
+	}
+
+	/**
+	 * @return the parsed base path of the referenced object
+	 */
+	public ValidationPath getValidationBasePath() {
+		return validationBasePath;
+	}
+
+	/**
+	 * @return the name of the referenced template
+	 */
+	public String getTemplateName() {
+		return templateReference.getTemplateName();
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.rules;
+
+import java.util.BitSet;
+import java.util.Set;
+
+import org.springjutsu.validation.context.ValidationContextHandler;
+
+/**
+ * A @link{ValidationContext} compiled for execution,
+ * bound to the @link{ValidationContextHandler}
+ * registered for its type.
+ * @see ValidationContext
+ * @see CompiledRuleHolder
+ */
+public class CompiledValidationContext extends CompiledRuleHolder {
+
+	/**
+	 * The context this was compiled from.
+	 */
+	private final ValidationContext validationContext;
+
+	/**
+	 * The handler for the context type.
+	 */
+	private final ValidationContextHandler contextHandler;
+
+	/**
+	 * The IDs of the groups named by the qualifiers of a group
+	 * context, as interned by @link{ValidationGroupIndex}, 
+	 * or null if this is not a group context.
+	 */
+	private BitSet groupBits;
+
+	/**
+	 * Default constructor.
+	 * @param validationContext the context to compile
+	 * @param contextHandler the handler to bind
+	 */
+	public CompiledValidationContext(ValidationContext validationContext, ValidationContextHandler contextHandler) {
+		this.validationContext = validationContext;
+		this.contextHandler = contextHandler;
+	}
+
+	/**
+	 * @return the context this was compiled from
+	 */
+	public ValidationContext getValidationContext() {
+		return validationContext;
+	}
+
+	/**
+	 * @return the bound context handler
+	 */
+	public ValidationContextHandler getContextHandler() {
+		return contextHandler;
+	}
+
+	/**
+	 * @return the context type
+	 */
+	public String getType() {
+		return validationContext.getType();
+	}
+
+	/**
+	 * @return the context qualifiers
+	 */
+	public Set<String> getQualifiers() {
+		return validationContext.getQualifiers();
+	}
+
+	void setGroupBits(BitSet groupBits) {
+		this.groupBits = groupBits;
+	}
+
+	/**
+	 * @return true if this is a group context, which is matched
+	 * against the active groups by @link{#isActive(BitSet)}.
+	 */
+	public boolean isGroup() {
+		return groupBits != null;
+	}
+
+	/**
+	 * @param activeGroups the IDs of the active groups
+	 * @return true if this is a group context, 
+	 * and any of its groups is active.
+	 */
+	public boolean isActive(BitSet activeGroups) {
+		return groupBits != null && groupBits.intersects(activeGroups);
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.rules;
+
+import java.util.Map;
+
+/**
+ * A @link{ValidationEntity} compiled for execution.
+ * This is the execution plan walked by the ValidationManager
+ * for each object of the validation class, built once the
+ * @link{ValidationRulesContainer} has finished resolving
+ * inheritance and recursive property paths.
+ * @see ValidationEntity
+ * @see CompiledRuleHolder
+ */
+public class CompiledValidationEntity extends CompiledRuleHolder {
+
+	/**
+	 * The entity this was compiled from.
+	 */
+	private final ValidationEntity validationEntity;
+
+	/**
+	 * Default constructor.
+	 * @param validationEntity the entity to compile
+	 */
+	public CompiledValidationEntity(ValidationEntity validationEntity) {
+		this.validationEntity = validationEntity;
+	}
+
+	/**
+	 * @return the entity this was compiled from
+	 */
+	public ValidationEntity getValidationEntity() {
+		return validationEntity;
+	}
+
+	/**
+	 * @return the class this entity validates
+	 */
+	public Class<?> getValidationClass() {
+		return validationEntity.getValidationClass();
+	}
+
+	/**
+	 * @return the paths of properties to recurse into, mapped to their type.
+	 */
+	public Map<String, Class<?>> getRecursivePropertyPaths() {
+		return validationEntity.getRecursivePropertyPaths();
+	}
+
+	/**
+	 * @return whether to skip the remaining rules on a path once a rule
+	 * on that path has failed, or null to use the configured default.
+	 */
+	public Boolean getShortCircuitPaths() {
+		return validationEntity.getShortCircuitPaths();
+	}
+
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.rules;
+
+import org.springjutsu.validation.executors.RuleExecutor;
+import org.springjutsu.validation.spel.SPELTemplate;
+import org.springjutsu.validation.util.PathUtils;
+import org.springjutsu.validation.util.RuleExecutorUtils;
+import org.springjutsu.validation.util.ValidationPath;
+
+/**
+ * A @link{ValidationRule} compiled for execution:
+ * the rule executor is bound, and whatever can be
+ * known about the rule path and value without a model
+ * (emptiness, presence of EL) is determined up front.
+ * @see ValidationRule
+ * @see CompiledRuleHolder
+ */
+public class CompiledValidationRule extends CompiledRuleHolder {
+
+	/**
+	 * The rule this was compiled from.
+	 * Used for messages, error paths, and logging.
+	 */
+	private final ValidationRule rule;
+
+	/**
+	 * The rule executor bound to this rule, either
+	 * given directly on the rule, or looked up by type.
+	 */
+	private final RuleExecutor<?, ?> ruleExecutor;
+
+	/**
+	 * The rule path, never null.
+	 */
+	private final String path;
+
+	/**
+	 * The parsed rule path, or null if it contains EL.
+	 */
+	private final ValidationPath validationPath;
+
+	/**
+	 * The parsed error path, or null if the rule has 
+	 * no error path, or its error path contains EL.
+	 */
+	private final ValidationPath errorValidationPath;
+
+	/**
+	 * True if the rule path contains an ${EL} fragment.
+	 */
+	private final boolean pathContainsEL;
+
+	/**
+	 * True if the rule value contains an ${EL} fragment.
+	 */
+	private final boolean valueContainsEL;
+
+	/**
+	 * The parsed rule path, if it contains EL.
+	 */
+	private final SPELTemplate pathTemplate;
+
+	/**
+	 * The parsed rule value, if it contains EL.
+	 */
+	private final SPELTemplate valueTemplate;
+
+	/**
+	 * The argument type of the bound rule executor,
+	 * or null if it could not be resolved.
+	 */
+	private final Class<?> argumentType;
+
+	/**
+	 * The literal rule value, converted to the argument type.
+	 * Only set when the value contains no EL.
+	 */
+	private Object convertedValue;
+
+	/**
+	 * True if the rule value has been converted up front.
+	 */
+	private boolean valueConverted;
+
+	/**
+	 * The property paths read by this rule and its descendant rules,
+	 * relative to the model the rule is evaluated against, 
+	 * before any template base paths are applied.
+	 */
+	private String[] dependencyPaths = new String[0];
+
+	/**
+	 * The property paths read from the base model object 
+	 * by EL in this rule and its descendant rules.
+	 */
+	private String[] rootDependencyPaths = new String[0];
+
+	/**
+	 * The parsed dependency paths.
+	 */
+	private ValidationPath[] dependencyValidationPaths = new ValidationPath[0];
+
+	/**
+	 * The parsed root dependency paths.
+	 */
+	private ValidationPath[] rootDependencyValidationPaths = new ValidationPath[0];
+
+	/**
+	 * True if this rule, or any of its descendants, may read
+	 * any property, such that its dependencies are unknown.
+	 */
+	private boolean dependingOnAnyPath = true;
+
+	/**
+	 * The name of the template this rule was inlined from,
+	 * or null if the rule was not inlined from a template.
+	 */
+	private String inlinedTemplateName;
+
+	/**
+	 * The base path at which the template this rule was inlined from
+	 * was referenced, already prepended to the rule path.
+	 */
+	private String inlinedTemplateBasePath;
+
+	/**
+	 * Default constructor.
+	 * @param rule the rule to compile
+	 * @param ruleExecutor the rule executor to bind
+	 */
+	public CompiledValidationRule(ValidationRule rule, RuleExecutor<?, ?> ruleExecutor) {
+		this.rule = rule;
+		this.ruleExecutor = ruleExecutor;
+		this.path = rule.getPath() == null ? "" : rule.getPath();
+		this.pathContainsEL = PathUtils.containsEL(path);
+		this.validationPath = pathContainsEL ? null : ValidationPath.parse(path);
+		this.errorValidationPath = !hasErrorPath() || PathUtils.containsEL(rule.getErrorPath()) 
+			? null : ValidationPath.parse(rule.getErrorPath());
+		this.valueContainsEL = hasValue() && PathUtils.containsEL(rule.getValue());
+		this.pathTemplate = pathContainsEL ? SPELTemplate.parse(path) : null;
+		this.valueTemplate = valueContainsEL ? SPELTemplate.parse(rule.getValue()) : null;
+		this.argumentType = ruleExecutor == null ? null : RuleExecutorUtils.getArgumentType(ruleExecutor);
+	}
+
+	/**
+	 * @return the rule this was compiled from.
+	 */
+	public ValidationRule getRule() {
+		return rule;
+	}
+
+	/**
+	 * @return the bound rule executor
+	 */
+	public RuleExecutor<?, ?> getRuleExecutor() {
+		return ruleExecutor;
+	}
+
+	/**
+	 * @return the rule path, or empty string if none.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @return true if the rule has a path.
+	 */
+	public boolean hasPath() {
+		return !path.isEmpty();
+	}
+
+	/**
+	 * @return the parsed rule path, or null if the path contains EL.
+	 */
+	public ValidationPath getValidationPath() {
+		return validationPath;
+	}
+
+	/**
+	 * @return true if the rule has an error path, 
+	 * to record errors on in place of the rule path.
+	 */
+	public boolean hasErrorPath() {
+		return rule.getErrorPath() != null && !rule.getErrorPath().trim().isEmpty();
+	}
+
+	/**
+	 * @return the parsed error path, or null if the rule
+	 * has no error path, or the error path contains EL.
+	 */
+	public ValidationPath getErrorValidationPath() {
+		return errorValidationPath;
+	}
+
+	/**
+	 * @return true if the rule path contains EL.
+	 */
+	public boolean isPathContainingEL() {
+		return pathContainsEL;
+	}
+
+	/**
+	 * @return the rule path parsed into literal and 
+	 * EL segments, or null if the path contains no EL.
+	 */
+	public SPELTemplate getPathTemplate() {
+		return pathTemplate;
+	}
+
+	/**
+	 * @return the rule value / argument
+	 */
+	public String getValue() {
+		return rule.getValue();
+	}
+
+	/**
+	 * @return true if the rule has a value / argument.
+	 */
+	public boolean hasValue() {
+		return rule.getValue() != null && !rule.getValue().isEmpty();
+	}
+
+	/**
+	 * @return true if the rule value contains EL.
+	 */
+	public boolean isValueContainingEL() {
+		return valueContainsEL;
+	}
+
+	/**
+	 * @return the rule value parsed into literal and 
+	 * EL segments, or null if the value contains no EL.
+	 */
+	public SPELTemplate getValueTemplate() {
+		return valueTemplate;
+	}
+
+	/**
+	 * @return the argument type of the bound rule executor,
+	 * or null if it could not be resolved.
+	 */
+	public Class<?> getArgumentType() {
+		return argumentType;
+	}
+
+	/**
+	 * @return true if the rule value was converted to
+	 * the argument type when the rule was compiled.
+	 */
+	public boolean isValueConverted() {
+		return valueConverted;
+	}
+
+	/**
+	 * @return the rule value converted to the argument type,
+	 * if it was converted when the rule was compiled.
+	 */
+	public Object getConvertedValue() {
+		return convertedValue;
+	}
+
+	/**
+	 * @param convertedValue the rule value converted to the argument type
+	 */
+	void setConvertedValue(Object convertedValue) {
+		this.convertedValue = convertedValue;
+		this.valueConverted = true;
+	}
+
+	/**
+	 * @return the property paths read by this rule and its descendant rules,
+	 * relative to the model the rule is evaluated against.
+	 */
+	public String[] getDependencyPaths() {
+		return dependencyPaths;
+	}
+
+	/**
+	 * @return the property paths read from the base model object 
+	 * by EL in this rule and its descendant rules.
+	 */
+	public String[] getRootDependencyPaths() {
+		return rootDependencyPaths;
+	}
+
+	/**
+	 * @return the parsed property paths read by this rule and its descendants,
+	 * relative to the model the rule is evaluated against.
+	 */
+	public ValidationPath[] getDependencyValidationPaths() {
+		return dependencyValidationPaths;
+	}
+
+	/**
+	 * @return the parsed property paths read from the base model 
+	 * object by EL in this rule and its descendant rules.
+	 */
+	public ValidationPath[] getRootDependencyValidationPaths() {
+		return rootDependencyValidationPaths;
+	}
+
+	/**
+	 * @return true if this rule, or any of its descendants, may
+	 * read any property, such that its dependencies are unknown.
+	 */
+	public boolean isDependingOnAnyPath() {
+		return dependingOnAnyPath;
+	}
+
+	/**
+	 * @param dependencyPaths the paths read relative to the model
+	 * @param rootDependencyPaths the paths read from the base model object
+	 * @param dependingOnAnyPath true if the dependencies are unknown
+	 */
+	void setDependencies(String[] dependencyPaths, String[] rootDependencyPaths, boolean dependingOnAnyPath) {
+		this.dependencyPaths = dependencyPaths;
+		this.rootDependencyPaths = rootDependencyPaths;
+		this.dependingOnAnyPath = dependingOnAnyPath;
+		this.dependencyValidationPaths = parsePaths(dependencyPaths);
+		this.rootDependencyValidationPaths = parsePaths(rootDependencyPaths);
+	}
+
+	private static ValidationPath[] parsePaths(String[] paths) {
+		ValidationPath[] validationPaths = new ValidationPath[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			validationPaths[i] = ValidationPath.parse(paths[i]);
+		}
+		return validationPaths;
+	}
+
+	/**
+	 * @return true if this rule was inlined from a 
+	 * validation template into a referencing rule holder.
+	 */
+	public boolean isInlinedFromTemplate() {
+		return inlinedTemplateName != null;
+	}
+
+	/**
+	 * @return the name of the template this rule was inlined from,
+	 * or null if the rule was not inlined from a template.
+	 */
+	public String getInlinedTemplateName() {
+		return inlinedTemplateName;
+	}
+
+	/**
+	 * @return the base path at which the template this rule was
+	 * inlined from was referenced, or null if not inlined.
+	 */
+	public String getInlinedTemplateBasePath() {
+		return inlinedTemplateBasePath;
+	}
+
+	/**
+	 * @param inlinedTemplateName the name of the template this rule was inlined from
+	 * @param inlinedTemplateBasePath the base path the template was referenced at
+	 */
+	void setInlinedTemplate(String inlinedTemplateName, String inlinedTemplateBasePath) {
+		this.inlinedTemplateName = inlinedTemplateName;
+		this.inlinedTemplateBasePath = inlinedTemplateBasePath;
+	}
+
+	/**
+	 * @return the rule's collection strategy
+	 */
+	public CollectionStrategy getCollectionStrategy() {
+		return rule.getCollectionStrategy();
+	}
+
+	/**
+	 * @return the rule's failure mode
+	 */
+	public RuleErrorMode getOnFail() {
+		return rule.getOnFail();
+	}
+
+	/**
+	 * Delegates to the compiled rule.
+	 */
+	@Override
+	public String toString() {
+		return rule.toString();
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.rules;
+
+/**
+ * A @link{ValidationTemplate} compiled for execution.
+ * Each template is compiled only once, and is shared by
+ * all compiled references to it.
+ * @see ValidationTemplate
+ * @see CompiledTemplateReference
+ */
+public class CompiledValidationTemplate extends CompiledRuleHolder {
+
+	/**
+	 * The template this was compiled from.
+	 */
+	private final ValidationTemplate template;
+
+	/**
+	 * Default constructor.
+	 * @param template the template to compile
+	 */
+	public CompiledValidationTemplate(ValidationTemplate template) {
+		this.template = template;
+	}
+
+	/**
+	 * @return the template this was compiled from
+	 */
+	public ValidationTemplate getTemplate() {
+		return template;
+	}
+
+	/**
+	 * @return the template name
+	 */
+	public String getName() {
+		return template.getName();
+	}
+
+	/**
+	 * @return the class to which the template applies
+	 */
+	public Class<?> getApplicableEntityClass() {
+		return template.getApplicableEntityClass();
+	}
+
+}
@@ -76,6 +76,12 @@ public class ValidationEntity extends AbstractRuleHolder {
 	 */
 	private Class<?> validationClass;
 	
+	/**
+	 * Whether to skip the remaining rules on a path once a rule
+	 * on that path has failed, or null to use the configured default.
+	 */
+	private Boolean shortCircuitPaths;
+	
 	/**
 	 * Default constructor. Initializes collections.
 	 */
@@ -139,4 +145,12 @@ public class ValidationEntity extends AbstractRuleHolder {
 		this.recursivePropertyPaths = recursivePropertyPaths;
 	}
 
+	public Boolean getShortCircuitPaths() {
+		return shortCircuitPaths;
+	}
+
+	public void setShortCircuitPaths(Boolean shortCircuitPaths) {
+		this.shortCircuitPaths = shortCircuitPaths;
+	}
+
 }
@@ -20,22 +20,39 @@ import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.commons.collections.set.ListOrderedSet;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.beans.TypeConverter;
+import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.ReflectionUtils.FieldCallback;
 import org.springframework.util.ReflectionUtils.FieldFilter;
+import org.springjutsu.validation.context.ValidationContextHandler;
+import org.springjutsu.validation.context.ValidationContextHandlerContainer;
+import org.springjutsu.validation.context.ValidationGroupContextHandler;
+import org.springjutsu.validation.context.ValidationGroupIndex;
+import org.springjutsu.validation.executors.RuleExecutor;
+import org.springjutsu.validation.exceptions.CircularValidationTemplateReferenceException;
+import org.springjutsu.validation.exceptions.IllegalTemplateReferenceException;
+import org.springjutsu.validation.executors.RuleExecutorContainer;
+import org.springjutsu.validation.util.CollectionTraversal;
 import org.springjutsu.validation.util.PathUtils;
 
 /**
@@ -71,6 +88,78 @@ public class ValidationRulesContainer {
 	Map<String, ValidationTemplate> validationTemplateMap = 
 		new HashMap<String, ValidationTemplate>();
 	
+	/**
+	 * Maps class to the compiled execution plan for that class.
+	 */
+	private Map<Class<?>, CompiledValidationEntity> compiledValidationEntityMap = 
+		new HashMap<Class<?>, CompiledValidationEntity>();
+	
+	/**
+	 * Stands in for the compiled validation entity of classes 
+	 * for which none could be resolved, as a ClassValue can't be null.
+	 */
+	private static final CompiledValidationEntity UNRESOLVABLE = new CompiledValidationEntity(new ValidationEntity());
+	
+	/**
+	 * The compiled validation entity resolved for each class validated,
+	 * whether registered itself, or inheriting from registered superclasses
+	 * or interfaces, as do proxies and subclasses of registered classes,
+	 * or @link{#UNRESOLVABLE} if there is none.
+	 * Resolved on first use of each class, rather than during startup,
+	 * since such classes are not known until they are validated.
+	 * Held by each class, so that classes such as proxy classes,
+	 * and their class loaders, are not kept from being unloaded.
+	 */
+	private final ClassValue<CompiledValidationEntity> resolvedValidationEntities = 
+		new ClassValue<CompiledValidationEntity>() {
+			@Override
+			protected CompiledValidationEntity computeValue(Class<?> clazz) {
+				CompiledValidationEntity compiledEntity = resolveCompiledValidationEntity(clazz);
+				return compiledEntity == null ? UNRESOLVABLE : compiledEntity;
+			}
+		};
+	
+	/**
+	 * Maps template name to compiled template.
+	 */
+	private Map<String, CompiledValidationTemplate> compiledValidationTemplateMap = 
+		new HashMap<String, CompiledValidationTemplate>();
+	
+	/**
+	 * Whether the rules of each template can be inlined 
+	 * into referencing rule holders, by template name.
+	 */
+	private Map<String, Boolean> inlinableTemplateMap = new HashMap<String, Boolean>();
+	
+	/**
+	 * Used to bind rule executors to rules during compilation.
+	 */
+	@Autowired
+	protected RuleExecutorContainer ruleExecutorContainer;
+	
+	/**
+	 * Used to bind context handlers to contexts during compilation.
+	 */
+	@Autowired
+	protected ValidationContextHandlerContainer contextHandlerContainer;
+	
+	/**
+	 * Interns the groups of group contexts during compilation.
+	 */
+	private ValidationGroupIndex validationGroupIndex = new ValidationGroupIndex();
+	
+	/**
+	 * Used by the TypeConverter to convert literal rule values
+	 * to the type specified by RuleExecutor parameterization.
+	 */
+	@Autowired(required=false)
+	protected ConversionService conversionService;
+	
+	/**
+	 * Used to convert literal rule values during compilation.
+	 */
+	protected TypeConverter typeConverter;
+	
 	/**
 	 * Annotation classes which mark a field that should not be validated recursively.
 	 */
@@ -80,9 +169,148 @@ public class ValidationRulesContainer {
 	 * Annotation classes which mark a field that should be validated recursively.
 	 */
 	private List<Class<? extends Annotation>> includeAnnotations = new ArrayList<Class<? extends Annotation>>();
+	
+	/**
+	 * Matches the body of each ${EL} fragment.
+	 */
+	private static final Pattern EL_FRAGMENT = Pattern.compile("\\$\\{(.*?)\\}");
+	
+	/**
+	 * Matches string literals within EL.
+	 */
+	private static final Pattern EL_STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'|\"(?:[^\"]|\"\")*\"");
+	
+	/**
+	 * Matches a chain of property references within EL, such as
+	 * "model.address.city", along with any method call or indexer following it.
+	 */
+	private static final Pattern EL_REFERENCE = 
+		Pattern.compile("(?<![\\w.$?])([A-Za-z_]\\w*(?:\\s*\\??\\.\\s*[A-Za-z_]\\w*)*)(\\s*[(\\[])?");
+	
+	/**
+	 * Words within EL which are operators or literals rather than references.
+	 */
+	private static final Set<String> EL_KEYWORDS = new HashSet<String>(Arrays.asList(
+		"and", "or", "not", "null", "true", "false", "eq", "ne", "lt", "gt",
+		"le", "ge", "div", "mod", "instanceof", "matches", "between"));
 
+	/**
+	 * @param clazz The class to get the validation entity for
+	 * @return the validation entity resolved for the class, 
+	 * as described by @link{#getCompiledValidationEntity(Class)},
+	 * or null if there is no validation entity for the class.
+	 */
 	public ValidationEntity getValidationEntity(Class<?> clazz) {
-		return validationEntityMap.get(clazz);
+		CompiledValidationEntity compiledEntity = getCompiledValidationEntity(clazz);
+		return compiledEntity == null ? null : compiledEntity.getValidationEntity();
+	}
+	
+	/**
+	 * Gets the execution plan for the given class: that of the class itself
+	 * or of its nearest registered superclass, as for proxies and subclasses,
+	 * merged with those of any registered interfaces the class implements.
+	 * Resolved once per class, after which this is a single lookup,
+	 * as is finding that a class has no validation entity.
+	 * @param clazz The class to get the execution plan for
+	 * @return the compiled validation entity for the class,
+	 * or null if there is no validation entity for the class.
+	 */
+	public CompiledValidationEntity getCompiledValidationEntity(Class<?> clazz) {
+		if (clazz == null) {
+			return null;
+		}
+		CompiledValidationEntity compiledEntity = resolvedValidationEntities.get(clazz);
+		return compiledEntity == UNRESOLVABLE ? null : compiledEntity;
+	}
+	
+	/**
+	 * Resolves the compiled validation entity for the given class,
+	 * compiling a merged entity where more than one applies.
+	 * Called once per class by @link{#getCompiledValidationEntity(Class)},
+	 * which caches the result. Only the compilation of a merged entity
+	 * is synchronized, as the compilation of rules is not thread safe.
+	 * @param clazz The class to resolve the execution plan for
+	 * @return the compiled validation entity for the class,
+	 * or null if there is no validation entity for the class.
+	 */
+	protected CompiledValidationEntity resolveCompiledValidationEntity(Class<?> clazz) {
+		List<ValidationEntity> entities = getApplicableValidationEntities(clazz);
+		if (entities.isEmpty()) {
+			return null;
+		} else if (entities.size() == 1) {
+			return compiledValidationEntityMap.get(entities.get(0).getValidationClass());
+		}
+		synchronized (this) {
+			return compileMergedValidationEntity(clazz, entities);
+		}
+	}
+	
+	/**
+	 * Finds the registered validation entities which apply to the given class:
+	 * that of the class itself or its nearest registered superclass, which
+	 * already holds the rules inherited from further superclasses, followed
+	 * by those of the interfaces implemented by the class.
+	 * @param clazz the class to find validation entities for
+	 * @return the applicable validation entities, empty if there are none.
+	 */
+	protected List<ValidationEntity> getApplicableValidationEntities(Class<?> clazz) {
+		List<ValidationEntity> entities = new ArrayList<ValidationEntity>();
+		for (Class<?> superclass = clazz; superclass != null && superclass != Object.class; superclass = superclass.getSuperclass()) {
+			if (validationEntityMap.containsKey(superclass)) {
+				entities.add(validationEntityMap.get(superclass));
+				break;
+			}
+		}
+		Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+		for (Class<?> superclass = clazz; superclass != null; superclass = superclass.getSuperclass()) {
+			collectInterfaces(superclass, interfaces);
+		}
+		for (Class<?> interfaceClass : interfaces) {
+			ValidationEntity entity = validationEntityMap.get(interfaceClass);
+			if (entity != null && !entities.contains(entity)) {
+				entities.add(entity);
+			}
+		}
+		return entities;
+	}
+	
+	/**
+	 * Collects the interfaces of the given class, and their super interfaces.
+	 */
+	private void collectInterfaces(Class<?> clazz, Set<Class<?>> interfaces) {
+		for (Class<?> interfaceClass : clazz.getInterfaces()) {
+			if (interfaces.add(interfaceClass)) {
+				collectInterfaces(interfaceClass, interfaces);
+			}
+		}
+	}
+	
+	/**
+	 * Merges the given validation entities into one for the given class, 
+	 * and compiles it. Rules, template references, contexts and paths
+	 * are merged in the order the entities are given, while recursive
+	 * property paths are found on the given class itself.
+	 * @param clazz the class to compile a merged validation entity for
+	 * @param entities the validation entities applying to the class
+	 * @return the compiled merged validation entity
+	 */
+	protected CompiledValidationEntity compileMergedValidationEntity(Class<?> clazz, List<ValidationEntity> entities) {
+		ValidationEntity mergedEntity = new ValidationEntity();
+		mergedEntity.setValidationClass(clazz);
+		for (ValidationEntity entity : entities) {
+			mergedEntity.getRules().addAll(entity.getRules());
+			mergedEntity.getTemplateReferences().addAll(entity.getTemplateReferences());
+			mergedEntity.getValidationContexts().addAll(entity.getValidationContexts());
+			mergedEntity.getExcludedPaths().addAll(entity.getExcludedPaths());
+			mergedEntity.getIncludedPaths().addAll(entity.getIncludedPaths());
+			if (mergedEntity.getShortCircuitPaths() == null) {
+				mergedEntity.setShortCircuitPaths(entity.getShortCircuitPaths());
+			}
+		}
+		initRecursivePropertyPaths(mergedEntity);
+		CompiledValidationEntity compiledEntity = new CompiledValidationEntity(mergedEntity);
+		compileRuleHolder(mergedEntity, compiledEntity);
+		return compiledEntity;
 	}
 	
 	/**
@@ -99,6 +327,8 @@ public class ValidationRulesContainer {
 		initExcludePaths();
 		initInheritance();
 		initRecursivePropertyPaths();
+		initTemplateReferenceChecks();
+		initCompiledValidationEntities();
 	}
 	
 	/**
@@ -171,32 +401,40 @@ public class ValidationRulesContainer {
 	
 	protected void initRecursivePropertyPaths() {
 		for (ValidationEntity entity : validationEntityMap.values()) {
+			initRecursivePropertyPaths(entity);
+		}
+	}
+	
+	/**
+	 * Finds the properties of the given entity's class to recurse into:
+	 * those of a class for which a validation entity can be resolved.
+	 * @param entity the entity to find recursive property paths for
+	 */
+	protected void initRecursivePropertyPaths(ValidationEntity entity) {
+		if (entity.getValidationClass().isInterface()) {
+			return;
+		}
+		
+		PropertyDescriptor[] propertyDescriptors = BeanUtils.getPropertyDescriptors(entity.getValidationClass());
+		
+		for (PropertyDescriptor property : propertyDescriptors) {
 			
-			if (entity.getValidationClass().isInterface()) {
+			if (!entity.getIncludedPaths().isEmpty() 
+					&& !entity.getIncludedPaths().contains(property.getName())) {
 				continue;
 			}
 			
-			PropertyDescriptor[] propertyDescriptors = BeanUtils.getPropertyDescriptors(entity.getValidationClass());
+			if (entity.getExcludedPaths().contains(property.getName())) {
+				continue;
+			}
 			
-			for (PropertyDescriptor property : propertyDescriptors) {
-				
-				if (!entity.getIncludedPaths().isEmpty() 
-						&& !entity.getIncludedPaths().contains(property.getName())) {
-					continue;
-				}
-				
-				if (entity.getExcludedPaths().contains(property.getName())) {
-					continue;
-				}
-				
-				Class<?> pathClass = PathUtils.getClassForPath(entity.getValidationClass(), property.getName(), false);
-				Class<?> collectionPathClass = PathUtils.getClassForPath(entity.getValidationClass(), property.getName(), true);
-				
-				if (this.supportsClass(pathClass)|| 
-					(this.supportsClass(collectionPathClass) && 
-						(List.class.isAssignableFrom(pathClass) || pathClass.isArray()))) {
-					entity.getRecursivePropertyPaths().put(property.getName(), pathClass);
-				}
+			Class<?> pathClass = PathUtils.getClassForPath(entity.getValidationClass(), property.getName(), false);
+			Class<?> collectionPathClass = PathUtils.getClassForPath(entity.getValidationClass(), property.getName(), true);
+			
+			if (!getApplicableValidationEntities(pathClass).isEmpty() || 
+				(!getApplicableValidationEntities(collectionPathClass).isEmpty() && 
+					CollectionTraversal.isTraversable(pathClass))) {
+				entity.getRecursivePropertyPaths().put(property.getName(), pathClass);
 			}
 		}
 	}
@@ -220,29 +458,495 @@ public class ValidationRulesContainer {
 			Set<ValidationContext> inheritableContexts = new ListOrderedSet();
 			Set<String> inheritableExclusionPaths = new HashSet<String>();
 			Set<String> inheritableInclusionPaths = new HashSet<String>();
+			Boolean inheritableShortCircuitPaths = null;
 			
 			while (!classStack.isEmpty()) {
 				Class<?> clazz = classStack.pop();
-				if (supportsClass(clazz) && !inheritanceChecked.contains(clazz)) {
+				if (validationEntityMap.containsKey(clazz) && !inheritanceChecked.contains(clazz)) {
 					validationEntityMap.get(clazz).getRules().addAll(inheritableRules);
 					validationEntityMap.get(clazz).getValidationContexts().addAll(inheritableContexts);
 					validationEntityMap.get(clazz).getExcludedPaths().addAll(inheritableExclusionPaths);
 					validationEntityMap.get(clazz).getIncludedPaths().addAll(inheritableInclusionPaths);
 					validationEntityMap.get(clazz).getTemplateReferences().addAll(inheritableTemplateReferences);
+					if (validationEntityMap.get(clazz).getShortCircuitPaths() == null) {
+						validationEntityMap.get(clazz).setShortCircuitPaths(inheritableShortCircuitPaths);
+					}
 				}
-				if (hasRulesForClass(clazz)) {
+				if (validationEntityMap.containsKey(clazz) && validationEntityMap.get(clazz).getRules() != null) {
 					inheritableRules.addAll(validationEntityMap.get(clazz).getRules());
 				}
-				if (supportsClass(clazz)) {
+				if (validationEntityMap.containsKey(clazz)) {
 					inheritableContexts.addAll(validationEntityMap.get(clazz).getValidationContexts());
 					inheritableExclusionPaths.addAll(validationEntityMap.get(clazz).getExcludedPaths());
 					inheritableInclusionPaths.addAll(validationEntityMap.get(clazz).getIncludedPaths());
+					if (validationEntityMap.get(clazz).getShortCircuitPaths() != null) {
+						inheritableShortCircuitPaths = validationEntityMap.get(clazz).getShortCircuitPaths();
+					}
 				}
 				inheritanceChecked.add(clazz);
 			}
 		}
 	}
 	
+	/**
+	 * Checks the template references of each entity and template, so
+	 * that misuse of templates is found during container startup rather
+	 * than during validation: each referenced template must exist, must
+	 * apply to the class of the reference base path, and must not be
+	 * referenced from within itself, directly or through other templates.
+	 * The base path class is that declared on the class of the entity
+	 * or template holding the reference.
+	 */
+	protected void initTemplateReferenceChecks() {
+		for (ValidationEntity entity : validationEntityMap.values()) {
+			checkTemplateReferences(entity, entity.getValidationClass());
+		}
+		Set<String> acyclicTemplateNames = new HashSet<String>();
+		for (ValidationTemplate template : validationTemplateMap.values()) {
+			checkTemplateReferences(template, template.getApplicableEntityClass());
+			List<String> templateNames = new ArrayList<String>();
+			templateNames.add(template.getName());
+			checkCircularTemplateReferences(template, templateNames, acyclicTemplateNames);
+		}
+	}
+	
+	/**
+	 * Checks that the templates referenced within the given rule holder
+	 * exist, and apply to the class found at each reference base path.
+	 * @param ruleHolder the rule holder to check
+	 * @param modelClass the class of the model the rule holder applies to
+	 */
+	private void checkTemplateReferences(RuleHolder ruleHolder, Class<?> modelClass) {
+		if (ruleHolder.getTemplateReferences() != null) {
+			for (ValidationTemplateReference templateReference : ruleHolder.getTemplateReferences()) {
+				ValidationTemplate template = getReferencedTemplate(templateReference);
+				Class<?> templateTargetClass = 
+					PathUtils.getClassForPath(modelClass, templateReference.getBasePath(), true);
+				if (templateTargetClass == null) {
+					throw new IllegalTemplateReferenceException(
+						"Template named " + template.getName() + 
+						" expects class " + template.getApplicableEntityClass() +
+						" but " + modelClass + " has no path " + templateReference.getBasePath());
+				} else if (!template.getApplicableEntityClass().isAssignableFrom(templateTargetClass)) {
+					throw new IllegalTemplateReferenceException(
+						"Template named " + template.getName() + 
+						" expects class " + template.getApplicableEntityClass() +
+						" but got instance of " + templateTargetClass);
+				}
+			}
+		}
+		if (ruleHolder.getRules() != null) {
+			for (ValidationRule rule : ruleHolder.getRules()) {
+				checkTemplateReferences(rule, modelClass);
+			}
+		}
+		if (ruleHolder.getValidationContexts() != null) {
+			for (ValidationContext validationContext : ruleHolder.getValidationContexts()) {
+				checkTemplateReferences(validationContext, modelClass);
+			}
+		}
+	}
+	
+	/**
+	 * Checks that no template referenced within the given rule holder
+	 * is already being referenced, following references depth first.
+	 * @param ruleHolder the rule holder to check
+	 * @param templateNames the names of the templates being referenced
+	 * @param acyclicTemplateNames the names of templates already checked,
+	 * which need not be followed again
+	 */
+	private void checkCircularTemplateReferences(RuleHolder ruleHolder, 
+			List<String> templateNames, Set<String> acyclicTemplateNames) {
+		if (ruleHolder.getTemplateReferences() != null) {
+			for (ValidationTemplateReference templateReference : ruleHolder.getTemplateReferences()) {
+				String templateName = templateReference.getTemplateName();
+				if (templateNames.contains(templateName)) {
+					throw new CircularValidationTemplateReferenceException(
+						"Circular use of validation template named " + templateName);
+				}
+				if (acyclicTemplateNames.contains(templateName)) {
+					continue;
+				}
+				templateNames.add(templateName);
+				checkCircularTemplateReferences(getReferencedTemplate(templateReference), 
+					templateNames, acyclicTemplateNames);
+				templateNames.remove(templateNames.size() - 1);
+				acyclicTemplateNames.add(templateName);
+			}
+		}
+		if (ruleHolder.getRules() != null) {
+			for (ValidationRule rule : ruleHolder.getRules()) {
+				checkCircularTemplateReferences(rule, templateNames, acyclicTemplateNames);
+			}
+		}
+		if (ruleHolder.getValidationContexts() != null) {
+			for (ValidationContext validationContext : ruleHolder.getValidationContexts()) {
+				checkCircularTemplateReferences(validationContext, templateNames, acyclicTemplateNames);
+			}
+		}
+	}
+	
+	/**
+	 * @param templateReference the template reference
+	 * @return the template referenced
+	 * @throws IllegalArgumentException if there is no such template
+	 */
+	private ValidationTemplate getReferencedTemplate(ValidationTemplateReference templateReference) {
+		ValidationTemplate template = validationTemplateMap.get(templateReference.getTemplateName());
+		if (template == null) {
+			throw new IllegalArgumentException(
+				"No validation template named " + templateReference.getTemplateName());
+		}
+		return template;
+	}
+	
+	/**
+	 * Compiles each validation entity into an execution plan,
+	 * binding rule executors, context handlers and templates,
+	 * so that none of this need be looked up during validation.
+	 * Must run after inheritance has been resolved, since 
+	 * inherited rules are compiled into each child entity.
+	 */
+	protected void initCompiledValidationEntities() {
+		for (ValidationTemplate template : validationTemplateMap.values()) {
+			compiledValidationTemplateMap.put(template.getName(), new CompiledValidationTemplate(template));
+		}
+		for (CompiledValidationTemplate compiledTemplate : compiledValidationTemplateMap.values()) {
+			compileRuleHolder(compiledTemplate.getTemplate(), compiledTemplate);
+		}
+		for (ValidationEntity entity : validationEntityMap.values()) {
+			CompiledValidationEntity compiledEntity = new CompiledValidationEntity(entity);
+			compileRuleHolder(entity, compiledEntity);
+			compiledValidationEntityMap.put(entity.getValidationClass(), compiledEntity);
+		}
+	}
+	
+	/**
+	 * Compiles the rules, template references and contexts
+	 * of the given rule holder onto the given compiled rule holder. 
+	 * The rules of referenced templates are inlined where possible.
+	 * @param ruleHolder the rule holder to compile
+	 * @param compiledRuleHolder the compiled rule holder to populate
+	 */
+	protected void compileRuleHolder(RuleHolder ruleHolder, CompiledRuleHolder compiledRuleHolder) {
+		List<CompiledValidationRule> compiledRules = new ArrayList<CompiledValidationRule>();
+		if (ruleHolder.getRules() != null) {
+			for (ValidationRule rule : ruleHolder.getRules()) {
+				compiledRules.add(compileRule(rule));
+			}
+		}
+		
+		List<CompiledTemplateReference> compiledTemplateReferences = new ArrayList<CompiledTemplateReference>();
+		if (ruleHolder.getTemplateReferences() != null) {
+			compileTemplateReferences(ruleHolder.getTemplateReferences(), "", 
+				compiledRules, compiledTemplateReferences);
+		}
+		compiledRuleHolder.setRules(compiledRules);
+		compiledRuleHolder.setTemplateReferences(compiledTemplateReferences);
+		
+		List<CompiledValidationContext> compiledContexts = new ArrayList<CompiledValidationContext>();
+		if (ruleHolder.getValidationContexts() != null) {
+			for (ValidationContext validationContext : ruleHolder.getValidationContexts()) {
+				ValidationContextHandler contextHandler = 
+					contextHandlerContainer.getContextHandlerForType(validationContext.getType());
+				CompiledValidationContext compiledContext = 
+					new CompiledValidationContext(validationContext, contextHandler);
+				// only the stock group handler is known to match exactly by group name.
+				if (contextHandler != null && contextHandler.getClass() == ValidationGroupContextHandler.class) {
+					compiledContext.setGroupBits(validationGroupIndex.getGroupBits(validationContext.getQualifiers()));
+				}
+				compileRuleHolder(validationContext, compiledContext);
+				compiledContexts.add(compiledContext);
+			}
+		}
+		compiledRuleHolder.setValidationContexts(compiledContexts);
+	}
+	
+	/**
+	 * Compiles the given template references, inlining the rules of each
+	 * referenced template into the given compiled rules, with the reference 
+	 * base path prepended to their paths, so that they cost no more to run 
+	 * than rules written on the referencing rule holder. Once a template 
+	 * can't be inlined, it and all following references are compiled as 
+	 * template references instead, so that rules run in the same order 
+	 * as they would have through the template references.
+	 * @param templateReferences the template references to compile
+	 * @param basePath the path to prepend to each reference base path, 
+	 * when compiling the references of an inlined template
+	 * @param compiledRules the compiled rules to add inlined rules to
+	 * @param compiledTemplateReferences the compiled template references to add to
+	 */
+	protected void compileTemplateReferences(List<ValidationTemplateReference> templateReferences, String basePath,
+			List<CompiledValidationRule> compiledRules, List<CompiledTemplateReference> compiledTemplateReferences) {
+		for (ValidationTemplateReference templateReference : templateReferences) {
+			CompiledValidationTemplate compiledTemplate = 
+				compiledValidationTemplateMap.get(templateReference.getTemplateName());
+			if (compiledTemplate == null) {
+				throw new IllegalArgumentException(
+					"No validation template named " + templateReference.getTemplateName());
+			}
+			ValidationTemplate template = compiledTemplate.getTemplate();
+			String templateBasePath = PathUtils.appendPath(basePath, templateReference.getBasePath());
+			if (compiledTemplateReferences.isEmpty() && isInlinable(template)) {
+				if (template.getRules() != null) {
+					for (ValidationRule rule : template.getRules()) {
+						CompiledValidationRule compiledRule = compileRule(copyRule(rule, templateBasePath));
+						markInlined(compiledRule, template.getName(), templateBasePath);
+						compiledRules.add(compiledRule);
+					}
+				}
+				if (template.getTemplateReferences() != null) {
+					compileTemplateReferences(template.getTemplateReferences(), templateBasePath, 
+						compiledRules, compiledTemplateReferences);
+				}
+			} else {
+				ValidationTemplateReference localizedReference = basePath.isEmpty() ? templateReference
+					: new ValidationTemplateReference(templateBasePath, templateReference.getTemplateName());
+				compiledTemplateReferences.add(new CompiledTemplateReference(localizedReference, compiledTemplate));
+			}
+		}
+	}
+	
+	/**
+	 * Determines whether the rules of the given template can be inlined
+	 * into referencing rule holders, with the reference base path prepended
+	 * to their paths, without changing how they are evaluated. They can,
+	 * unless the template or its nested rules hold contexts, rules without
+	 * a path, or rules using EL in their path, value or error path, 
+	 * which would be evaluated relative to the template base path.
+	 * Nested template references are compiled with the base path 
+	 * prepended in turn, and so don't prevent inlining.
+	 * @param template the template to check
+	 * @return true if the rules of the template can be inlined.
+	 */
+	protected boolean isInlinable(ValidationTemplate template) {
+		Boolean inlinable = inlinableTemplateMap.get(template.getName());
+		if (inlinable == null) {
+			inlinable = isInlinable((RuleHolder) template);
+			inlinableTemplateMap.put(template.getName(), inlinable);
+		}
+		return inlinable;
+	}
+	
+	/**
+	 * @return true if the given rule holder and its nested rules can be inlined.
+	 */
+	private boolean isInlinable(RuleHolder ruleHolder) {
+		if (ruleHolder.getValidationContexts() != null && !ruleHolder.getValidationContexts().isEmpty()) {
+			return false;
+		}
+		if (ruleHolder.getRules() != null) {
+			for (ValidationRule rule : ruleHolder.getRules()) {
+				if (rule.getPath() == null || rule.getPath().isEmpty() 
+						|| isContainingEL(rule.getPath()) || isContainingEL(rule.getValue()) 
+						|| isContainingEL(rule.getErrorPath()) || !isInlinable(rule)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return true if the given string is not null, and contains EL.
+	 */
+	private boolean isContainingEL(String string) {
+		return string != null && PathUtils.containsEL(string);
+	}
+	
+	/**
+	 * Copies the given template rule and its nested rules for inlining,
+	 * prepending the given base path to the rule and error paths, and
+	 * to the base paths of nested template references.
+	 * @param rule the template rule to copy
+	 * @param basePath the base path the template is referenced at
+	 * @return the copied rule
+	 */
+	protected ValidationRule copyRule(ValidationRule rule, String basePath) {
+		ValidationRule copiedRule = new ValidationRule(
+			PathUtils.appendPath(basePath, rule.getPath()), rule.getType(), rule.getValue());
+		copiedRule.setRuleExecutor(rule.getRuleExecutor());
+		copiedRule.setMessage(rule.getMessage());
+		copiedRule.setMessageText(rule.getMessageText());
+		if (rule.getErrorPath() != null && !rule.getErrorPath().isEmpty()) {
+			copiedRule.setErrorPath(PathUtils.appendPath(basePath, rule.getErrorPath()));
+		}
+		copiedRule.setCollectionStrategy(rule.getCollectionStrategy());
+		copiedRule.setOnFail(rule.getOnFail());
+		if (rule.getRules() != null) {
+			for (ValidationRule nestedRule : rule.getRules()) {
+				copiedRule.getRules().add(copyRule(nestedRule, basePath));
+			}
+		}
+		if (rule.getTemplateReferences() != null) {
+			for (ValidationTemplateReference templateReference : rule.getTemplateReferences()) {
+				copiedRule.getTemplateReferences().add(new ValidationTemplateReference(
+					PathUtils.appendPath(basePath, templateReference.getBasePath()), 
+					templateReference.getTemplateName()));
+			}
+		}
+		return copiedRule;
+	}
+	
+	/**
+	 * Records the template the given compiled rule, and its nested
+	 * rules, were inlined from, unless already recorded by the inlining
+	 * of a more deeply nested template reference.
+	 * @param compiledRule the inlined rule
+	 * @param templateName the name of the template
+	 * @param basePath the base path the template was referenced at
+	 */
+	private void markInlined(CompiledValidationRule compiledRule, String templateName, String basePath) {
+		if (!compiledRule.isInlinedFromTemplate()) {
+			compiledRule.setInlinedTemplate(templateName, basePath);
+		}
+		for (CompiledValidationRule nestedRule : compiledRule.getRules()) {
+			markInlined(nestedRule, templateName, basePath);
+		}
+	}
+	
+	/**
+	 * Compiles a single validation rule and its children,
+	 * binding the rule executor given on the rule, or 
+	 * registered for the rule type.
+	 * @param rule the rule to compile
+	 * @return the compiled rule
+	 */
+	protected CompiledValidationRule compileRule(ValidationRule rule) {
+		RuleExecutor<?, ?> executor = rule.getRuleExecutor();
+		if (executor == null) {
+			executor = ruleExecutorContainer.getRuleExecutorByName(rule.getType());
+		}
+		CompiledValidationRule compiledRule = new CompiledValidationRule(rule, executor);
+		if (compiledRule.hasValue() && !compiledRule.isValueContainingEL()) {
+			compiledRule.setConvertedValue(convertLiteralValue(compiledRule));
+		}
+		compileRuleHolder(rule, compiledRule);
+		initRuleDependencies(compiledRule);
+		return compiledRule;
+	}
+	
+	/**
+	 * Determines the property paths read by the given rule and its 
+	 * descendant rules, so that validation of a few changed paths can
+	 * skip the rules which read none of them.
+	 * Paths are taken from the rule path, and from references to "model"
+	 * and "currentModel" within EL. Where the paths read can't be determined,
+	 * as for rules without a path, EL referencing other scopes or calling
+	 * methods, or nested template references, the rule is marked as
+	 * depending on any path, and will always be run.
+	 * @param compiledRule the rule to inspect, its descendants already compiled
+	 */
+	protected void initRuleDependencies(CompiledValidationRule compiledRule) {
+		Set<String> dependencyPaths = new LinkedHashSet<String>();
+		Set<String> rootDependencyPaths = new LinkedHashSet<String>();
+		boolean dependenciesKnown = compiledRule.hasPath();
+		if (compiledRule.isPathContainingEL()) {
+			dependenciesKnown &= collectELDependencies(compiledRule.getPath(), dependencyPaths, rootDependencyPaths);
+		} else {
+			dependencyPaths.add(compiledRule.getPath());
+		}
+		if (compiledRule.isValueContainingEL()) {
+			dependenciesKnown &= collectELDependencies(compiledRule.getValue(), dependencyPaths, rootDependencyPaths);
+		}
+		dependenciesKnown &= collectDescendantDependencies(compiledRule, dependencyPaths, rootDependencyPaths);
+		compiledRule.setDependencies(dependencyPaths.toArray(new String[dependencyPaths.size()]), 
+			rootDependencyPaths.toArray(new String[rootDependencyPaths.size()]), !dependenciesKnown);
+	}
+	
+	/**
+	 * Collects the dependencies of the rules nested within the given rule holder.
+	 * @return false if the dependencies of any nested rule are unknown.
+	 */
+	private boolean collectDescendantDependencies(CompiledRuleHolder ruleHolder, 
+			Set<String> dependencyPaths, Set<String> rootDependencyPaths) {
+		if (!ruleHolder.getTemplateReferences().isEmpty()) {
+			return false;
+		}
+		for (CompiledValidationRule rule : ruleHolder.getRules()) {
+			if (rule.isDependingOnAnyPath()) {
+				return false;
+			}
+			dependencyPaths.addAll(Arrays.asList(rule.getDependencyPaths()));
+			rootDependencyPaths.addAll(Arrays.asList(rule.getRootDependencyPaths()));
+		}
+		for (CompiledValidationContext validationContext : ruleHolder.getValidationContexts()) {
+			if (!collectDescendantDependencies(validationContext, dependencyPaths, rootDependencyPaths)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Collects the model paths referenced by the given EL-containing string.
+	 * References to "currentModel" are collected as paths relative to the 
+	 * model, and references to "model" as paths from the base model object.
+	 * @return false if the string references anything else, 
+	 * or calls methods, such that its dependencies are unknown.
+	 */
+	private boolean collectELDependencies(String elContaining, 
+			Set<String> dependencyPaths, Set<String> rootDependencyPaths) {
+		Matcher fragmentMatcher = EL_FRAGMENT.matcher(elContaining);
+		while (fragmentMatcher.find()) {
+			String expression = EL_STRING_LITERAL.matcher(fragmentMatcher.group(1)).replaceAll("''");
+			if (expression.contains("#") || expression.contains("@")) {
+				return false;
+			}
+			Matcher referenceMatcher = EL_REFERENCE.matcher(expression);
+			while (referenceMatcher.find()) {
+				String[] tokens = referenceMatcher.group(1).replaceAll("[\\s?]", "").split("\\.", 2);
+				if (EL_KEYWORDS.contains(tokens[0])) {
+					continue;
+				}
+				boolean methodCall = referenceMatcher.group(2) != null && referenceMatcher.group(2).trim().equals("(");
+				if (methodCall) {
+					return false;
+				} else if (tokens[0].equals("currentModel")) {
+					dependencyPaths.add(tokens.length > 1 ? tokens[1] : "");
+				} else if (tokens[0].equals("model") && tokens.length > 1) {
+					rootDependencyPaths.add(tokens[1]);
+				} else {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Converts the literal value of the given rule into the 
+	 * type requested in the rule executor's parameterized
+	 * argument type, so this need not happen during validation.
+	 * @param compiledRule the rule to convert the value of
+	 * @return the converted value
+	 */
+	protected Object convertLiteralValue(CompiledValidationRule compiledRule) {
+		if (compiledRule.getArgumentType() == null) {
+			return compiledRule.getValue();
+		}
+		try {
+			return getTypeConverter().convertIfNecessary(
+				compiledRule.getValue(), compiledRule.getArgumentType());
+		} catch (TypeMismatchException tme) {
+			throw new IllegalArgumentException("Value of " + compiledRule 
+				+ " cannot be converted to " + compiledRule.getArgumentType().getName(), tme);
+		}
+	}
+	
+	/**
+	 * Return the underlying TypeConverter.
+	 */
+	protected TypeConverter getTypeConverter() {
+		if (this.typeConverter == null) {
+			this.typeConverter = new SimpleTypeConverter();
+			if (this.conversionService != null) {
+				((SimpleTypeConverter) this.typeConverter).setConversionService(this.conversionService);
+			}
+		}
+		return this.typeConverter;
+	}
+	
 	/**
 	 * @param clazz The class to check rules for
 	 * @return true if there exist model rules for the class.
@@ -297,6 +1001,13 @@ public class ValidationRulesContainer {
 			Map<String, ValidationTemplate> validationTemplateMap) {
 		this.validationTemplateMap = validationTemplateMap;
 	}
+
+	/**
+	 * @return the index of the groups of compiled group contexts.
+	 */
+	public ValidationGroupIndex getValidationGroupIndex() {
+		return validationGroupIndex;
+	}
 	
 	public static class AnnotationFieldFilter implements FieldFilter {
 		
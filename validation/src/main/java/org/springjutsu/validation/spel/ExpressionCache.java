@@ -0,0 +1,151 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.spel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+/**
+ * A bounded, thread safe cache of parsed SPEL expressions, keyed
+ * by expression text, so that each expression used by validation
+ * rules and messages is parsed once rather than on every evaluation.
+ * Once full, the least recently used expression is evicted.
+ * Parsed expressions hold no evaluation state, and so are shared
+ * by all @link{SPELResolver} instances.
+ * By default, expressions are parsed in the MIXED compiler mode,
+ * so that frequently evaluated expressions are compiled to bytecode,
+ * falling back to interpretation should compiled evaluation fail,
+ * as when an expression is evaluated against a different model type.
+ * The compiler mode may instead be set with Spring's standard
+ * "spring.expression.compiler.mode" property, e.g. to "off".
+ */
+public class ExpressionCache {
+
+	/**
+	 * The default maximum number of expressions to cache.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1024;
+
+	/**
+	 * Spring's standard property for the SPEL compiler mode.
+	 */
+	public static final String COMPILER_MODE_PROPERTY_NAME = "spring.expression.compiler.mode";
+
+	/**
+	 * The instance shared by SPEL resolvers.
+	 */
+	private static final ExpressionCache sharedInstance = new ExpressionCache();
+
+	/**
+	 * Parses expressions not yet in the cache.
+	 */
+	private final ExpressionParser expressionParser;
+
+	/**
+	 * Parsed expressions by expression text, in access order, 
+	 * guarded by synchronizing on the map.
+	 */
+	private final Map<String, Expression> expressions;
+
+	/**
+	 * Creates a cache of the default size,
+	 * using the default compiler mode.
+	 */
+	public ExpressionCache() {
+		this(DEFAULT_MAX_SIZE, getDefaultCompilerMode());
+	}
+
+	/**
+	 * @param maxSize the maximum number of expressions to cache
+	 * @param compilerMode the compiler mode to parse expressions in
+	 */
+	public ExpressionCache(final int maxSize, SpelCompilerMode compilerMode) {
+		this.expressions = new LinkedHashMap<String, Expression>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+				return size() > maxSize;
+			}
+		};
+		this.expressionParser = new SpelExpressionParser(new SpelParserConfiguration(compilerMode, null));
+	}
+
+	/**
+	 * @return the instance shared by SPEL resolvers.
+	 */
+	public static ExpressionCache getSharedInstance() {
+		return sharedInstance;
+	}
+
+	/**
+	 * Returns the parsed form of the given expression,
+	 * parsing and caching it if not already cached.
+	 * @param expressionString the expression to parse
+	 * @return the parsed expression
+	 */
+	public Expression getExpression(String expressionString) {
+		Expression expression;
+		synchronized (expressions) {
+			expression = expressions.get(expressionString);
+		}
+		if (expression == null) {
+			// parsed outside the lock; should another thread get there first, its expression is kept.
+			Expression parsed = expressionParser.parseExpression(expressionString);
+			synchronized (expressions) {
+				expression = expressions.get(expressionString);
+				if (expression == null) {
+					expression = parsed;
+					expressions.put(expressionString, expression);
+				}
+			}
+		}
+		return expression;
+	}
+
+	/**
+	 * @return the number of cached expressions.
+	 */
+	public int size() {
+		synchronized (expressions) {
+			return expressions.size();
+		}
+	}
+
+	/**
+	 * @return the parser used to parse expressions.
+	 */
+	public ExpressionParser getExpressionParser() {
+		return expressionParser;
+	}
+
+	/**
+	 * @return the compiler mode given by Spring's
+	 * "spring.expression.compiler.mode" property, or MIXED if not set.
+	 */
+	protected static SpelCompilerMode getDefaultCompilerMode() {
+		String compilerMode = SpringProperties.getProperty(COMPILER_MODE_PROPERTY_NAME);
+		return compilerMode != null ? SpelCompilerMode.valueOf(compilerMode.toUpperCase()) : SpelCompilerMode.MIXED;
+	}
+
+}
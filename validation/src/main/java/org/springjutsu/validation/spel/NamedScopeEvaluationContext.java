@@ -16,11 +16,21 @@
 
 package org.springjutsu.validation.spel;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.context.expression.MapAccessor;
 import org.springframework.expression.AccessException;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.ExpressionState;
@@ -41,6 +51,11 @@ import org.springframework.expression.spel.support.StandardEvaluationContext;
  * 2) Allow the creation of multiple named contexts without having to create
  * a dedicated class with named fields for each of the scopes, and
  * 3) Allows for full use of property accessors against each registered scope.
+ * In null tolerant mode, properties which no property accessor can read
+ * resolve to null, rather than failing with an exception.
+ * The registered scopes and property accessors may be saved and later
+ * restored with @link{#pushScopes()} and @link{#popScopes()}, so that
+ * scopes added for a while can be discarded without building a new instance.
  * @author Clark Duplichien
  *
  */
@@ -53,6 +68,33 @@ public class NamedScopeEvaluationContext extends StandardEvaluationContext {
 	 * is prevalent throughout the implementation. Sorry.
 	 */
 	ContextScope contextScope;
+	
+	/**
+	 * If true, properties which can't be read resolve to null.
+	 */
+	private boolean nullTolerant = false;
+	
+	/**
+	 * The registered property accessors followed by the 
+	 * @link{NullPropertyAccessor}, built when first needed
+	 * in null tolerant mode, and discarded when the
+	 * registered property accessors change.
+	 */
+	private List<PropertyAccessor> nullTolerantPropertyAccessors;
+	
+	/**
+	 * Caches the property accessors to try for each target class, 
+	 * so that the specific target classes of each property accessor
+	 * are checked once per class rather than per property access.
+	 */
+	private final Map<Class<?>, List<PropertyAccessor>> accessorCache = 
+		new HashMap<Class<?>, List<PropertyAccessor>>();
+	
+	/**
+	 * The scopes and property accessors saved by each 
+	 * call to @link{#pushScopes()} not yet popped.
+	 */
+	private final Deque<SavedScopes> savedScopes = new ArrayDeque<SavedScopes>();
 
 	/**
 	 * Creates an empty instance, on which scopes can be registered.
@@ -71,9 +113,228 @@ public class NamedScopeEvaluationContext extends StandardEvaluationContext {
 	 * @param context The context / scope object itself.
 	 */
 	public void addContext(String contextName, Object context) {
+		contextScope.dynamicContexts.remove(contextName);
 		contextScope.put(contextName, context);
 	}
 	
+	/**
+	 * Adds a Scope, or Context, whose readable properties may change
+	 * from one evaluation to the next, such as a view of whichever
+	 * object is currently being validated. Unqualified property lookups
+	 * are cached for ordinary contexts, but always checked against
+	 * dynamic contexts.
+	 * @param contextName The name of the context / scope.
+	 * @param context The context / scope object itself.
+	 */
+	public void addDynamicContext(String contextName, Object context) {
+		contextScope.dynamicContexts.add(contextName);
+		contextScope.put(contextName, context);
+	}
+	
+	/**
+	 * Adds a Scope, or Context, which is only obtained from the given
+	 * factory the first time it is accessed, so that contexts which 
+	 * are costly to obtain, or have side effects, are only bound
+	 * if an expression actually uses them.
+	 * @param contextName The name of the context / scope.
+	 * @param contextFactory Obtains the context / scope object itself.
+	 */
+	public void addLazyContext(String contextName, ObjectFactory<?> contextFactory) {
+		contextScope.dynamicContexts.remove(contextName);
+		contextScope.putLazy(contextName, contextFactory);
+	}
+	
+	/**
+	 * @param contextName The name of the context / scope.
+	 * @return true if a context / scope of the given name was added.
+	 */
+	public boolean hasContext(String contextName) {
+		return contextScope.hasScope(contextName);
+	}
+	
+	/**
+	 * @param contextName The name of the context / scope.
+	 * @return The context / scope object of the given name, 
+	 * or null if there is none.
+	 */
+	public Object getContext(String contextName) {
+		return contextScope.getScope(contextName);
+	}
+	
+	/**
+	 * Reads a property directly, using the first of the registered
+	 * property accessors which can read it, tried in the same order
+	 * SPEL would try them, without parsing or evaluating an expression.
+	 * @param target the object to read from
+	 * @param name the name of the property to read
+	 * @return the value of the property, or null if the target 
+	 * is null or no property accessor can read the property.
+	 * @throws AccessException if a property accessor fails to read
+	 */
+	public Object readProperty(Object target, String name) throws AccessException {
+		if (target == null) {
+			return null;
+		}
+		for (PropertyAccessor accessor : getPropertyAccessorsToTry(target)) {
+			if (accessor.canRead(this, target, name)) {
+				return accessor.read(this, target, name).getValue();
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Orders property accessors as SPEL does: first those specific
+	 * to the target's exact class, then any others applicable to it,
+	 * each in the order registered.
+	 * @param target the object to read from
+	 * @return the property accessors applicable to the target,
+	 * excluding the @link{NullPropertyAccessor}.
+	 */
+	protected List<PropertyAccessor> getPropertyAccessorsToTry(Object target) {
+		Class<?> targetClass = target == null ? null : target.getClass();
+		List<PropertyAccessor> accessorsToTry = accessorCache.get(targetClass);
+		if (accessorsToTry == null) {
+			List<PropertyAccessor> specificAccessors = new ArrayList<PropertyAccessor>();
+			List<PropertyAccessor> generalAccessors = new ArrayList<PropertyAccessor>();
+			for (PropertyAccessor accessor : super.getPropertyAccessors()) {
+				if (!isAccessorApplicable(accessor, target)) {
+					continue;
+				}
+				Class<?>[] targetClasses = accessor.getSpecificTargetClasses();
+				if (targetClasses != null && Arrays.asList(targetClasses).contains(targetClass)) {
+					specificAccessors.add(accessor);
+				} else {
+					generalAccessors.add(accessor);
+				}
+			}
+			accessorsToTry = specificAccessors;
+			accessorsToTry.addAll(generalAccessors);
+			accessorCache.put(targetClass, accessorsToTry);
+		}
+		return accessorsToTry;
+	}
+	
+	/**
+	 * Saves the registered scopes and property accessors, so that
+	 * any added from here on are discarded by the matching call to
+	 * @link{#popScopes()}, as when a validation context is no longer active.
+	 */
+	public void pushScopes() {
+		savedScopes.addLast(new SavedScopes(
+			new ArrayList<PropertyAccessor>(super.getPropertyAccessors()),
+			new LinkedHashMap<String, Object>(contextScope),
+			new HashSet<String>(contextScope.dynamicContexts)));
+	}
+	
+	/**
+	 * Restores the scopes and property accessors saved by
+	 * the most recent call to @link{#pushScopes()}.
+	 */
+	public void popScopes() {
+		if (savedScopes.isEmpty()) {
+			throw new IllegalStateException("No scopes to pop");
+		}
+		SavedScopes saved = savedScopes.removeLast();
+		contextScope.restore(saved.contexts, saved.dynamicContexts);
+		setPropertyAccessors(saved.propertyAccessors);
+	}
+	
+	/**
+	 * @return the number of times scopes have been 
+	 * pushed without yet being popped.
+	 */
+	public int getScopeDepth() {
+		return savedScopes.size();
+	}
+	
+	/**
+	 * @return true if properties which can't be read resolve to null.
+	 */
+	public boolean isNullTolerant() {
+		return nullTolerant;
+	}
+	
+	/**
+	 * In null tolerant mode, properties which no registered property
+	 * accessor can read resolve to null, rather than failing with an
+	 * exception. This avoids the cost of creating and catching an 
+	 * exception for each absent property, such as a missing optional
+	 * request parameter, when absent properties are treated as null anyway.
+	 * Properties of a null object likewise resolve to null. Writes still fail.
+	 * @param nullTolerant true if properties which can't be read resolve to null.
+	 */
+	public void setNullTolerant(boolean nullTolerant) {
+		this.nullTolerant = nullTolerant;
+	}
+	
+	/**
+	 * In null tolerant mode, the registered property accessors are 
+	 * followed by a @link{NullPropertyAccessor}, which is tried only
+	 * after all other accessors, including any registered later.
+	 */
+	@Override
+	public List<PropertyAccessor> getPropertyAccessors() {
+		if (!nullTolerant) {
+			return super.getPropertyAccessors();
+		}
+		if (nullTolerantPropertyAccessors == null) {
+			List<PropertyAccessor> propertyAccessors = new ArrayList<PropertyAccessor>(super.getPropertyAccessors());
+			propertyAccessors.add(NullPropertyAccessor.INSTANCE);
+			nullTolerantPropertyAccessors = propertyAccessors;
+		}
+		return nullTolerantPropertyAccessors;
+	}
+	
+	@Override
+	public void addPropertyAccessor(PropertyAccessor accessor) {
+		super.addPropertyAccessor(accessor);
+		propertyAccessorsChanged();
+	}
+	
+	@Override
+	public boolean removePropertyAccessor(PropertyAccessor accessor) {
+		boolean removed = super.removePropertyAccessor(accessor);
+		propertyAccessorsChanged();
+		return removed;
+	}
+	
+	@Override
+	public void setPropertyAccessors(List<PropertyAccessor> propertyAccessors) {
+		super.setPropertyAccessors(propertyAccessors);
+		propertyAccessorsChanged();
+	}
+	
+	/**
+	 * Discards whatever was worked out using the previously
+	 * registered property accessors.
+	 */
+	protected void propertyAccessorsChanged() {
+		nullTolerantPropertyAccessors = null;
+		accessorCache.clear();
+		if (contextScope != null) {
+			contextScope.clearCaches();
+		}
+	}
+	
+	/**
+	 * @param accessor the property accessor to check
+	 * @param target the object to read from
+	 * @return true if the accessor applies to the target's class.
+	 */
+	protected static boolean isAccessorApplicable(PropertyAccessor accessor, Object target) {
+		if (accessor.getSpecificTargetClasses() == null
+			|| accessor.getSpecificTargetClasses().length < 1) {
+			return true;
+		}
+		for (Class<?> clazz : accessor.getSpecificTargetClasses()) {
+			if (target != null && clazz.isAssignableFrom(target.getClass())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * This is the container for Multiple Named Scopes.
 	 * It inherits from an ordered-access map, each attempt to
@@ -90,20 +351,81 @@ public class NamedScopeEvaluationContext extends StandardEvaluationContext {
 		
 		/**
 		 * If a given property is found within a specific context,
-		 * we cache the property name and the context it's found in.
+		 * we cache the property name and the index of the context it's 
+		 * found in. If it's not found in any context, we cache that too,
+		 * as the number of contexts, so that misses aren't searched for 
+		 * again and again. Dynamic contexts are left out of the search,
+		 * and checked on each lookup instead.
 		 * Just allows for better performance / less redundant searching.
 		 * Since this whole instance is a thread-specific throwaway, there's
 		 * no cap on the cache size. Shouldn't be a problem since the max
 		 * size is limited by how many properties a user can actually write
 		 * validation rules for on a single form.
+		 * Cleared whenever a context or property accessor is added.
 		 */
-		LinkedHashMap<String, ExpressionState> stateCache;
+		Map<String, Integer> stateCache;
 		
 		/**
-		 * Constructor initializes the state cache.
+		 * The names of contexts added as dynamic contexts.
+		 */
+		Set<String> dynamicContexts;
+		
+		/**
+		 * The names of the contexts in the order they 
+		 * were registered, built when first searched.
+		 */
+		String[] scopes;
+		
+		/**
+		 * For each context, true if it was added as a dynamic context.
+		 */
+		boolean[] dynamicScopes;
+		
+		/**
+		 * Constructor initializes the caches.
 		 */
 		ContextScope() {
-			stateCache = new LinkedHashMap<String, ExpressionState>();
+			stateCache = new HashMap<String, Integer>();
+			dynamicContexts = new HashSet<String>();
+		}
+		
+		/**
+		 * Clears all cached search results.
+		 */
+		void clearCaches() {
+			stateCache.clear();
+			scopes = null;
+		}
+		
+		/**
+		 * @param name the name of a context
+		 * @return true if a context of the given name was added.
+		 */
+		boolean hasScope(String name) {
+			return super.containsKey(name);
+		}
+		
+		/**
+		 * @param name the name of a context
+		 * @return the context of the given name, or null if none.
+		 */
+		Object getScope(String name) {
+			return unwrapExpressionState(getState(name));
+		}
+		
+		/**
+		 * @param name the name of a context
+		 * @return the state of the context of the given name, 
+		 * first obtaining the context if it was added lazily,
+		 * or null if there is no such context.
+		 */
+		ExpressionState getState(String name) {
+			Object state = super.get(name);
+			if (state instanceof LazyContext) {
+				state = newState(((LazyContext) state).contextFactory.getObject());
+				super.put(name, state);
+			}
+			return (ExpressionState) state;
 		}
 		
 		/**
@@ -134,15 +456,15 @@ public class NamedScopeEvaluationContext extends StandardEvaluationContext {
 				return null;
 			}
 			if (super.containsKey(key)) {
-				return unwrapExpressionState(super.get(key));
-			} else if (this.containsKey(key)) {
-				ExpressionState expressionState = getReadableState(key);
-				PropertyOrFieldReference propRef = 
-          new PropertyOrFieldReference(true, key.toString(), 1, key.toString().length());
-				return unwrapExpressionState(propRef.getValue(expressionState));
-			} else {
+				return unwrapExpressionState(getState(key.toString()));
+			}
+			ExpressionState expressionState = getReadableState(key);
+			if (expressionState == null) {
 				return null;
 			}
+			PropertyOrFieldReference propRef = 
+				new PropertyOrFieldReference(true, key.toString(), 1, key.toString().length());
+			return unwrapExpressionState(propRef.getValue(expressionState));
 		}
 		
 		/**
@@ -177,39 +499,63 @@ public class NamedScopeEvaluationContext extends StandardEvaluationContext {
 		 * @return ExpressionState from which the property may be read.
 		 */
 		protected ExpressionState getReadableState(Object key) {
-			if (stateCache.containsKey(key)) {
-				return stateCache.get(key);
-			} 
-			
-			for (String superKey : super.keySet()) {
-				ExpressionState state = (ExpressionState) super.get(superKey);
-				List<PropertyAccessor> propertyAccessors = state.getPropertyAccessors();
-				for (PropertyAccessor accessor : propertyAccessors) {
-					try {
-						boolean accessorApplicable = false;
-						if (accessor.getSpecificTargetClasses() == null
-							|| accessor.getSpecificTargetClasses().length < 1) {
-							accessorApplicable = true;
-						} else {
-							for (Class<?> clazz : accessor.getSpecificTargetClasses()) {
-								if (clazz.isAssignableFrom(
-										state.getRootContextObject().getValue().getClass())) {
-									accessorApplicable = true;
-									break;
-								}
-							}
-						}
-						if (accessorApplicable && accessor.canRead(state.getEvaluationContext(), 
-									state.getRootContextObject().getValue(), key.toString())) {
-							stateCache.put(key.toString(), state);
-							return state;
-						}						
-					} catch (AccessException ae) {
-						continue;
+			String name = key.toString();
+			if (scopes == null) {
+				initScopes();
+			}
+			Integer readableIndex = stateCache.get(name);
+			if (readableIndex == null) {
+				readableIndex = scopes.length;
+				for (int i = 0; i < scopes.length; i++) {
+					if (!dynamicScopes[i] && canRead(getState(scopes[i]), name)) {
+						readableIndex = i;
+						break;
 					}
 				}
+				stateCache.put(name, readableIndex);
 			}
-			return null;
+			// dynamic contexts registered ahead of the cached context come first.
+			for (int i = 0; i < readableIndex; i++) {
+				if (dynamicScopes[i] && canRead(getState(scopes[i]), name)) {
+					return getState(scopes[i]);
+				}
+			}
+			return readableIndex < scopes.length ? getState(scopes[readableIndex]) : null;
+		}
+		
+		/**
+		 * Builds the ordered arrays of contexts searched by
+		 * @link{#getReadableState(Object)}. Lazily added contexts
+		 * are only obtained once the search reaches them.
+		 */
+		protected void initScopes() {
+			String[] scopes = keySet().toArray(new String[size()]);
+			boolean[] dynamicScopes = new boolean[scopes.length];
+			for (int i = 0; i < scopes.length; i++) {
+				dynamicScopes[i] = dynamicContexts.contains(scopes[i]);
+			}
+			this.dynamicScopes = dynamicScopes;
+			this.scopes = scopes;
+		}
+		
+		/**
+		 * @param state the context to read from
+		 * @param name the name of the property to read
+		 * @return true if any applicable property accessor 
+		 * can read the property from the context.
+		 */
+		protected boolean canRead(ExpressionState state, String name) {
+			Object scope = state.getRootContextObject().getValue();
+			for (PropertyAccessor accessor : getPropertyAccessorsToTry(scope)) {
+				try {
+					if (accessor.canRead(state.getEvaluationContext(), scope, name)) {
+						return true;
+					}
+				} catch (AccessException ae) {
+					continue;
+				}
+			}
+			return false;
 		}
 		
 		/**
@@ -218,10 +564,118 @@ public class NamedScopeEvaluationContext extends StandardEvaluationContext {
 		 */
 		@Override
 		public Object put(String key, Object value) {
-			Object previousValue = super.put(key, 
-					new ExpressionState(NamedScopeEvaluationContext.this, new TypedValue(value),
-							new SpelParserConfiguration(false, false)));
-			return unwrapExpressionState(previousValue);
+			stateCache.clear();
+			scopes = null;
+			Object previousValue = super.put(key, newState(value));
+			return previousValue instanceof LazyContext ? null : unwrapExpressionState(previousValue);
+		}
+		
+		/**
+		 * Replaces all contexts with the given stored contexts,
+		 * as previously copied from this map.
+		 */
+		void restore(Map<String, Object> contexts, Set<String> dynamicContexts) {
+			clearCaches();
+			super.clear();
+			for (Map.Entry<String, Object> context : contexts.entrySet()) {
+				super.put(context.getKey(), context.getValue());
+			}
+			this.dynamicContexts = dynamicContexts;
+		}
+		
+		/**
+		 * Store a context to be obtained from the given factory when first accessed.
+		 */
+		void putLazy(String key, ObjectFactory<?> contextFactory) {
+			stateCache.clear();
+			scopes = null;
+			super.put(key, new LazyContext(contextFactory));
+		}
+		
+		/**
+		 * @return an ExpressionState version of the given context.
+		 */
+		private ExpressionState newState(Object value) {
+			return new ExpressionState(NamedScopeEvaluationContext.this, new TypedValue(value),
+					new SpelParserConfiguration(false, false));
+		}
+	}
+	
+	/**
+	 * The scopes and property accessors saved by @link{#pushScopes()}.
+	 */
+	static class SavedScopes {
+		
+		final List<PropertyAccessor> propertyAccessors;
+		
+		final Map<String, Object> contexts;
+		
+		final Set<String> dynamicContexts;
+		
+		SavedScopes(List<PropertyAccessor> propertyAccessors, 
+				Map<String, Object> contexts, Set<String> dynamicContexts) {
+			this.propertyAccessors = propertyAccessors;
+			this.contexts = contexts;
+			this.dynamicContexts = dynamicContexts;
+		}
+		
+	}
+	
+	/**
+	 * Holds the factory of a lazily added context until the context is first accessed.
+	 */
+	static class LazyContext {
+		
+		final ObjectFactory<?> contextFactory;
+		
+		LazyContext(ObjectFactory<?> contextFactory) {
+			this.contextFactory = contextFactory;
+		}
+		
+	}
+	
+	/**
+	 * Reads any property as null. Used in null tolerant mode as
+	 * the last resort, once no other property accessor can read
+	 * a property, and never writes.
+	 */
+	static class NullPropertyAccessor implements PropertyAccessor {
+		
+		static final NullPropertyAccessor INSTANCE = new NullPropertyAccessor();
+		
+		@SuppressWarnings("rawtypes")
+		public Class[] getSpecificTargetClasses() {
+			return null;
+		}
+
+		public boolean canRead(EvaluationContext context, Object target, String name) {
+			return true;
+		}
+
+		/**
+		 * An expression reuses the last accessor which read each
+		 * of its properties, without asking whether it can read,
+		 * so check that the property is still unreadable, as it
+		 * may not be for a different object, and otherwise fail 
+		 * so that the expression finds the right accessor.
+		 */
+		public TypedValue read(EvaluationContext context, Object target, String name) throws AccessException {
+			for (PropertyAccessor accessor : context.getPropertyAccessors()) {
+				if (accessor != this && isAccessorApplicable(accessor, target)
+						&& accessor.canRead(context, target, name)) {
+					throw new AccessException("Property '" + name + "' is readable by " + accessor);
+				}
+			}
+			return TypedValue.NULL;
+		}
+
+		public boolean canWrite(EvaluationContext context, Object target, String name) {
+			return false;
 		}
+
+		public void write(EvaluationContext context, Object target, String name, Object newValue) throws AccessException {
+			throw new AccessException("Property '" + name + "' is not writable");
+		}
+		
 	}
 }
@@ -16,13 +16,15 @@
 
 package org.springjutsu.validation.spel;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.beans.TypeConverter;
+import org.springframework.expression.AccessException;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.SpelEvaluationException;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springjutsu.validation.context.ValidationContextHandler;
 
 /**
  * A customizable resolver of SPEL Expressions.
@@ -30,6 +32,10 @@ import org.springframework.expression.spel.standard.SpelExpressionParser;
  */
 public class SPELResolver {
 	
+	/**
+	 * Matches an ${EL} fragment. Fragments are parsed by
+	 * @link{SPELTemplate}, which recognizes the same syntax.
+	 */
 	public static final String EXPRESSION_MATCHER = "\\$\\{(.(?!\\$\\{))+\\}";
 	
 	/**
@@ -40,9 +46,17 @@ public class SPELResolver {
 	
 	/**
 	 * Expression parser used to parse expressions.
+	 * Defaults to the parser of the expression cache; expressions 
+	 * are only cached while it does, so that a parser swapped in 
+	 * by a subclass parses every expression itself.
 	 */
 	protected ExpressionParser expressionParser;
 	
+	/**
+	 * Caches parsed expressions, shared by all resolvers.
+	 */
+	protected ExpressionCache expressionCache = ExpressionCache.getSharedInstance();
+	
 	/**
 	 * Core model object.
 	 */
@@ -53,6 +67,18 @@ public class SPELResolver {
 	 */
 	protected TypeConverter typeConverter;
 	
+	/**
+	 * Context handlers which have yet to initialize this resolver,
+	 * as they only do so once an expression needs more than the model.
+	 */
+	protected List<ValidationContextHandler> pendingInitializations = new ArrayList<ValidationContextHandler>();
+	
+	/**
+	 * True while pending initializations are run, so that handlers
+	 * accessing the scoped context don't run those still pending.
+	 */
+	private boolean initializing = false;
+	
 	/**
 	 * Initialize evaluation context and expression parser.
 	 * Initializes property accessors and contexts.
@@ -71,12 +97,85 @@ public class SPELResolver {
 	 */
 	public void reset() {
 		scopedContext = new NamedScopeEvaluationContext();
-		expressionParser = new SpelExpressionParser();
+		// absent properties are treated as null, so don't pay for exceptions.
+		scopedContext.setNullTolerant(true);
+		// the parser holds no per-model state, so is kept across resets.
+		if (expressionParser == null) {
+			expressionParser = expressionCache.getExpressionParser();
+		}
 		
 		// init named contexts
 		scopedContext.addContext("model", model);
 	}
 	
+	/**
+	 * Points this resolver at a new core model object, discarding
+	 * any scopes added by context handlers, so that a single resolver
+	 * may be reused to validate many models. Unlike @link{#reset()}, 
+	 * other customizations of the scoped context are kept.
+	 * @param model the new core model object
+	 */
+	public void setModel(Object model) {
+		this.model = model;
+		pendingInitializations.clear();
+		while (scopedContext.getScopeDepth() > 0) {
+			scopedContext.popScopes();
+		}
+		scopedContext.addContext("model", model);
+	}
+	
+	/**
+	 * Defers initialization of this resolver by the given context 
+	 * handler until an expression needs more than the model, so
+	 * that contexts whose rules and messages use no such EL don't
+	 * pay for binding scopes which are never used.
+	 * @param contextHandler the handler of a context becoming active
+	 */
+	public void deferInitialization(ValidationContextHandler contextHandler) {
+		pendingInitializations.add(contextHandler);
+	}
+	
+	/**
+	 * Reverts initialization by the given context handler, as its
+	 * context is no longer active: if still pending, it is cancelled, 
+	 * otherwise the scopes the handler added are popped, restoring the
+	 * scoped context to its state before the handler initialized it,
+	 * unless this resolver has since been reset. Contexts must be reverted in the reverse order of their deferral.
+	 * @param contextHandler the handler of a context no longer active
+	 * @return true if the context handler did initialize this resolver,
+	 * false if the initialization was still pending.
+	 */
+	public boolean revertInitialization(ValidationContextHandler contextHandler) {
+		int pendingIndex = pendingInitializations.lastIndexOf(contextHandler);
+		if (pendingIndex >= 0) {
+			pendingInitializations.remove(pendingIndex);
+			return false;
+		}
+		if (scopedContext.getScopeDepth() > 0) {
+			scopedContext.popScopes();
+		}
+		return true;
+	}
+	
+	/**
+	 * Runs any pending initializations by context handlers,
+	 * in the order deferred, pushing the scopes before each.
+	 */
+	protected void initializePending() {
+		if (initializing) {
+			return;
+		}
+		initializing = true;
+		try {
+			while (!pendingInitializations.isEmpty()) {
+				scopedContext.pushScopes();
+				pendingInitializations.remove(0).initializeSPELResolver(this);
+			}
+		} finally {
+			initializing = false;
+		}
+	}
+	
 	/**
 	 * Evaluates a SPEL expression within the
 	 * current web context, returning the result.
@@ -84,11 +183,13 @@ public class SPELResolver {
 	 * @return result of evaluated SPEL expression.
 	 */
 	public Object getBySpel(String spel) {
+		initializePending();
 		Object spelResult = null;
 		try {
-			spelResult = expressionParser.parseExpression(spel).getValue(scopedContext);
-			// TODO: pretty sure we can get around this expensive catch with an always-null property accessor.
+			spelResult = getExpression(spel).getValue(scopedContext);
 		} catch (SpelEvaluationException see) {
+			// absent properties read as null in the null tolerant context,
+			// but other failures, e.g. of method calls, may still end up here.
 			if (see.getMessage().contains("cannot be found")) {
 				return null;
 			} else {
@@ -96,21 +197,58 @@ public class SPELResolver {
 			}
 		}
 		
-		// if SPEL resolves into another SPEL expression,
-		// that looks pretty sketchy, and would get run again,
-		// so de-SPEL to prevent SPEL-injection vulnerability.
-		if (spelResult instanceof String) {
-			Matcher matcher = Pattern.compile(EXPRESSION_MATCHER).matcher((String) spelResult);
-			while (matcher.find()) {
-				String elString = matcher.group();
-				String unSpelledSpel = elString.substring(2, elString.length() - 1);
-				spelResult = ((String) spelResult).replace(elString, unSpelledSpel);
-			}
+		return deSpel(spelResult);
+	}
+	
+	/**
+	 * If SPEL resolves into another SPEL expression,
+	 * that looks pretty sketchy, and would get run again,
+	 * so de-SPEL to prevent SPEL-injection vulnerability.
+	 * @param spelResult the result of evaluating an expression
+	 * @return the result, stripped of any ${} delimiters.
+	 */
+	protected Object deSpel(Object spelResult) {
+		if (spelResult instanceof String && ((String) spelResult).contains("${")) {
+			return SPELTemplate.parse((String) spelResult).toLiteralText();
 		}
-		
 		return spelResult;
 	}
 	
+	/**
+	 * Resolves an expression segment of a template. Plain property 
+	 * paths rooted at a named scope, such as ${model.address.zip},
+	 * are read directly from the scope using the registered property
+	 * accessors; anything else is evaluated as SPEL.
+	 * @param template the parsed string
+	 * @param index the index of the expression segment
+	 * @return result of the resolved expression.
+	 */
+	protected Object resolveExpressionSegment(SPELTemplate template, int index) {
+		String[] propertyPath = template.getPropertyPath(index);
+		if (propertyPath != null && !scopedContext.hasContext(propertyPath[0])) {
+			initializePending();
+		}
+		// only null tolerant contexts read missing properties as null,
+		// and only the cached parser is known to read paths the same way.
+		if (propertyPath != null && scopedContext.isNullTolerant() 
+				&& scopedContext.hasContext(propertyPath[0]) && isUsingCachedParser()) {
+			try {
+				Object result = scopedContext.getContext(propertyPath[0]);
+				for (int i = 1; i < propertyPath.length && result != null; i++) {
+					result = scopedContext.readProperty(result, propertyPath[i]);
+				}
+				// as for the "?: null" of the resolvable expression.
+				if ("".equals(result)) {
+					return null;
+				}
+				return deSpel(result);
+			} catch (AccessException ae) {
+				// let SPEL fail, or not, in its own way.
+			}
+		}
+		return getBySpel(template.getResolvableExpression(index));
+	}
+	
 	/**
 	 * Resolves one or more SPEL expressions in the given string.
 	 * @param elContainng A string potentially containing one or more SPEL expressions
@@ -119,27 +257,38 @@ public class SPELResolver {
 	 *  the string value of the respective resolved objects.
 	 */
 	public Object resolveSPELString(String elContaining) {
+		// such strings, e.g. resolved messages, are often one-off, so aren't cached;
+		// the expressions within them are.
+		return resolveSPELTemplate(SPELTemplate.parse(elContaining));
+	}
+	
+	/**
+	 * Resolves the SPEL expressions in the given pre-parsed string.
+	 * @param template A parsed string potentially containing one or more SPEL expressions
+	 * @return Either an object represented by the expression (if the entire string
+	 *  was an expression) or a new String with all SPEL expressions replaced by
+	 *  the string value of the respective resolved objects.
+	 */
+	public Object resolveSPELTemplate(SPELTemplate template) {
 		// if the whole thing is a single EL string, try to get the object.
-		if (elContaining.matches(EXPRESSION_MATCHER)) {
-			String resolvableElString = 
-				elContaining.substring(2, elContaining.length() - 1) + "?: null";
-			Object elResult = getBySpel(resolvableElString);
-			return elResult;
-		} else {
-			// otherwise, do string value substitution to build a value.
-			String elResolvable = elContaining;
-			Matcher matcher = Pattern.compile(EXPRESSION_MATCHER).matcher(elResolvable);
-			while (matcher.find()) {
-				String elString = matcher.group();
-				String resolvableElString = 
-						elString.substring(2, elString.length() - 1) + "?: null";
-				Object elResult = getBySpel(resolvableElString);
-				String resolvedElString = elResult != null ? 
-					typeConverter.convertIfNecessary(elResult, String.class) : "";
-				elResolvable = elResolvable.replace(elString, resolvedElString);
+		if (template.isExpression()) {
+			return resolveExpressionSegment(template, 0);
+		} else if (!template.containsExpressions()) {
+			return template.getText();
+		}
+		// otherwise, do string value substitution to build a value.
+		StringBuilder resolved = new StringBuilder();
+		for (int i = 0; i < template.getSegmentCount(); i++) {
+			if (!template.isExpressionSegment(i)) {
+				resolved.append(template.getSegment(i));
+				continue;
+			}
+			Object elResult = resolveExpressionSegment(template, i);
+			if (elResult != null) {
+				resolved.append(typeConverter.convertIfNecessary(elResult, String.class));
 			}
-			return elResolvable;
 		}
+		return resolved.toString();
 	}
 	
 	/**
@@ -149,10 +298,33 @@ public class SPELResolver {
 	 * @param object some object to set at SPEL-specified location.
 	 */
 	public void setBySpel(String spel, Object object) {
-		expressionParser.parseExpression(spel).setValue(scopedContext, object);		
+		initializePending();
+		getExpression(spel).setValue(scopedContext, object);
+	}
+	
+	/**
+	 * Gets the parsed expression, from the expression cache
+	 * if the expression parser is the cache's own parser.
+	 * @param spel String SPEL expression
+	 * @return the parsed expression.
+	 */
+	protected Expression getExpression(String spel) {
+		return isUsingCachedParser() ? expressionCache.getExpression(spel) : expressionParser.parseExpression(spel);
+	}
+	
+	/**
+	 * @return true if the expression parser is the parser of the expression cache.
+	 */
+	private boolean isUsingCachedParser() {
+		return expressionParser == expressionCache.getExpressionParser();
 	}
 
+	/**
+	 * @return the evaluation context, after running any pending
+	 * initializations, so that it holds all scopes of active contexts.
+	 */
 	public NamedScopeEvaluationContext getScopedContext() {
+		initializePending();
 		return scopedContext;
 	}
 
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.spel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable, pre-parsed form of a string which may contain
+ * ${EL} fragments, such as a rule path, rule value or message,
+ * broken into a sequence of literal and expression segments.
+ * Parsing happens once, so that a @link{SPELResolver} can resolve
+ * the string in a single pass without any regular expressions.
+ * Fragments are recognized exactly as by @link{SPELResolver#EXPRESSION_MATCHER}:
+ * a fragment runs from "${" to the last "}" before the next "${"
+ * or line break, and must contain at least one character.
+ * Fragments which are plain property navigations, such as
+ * ${model.address.zip}, are also broken into their property names,
+ * so that they can be resolved without evaluating SPEL at all.
+ */
+public final class SPELTemplate {
+
+	/**
+	 * Evaluates to null, rather than failing, when
+	 * appended to an expression that yields nothing.
+	 */
+	private static final String NULL_SAFE_SUFFIX = "?: null";
+
+	/**
+	 * Words which SPEL reads as operators or literals rather 
+	 * than property names, compared in upper case.
+	 */
+	private static final Set<String> RESERVED_WORDS = new HashSet<String>(Arrays.asList(
+		"AND", "OR", "NOT", "LT", "GT", "LE", "GE", "EQ", "NE", "DIV", "MOD",
+		"INSTANCEOF", "MATCHES", "BETWEEN", "NEW", "TRUE", "FALSE", "NULL"));
+
+	/**
+	 * The original text.
+	 */
+	private final String text;
+
+	/**
+	 * The literal text of each segment, or for expression 
+	 * segments, the expression without its ${} delimiters.
+	 */
+	private final String[] segments;
+
+	/**
+	 * For expression segments, the expression 
+	 * to evaluate, or null for literal segments.
+	 */
+	private final String[] resolvableExpressions;
+
+	/**
+	 * For expression segments which are a plain dotted property
+	 * path, the names along the path, or null for other segments.
+	 */
+	private final String[][] propertyPaths;
+
+	private SPELTemplate(String text, List<String> segments, List<String> resolvableExpressions) {
+		this.text = text;
+		this.segments = segments.toArray(new String[segments.size()]);
+		this.resolvableExpressions = resolvableExpressions.toArray(new String[resolvableExpressions.size()]);
+		this.propertyPaths = new String[this.segments.length][];
+		for (int i = 0; i < this.segments.length; i++) {
+			if (this.resolvableExpressions[i] != null) {
+				propertyPaths[i] = parsePropertyPath(this.segments[i]);
+			}
+		}
+	}
+
+	/**
+	 * @param text the string to parse, which may contain ${EL} fragments
+	 * @return the parsed template
+	 */
+	public static SPELTemplate parse(String text) {
+		List<String> segments = new ArrayList<String>();
+		List<String> resolvableExpressions = new ArrayList<String>();
+		int literalStart = 0;
+		int searchFrom = 0;
+		int start;
+		while ((start = text.indexOf("${", searchFrom)) >= 0) {
+			int limit = text.indexOf("${", start + 3);
+			limit = indexOfLineTerminator(text, start + 2, limit < 0 ? text.length() : limit);
+			int end = text.lastIndexOf('}', limit - 1);
+			if (end < start + 3) {
+				searchFrom = start + 1;
+				continue;
+			}
+			if (start > literalStart) {
+				segments.add(text.substring(literalStart, start));
+				resolvableExpressions.add(null);
+			}
+			String expression = text.substring(start + 2, end);
+			segments.add(expression);
+			resolvableExpressions.add(expression + NULL_SAFE_SUFFIX);
+			literalStart = searchFrom = end + 1;
+		}
+		if (literalStart < text.length() || segments.isEmpty()) {
+			segments.add(text.substring(literalStart));
+			resolvableExpressions.add(null);
+		}
+		return new SPELTemplate(text, segments, resolvableExpressions);
+	}
+
+	/**
+	 * @param expression an expression without its ${} delimiters
+	 * @return the property names along the expression if it is
+	 * a plain dotted property path such as "model.address.zip", 
+	 * or null if it is anything more.
+	 */
+	private static String[] parsePropertyPath(String expression) {
+		String[] propertyNames = expression.trim().split("\\.", -1);
+		if (propertyNames.length < 2) {
+			return null;
+		}
+		for (String propertyName : propertyNames) {
+			if (propertyName.isEmpty() || Character.isDigit(propertyName.charAt(0))
+					|| RESERVED_WORDS.contains(propertyName.toUpperCase())) {
+				return null;
+			}
+			for (int i = 0; i < propertyName.length(); i++) {
+				char c = propertyName.charAt(i);
+				if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '_') {
+					return null;
+				}
+			}
+		}
+		return propertyNames;
+	}
+
+	/**
+	 * @return the index of the first line terminator in the 
+	 * given range of the text, or the end of the range if none.
+	 */
+	private static int indexOfLineTerminator(String text, int from, int to) {
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+				return i;
+			}
+		}
+		return to;
+	}
+
+	/**
+	 * @return the original text.
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * @return true if the whole text is a single ${EL} fragment.
+	 */
+	public boolean isExpression() {
+		return segments.length == 1 && resolvableExpressions[0] != null;
+	}
+
+	/**
+	 * @return true if the text contains any ${EL} fragments.
+	 */
+	public boolean containsExpressions() {
+		return segments.length > 1 || resolvableExpressions[0] != null;
+	}
+
+	/**
+	 * @return the number of literal and expression segments.
+	 */
+	public int getSegmentCount() {
+		return segments.length;
+	}
+
+	/**
+	 * @param index the segment index
+	 * @return true if the segment is an ${EL} fragment.
+	 */
+	public boolean isExpressionSegment(int index) {
+		return resolvableExpressions[index] != null;
+	}
+
+	/**
+	 * @param index the segment index
+	 * @return the literal text of the segment, or for 
+	 * expression segments, the expression without its ${} delimiters.
+	 */
+	public String getSegment(int index) {
+		return segments[index];
+	}
+
+	/**
+	 * @param index the index of an expression segment
+	 * @return the expression to evaluate for the segment, which
+	 * evaluates to null rather than failing when it yields nothing.
+	 */
+	public String getResolvableExpression(int index) {
+		return resolvableExpressions[index];
+	}
+
+	/**
+	 * @param index the index of an expression segment
+	 * @return the property names along the expression if it is a plain
+	 * dotted property path, the first being the name of a scope, 
+	 * or null if the expression must be evaluated as SPEL.
+	 */
+	public String[] getPropertyPath(int index) {
+		return propertyPaths[index];
+	}
+
+	/**
+	 * @return the text with the ${} delimiters stripped from
+	 * each ${EL} fragment, so that it will not be evaluated.
+	 */
+	public String toLiteralText() {
+		if (!containsExpressions()) {
+			return text;
+		}
+		StringBuilder literalText = new StringBuilder(text.length());
+		for (String segment : segments) {
+			literalText.append(segment);
+		}
+		return literalText.toString();
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+
+}
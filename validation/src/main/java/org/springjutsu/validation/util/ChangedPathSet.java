@@ -0,0 +1,89 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A set of changed property paths, such as the fields edited on
+ * a form, used to decide which rules need to run when validating
+ * only those paths.
+ * A path is affected by a change if either path is the other, or
+ * is nested within the other: a change to "address" affects a rule
+ * on "address.city", and a change to "address.city" affects a rule
+ * on "address". Collection indexes only need to match where both
+ * paths give one, so a change to "customers.firstName" affects
+ * "customers[2].firstName", but a change to "customers[1].firstName" does not.
+ */
+public class ChangedPathSet {
+
+	/**
+	 * The changed paths.
+	 */
+	private final List<ValidationPath> changedPaths = new ArrayList<ValidationPath>();
+
+	/**
+	 * @param changedPaths the changed property paths,
+	 * relative to the base model object.
+	 */
+	public ChangedPathSet(Collection<String> changedPaths) {
+		for (String changedPath : changedPaths) {
+			this.changedPaths.add(ValidationPath.parse(changedPath));
+		}
+	}
+
+	/**
+	 * @param path a property path relative to the base model object
+	 * @return true if the given path is affected by any of the changed paths.
+	 */
+	public boolean affects(String path) {
+		return affects(ValidationPath.parse(path));
+	}
+
+	/**
+	 * @param path a property path relative to the base model object
+	 * @return true if the given path is affected by any of the changed paths.
+	 */
+	public boolean affects(ValidationPath path) {
+		for (ValidationPath changedPath : changedPaths) {
+			if (related(path, changedPath)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if either path is a prefix of the other,
+	 * ignoring indexes given by only one of the paths.
+	 */
+	private boolean related(ValidationPath path, ValidationPath otherPath) {
+		int length = Math.min(path.size(), otherPath.size());
+		for (int i = 0; i < length; i++) {
+			String index = path.getIndex(i);
+			String otherIndex = otherPath.getIndex(i);
+			if (!path.getProperty(i).equals(otherPath.getProperty(i))
+					|| (index != null && otherIndex != null && !index.equals(otherIndex))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+/**
+ * A single member of the (possibly nested) collections on a
+ * collection path, as yielded by @link{CollectionMembers}:
+ * the member object, and its position or Map key within each collection.
+ * The indexed path of the member, such as "orders[2].lines[5]" for
+ * the collection path "orders.lines", is only built when first needed,
+ * as when recording an error against it.
+ * Members of random access collections, such as primitive arrays,
+ * may be read on demand, so that they are only boxed if read.
+ */
+public final class CollectionMember {
+
+	/**
+	 * The collection path this is a member of.
+	 */
+	private final ValidationPath collectionPath;
+
+	/**
+	 * The segments of the collection path which are indexed.
+	 */
+	private final int[] indexedSegments;
+
+	/**
+	 * The position of the member within each indexed segment.
+	 */
+	private final int[] indexes;
+
+	/**
+	 * The Map key of the member within each indexed segment,
+	 * null where the collection is not a Map, or null if none are.
+	 */
+	private final Object[] keys;
+
+	/**
+	 * The member object, unless read on demand.
+	 */
+	private final Object member;
+
+	/**
+	 * The collection to read the member from on demand, or null.
+	 */
+	private final CollectionTraversal memberCollection;
+
+	/**
+	 * The indexed path of the member, built on first use.
+	 */
+	private ValidationPath path;
+
+	/**
+	 * @param collectionPath the collection path this is a member of
+	 * @param indexedSegments the segments of the collection path which are indexed
+	 * @param indexes the position of the member within each indexed segment
+	 * @param keys the Map key of the member within each indexed segment,
+	 * null where the collection is not a Map, or null if none are.
+	 * @param member the member object
+	 */
+	public CollectionMember(ValidationPath collectionPath, int[] indexedSegments, 
+			int[] indexes, Object[] keys, Object member) {
+		this.collectionPath = collectionPath;
+		this.indexedSegments = indexedSegments;
+		this.indexes = indexes;
+		this.keys = keys;
+		this.member = member;
+		this.memberCollection = null;
+	}
+
+	/**
+	 * Creates a member read on demand from the innermost collection,
+	 * at its position in the last indexed segment.
+	 * @param collectionPath the collection path this is a member of
+	 * @param indexedSegments the segments of the collection path which are indexed
+	 * @param indexes the position of the member within each indexed segment
+	 * @param keys the Map key of the member within each indexed segment,
+	 * null where the collection is not a Map, or null if none are.
+	 * @param memberCollection the random access collection to read the member from
+	 */
+	public CollectionMember(ValidationPath collectionPath, int[] indexedSegments, 
+			int[] indexes, Object[] keys, CollectionTraversal memberCollection) {
+		this.collectionPath = collectionPath;
+		this.indexedSegments = indexedSegments;
+		this.indexes = indexes;
+		this.keys = keys;
+		this.member = null;
+		this.memberCollection = memberCollection;
+	}
+
+	/**
+	 * @return the collection path this is a member of,
+	 * relative to the model the collections were read from.
+	 */
+	public ValidationPath getCollectionPath() {
+		return collectionPath;
+	}
+
+	/**
+	 * @return the member object found at the indexed path.
+	 */
+	public Object getMember() {
+		return memberCollection == null ? member : memberCollection.get(indexes[indexes.length - 1]);
+	}
+
+	/**
+	 * @param level the collection nesting level, starting at 0 for the outermost collection
+	 * @return the position of the member within the collection at the given level.
+	 */
+	public int getIndex(int level) {
+		return indexes[level];
+	}
+
+	/**
+	 * @param level the collection nesting level, starting at 0 for the outermost collection
+	 * @return the Map key of the member within the collection 
+	 * at the given level, or null if that collection is not a Map.
+	 */
+	public Object getKey(int level) {
+		return keys == null ? null : keys[level];
+	}
+
+	/**
+	 * @return the indexed path of the member,
+	 * relative to the model the collections were read from.
+	 */
+	public ValidationPath getPath() {
+		ValidationPath result = path;
+		if (result == null) {
+			String[] segmentIndexes = new String[indexes.length];
+			for (int level = 0; level < indexes.length; level++) {
+				Object key = getKey(level);
+				segmentIndexes[level] = "[" + (key != null ? key.toString() : String.valueOf(indexes[level])) + "]";
+			}
+			result = collectionPath.appendIndexes(indexedSegments, segmentIndexes);
+			path = result;
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getPath().toString();
+	}
+
+}
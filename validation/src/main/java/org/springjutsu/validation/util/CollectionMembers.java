@@ -0,0 +1,223 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.springjutsu.validation.util.CollectionTraversal.Cursor;
+
+/**
+ * The members of the (possibly nested) collections on a collection
+ * path, such as each line of each order for "orders.lines", read
+ * lazily from the collection objects themselves, which may be
+ * arrays, Collections or Maps, as walked by @link{CollectionTraversal}.
+ * Members of a random access outermost collection may be grouped 
+ * by their position in it, so that groups can be validated apart;
+ * within each group, members are yielded one at a time in order,
+ * walking each nested collection only as it is reached.
+ * Neither the members nor their indexed paths are gathered up front.
+ * Members within a null collection, or beneath a null object, are skipped.
+ */
+public class CollectionMembers {
+
+	/**
+	 * The collection path, relative to the model.
+	 */
+	private final ValidationPath collectionPath;
+
+	/**
+	 * The segments of the collection path whose collections are
+	 * iterated, from the outermost collection inwards.
+	 */
+	private final int[] indexedSegments;
+
+	/**
+	 * The outermost collection, or null if it is null.
+	 */
+	private final CollectionTraversal outerCollection;
+
+	/**
+	 * For each collection after the first, the path to
+	 * read it from a member of the enclosing collection.
+	 */
+	private final String[] nestedCollectionPaths;
+
+	/**
+	 * The path to read a member object from a member of
+	 * the innermost collection, or empty if it is the member itself.
+	 */
+	private final String memberPath;
+
+	/**
+	 * Reads the collections and members.
+	 */
+	private final PropertyPathAccessor propertyPathAccessor;
+
+	/**
+	 * @param model the model the collection path is read from
+	 * @param collectionPath the collection path, relative to the model
+	 * @param indexedSegments the segments of the collection path whose
+	 * collections are iterated, in ascending order; at least one is required.
+	 * @param propertyPathAccessor reads the collections and members
+	 */
+	public CollectionMembers(Object model, ValidationPath collectionPath,
+			int[] indexedSegments, PropertyPathAccessor propertyPathAccessor) {
+		this.collectionPath = collectionPath;
+		this.indexedSegments = indexedSegments;
+		this.propertyPathAccessor = propertyPathAccessor;
+		this.outerCollection = CollectionTraversal.forCollection(propertyPathAccessor.getPropertyValue(
+			model, collectionPath.subPath(0, indexedSegments[0] + 1).toString()));
+		this.nestedCollectionPaths = new String[indexedSegments.length];
+		for (int level = 1; level < indexedSegments.length; level++) {
+			nestedCollectionPaths[level] = collectionPath.subPath(
+				indexedSegments[level - 1] + 1, indexedSegments[level] + 1).toString();
+		}
+		this.memberPath = collectionPath.subPath(
+			indexedSegments[indexedSegments.length - 1] + 1, collectionPath.size()).toString();
+	}
+
+	/**
+	 * @return the collection path, relative to the model.
+	 */
+	public ValidationPath getCollectionPath() {
+		return collectionPath;
+	}
+
+	/**
+	 * @return true if members can be grouped by their position in
+	 * the outermost collection, using @link{#iterator(int)}.
+	 */
+	public boolean isGroupedByOuterPosition() {
+		return outerCollection != null && outerCollection.isRandomAccess();
+	}
+
+	/**
+	 * @return the size of the outermost collection, or 0 if it is null.
+	 */
+	public int getOuterSize() {
+		return outerCollection == null ? 0 : outerCollection.size();
+	}
+
+	/**
+	 * @return an iterator over every member, which reads each
+	 * nested collection only once it is reached.
+	 */
+	public Iterator<CollectionMember> iterator() {
+		return new MemberIterator(outerCollection == null ? null : outerCollection.cursor());
+	}
+
+	/**
+	 * @param outerPosition the position within the outermost collection
+	 * @return an iterator over the members beneath the given
+	 * member of the outermost collection, which reads each
+	 * nested collection only once it is reached.
+	 * @throws UnsupportedOperationException if the outermost
+	 * collection is not random access.
+	 */
+	public Iterator<CollectionMember> iterator(int outerPosition) {
+		return new MemberIterator(outerCollection.cursor(outerPosition, outerPosition + 1));
+	}
+
+	/**
+	 * Walks the nested collections depth first,
+	 * holding only a cursor over the current collection at each level.
+	 */
+	private class MemberIterator implements Iterator<CollectionMember> {
+
+		private final Cursor[] cursors = new Cursor[indexedSegments.length];
+
+		private int level;
+
+		private CollectionMember next;
+
+		private MemberIterator(Cursor outerCursor) {
+			cursors[0] = outerCursor;
+			next = outerCursor == null ? null : advance();
+		}
+
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		public CollectionMember next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			CollectionMember result = next;
+			next = advance();
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * @return the next member, or null if there are no more.
+		 */
+		private CollectionMember advance() {
+			while (true) {
+				if (!cursors[level].next()) {
+					if (level == 0) {
+						return null;
+					}
+					level--;
+					continue;
+				}
+				if (level == indexedSegments.length - 1) {
+					return currentMember();
+				}
+				Object element = cursors[level].get();
+				CollectionTraversal nestedCollection = element == null ? null : CollectionTraversal.forCollection(
+					propertyPathAccessor.getPropertyValue(element, nestedCollectionPaths[level + 1]));
+				if (nestedCollection != null) {
+					cursors[++level] = nestedCollection.cursor();
+				}
+			}
+		}
+
+		/**
+		 * @return the member at the current position of every cursor.
+		 */
+		private CollectionMember currentMember() {
+			int[] positions = new int[cursors.length];
+			Object[] keys = null;
+			for (int i = 0; i < cursors.length; i++) {
+				positions[i] = cursors[i].getPosition();
+				Object key = cursors[i].getKey();
+				if (key != null) {
+					if (keys == null) {
+						keys = new Object[cursors.length];
+					}
+					keys[i] = key;
+				}
+			}
+			Cursor innermost = cursors[level];
+			if (memberPath.isEmpty() && innermost.getRandomAccessTraversal() != null) {
+				// read on demand, so that primitives are only boxed if read.
+				return new CollectionMember(collectionPath, indexedSegments, 
+					positions, keys, innermost.getRandomAccessTraversal());
+			}
+			Object element = innermost.get();
+			Object member = memberPath.isEmpty() || element == null
+				? element : propertyPathAccessor.getPropertyValue(element, memberPath);
+			return new CollectionMember(collectionPath, indexedSegments, positions, keys, member);
+		}
+	}
+
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Walks the members of a collection in place, without copying it:
+ * the elements of an array, including primitive arrays, of a List,
+ * Set or other Iterable, or the values of a Map.
+ * Each member has a stable key for its path: the key of a Map value,
+ * or else its position in iteration order, as Spring's BeanWrapper
+ * resolves indexes into Lists, Sets and arrays.
+ * Arrays and random access Lists may also be read by position, so
+ * that their members can be split between threads; other collections
+ * are only walked in order, using a @link{Cursor}.
+ * Elements of primitive arrays are only boxed as they are read.
+ */
+public abstract class CollectionTraversal {
+
+	/**
+	 * @param type a declared property type
+	 * @return true if properties of the given type hold collections
+	 * whose members can be validated: arrays, Collections and Maps.
+	 * Any other Iterable can be walked, but its members can't be
+	 * addressed by path, and so can't have errors recorded against them.
+	 */
+	public static boolean isTraversable(Class<?> type) {
+		return type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+	}
+
+	/**
+	 * @param collection the collection to walk
+	 * @return a traversal of the given array, Iterable or Map,
+	 * or null if it is none of these.
+	 */
+	public static CollectionTraversal forCollection(Object collection) {
+		if (collection instanceof Object[]) {
+			return new ObjectArrayTraversal((Object[]) collection);
+		} else if (collection instanceof List && collection instanceof RandomAccess) {
+			return new ListTraversal((List<?>) collection);
+		} else if (collection instanceof Iterable) {
+			return new IterableTraversal((Iterable<?>) collection);
+		} else if (collection instanceof Map) {
+			return new MapTraversal((Map<?, ?>) collection);
+		} else if (collection != null && collection.getClass().isArray()) {
+			return new PrimitiveArrayTraversal(collection);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the number of members, or -1 if it is
+	 * not known without walking the collection.
+	 */
+	public abstract int size();
+
+	/**
+	 * @return true if members may be read by position
+	 * using @link{#get(int)}.
+	 */
+	public boolean isRandomAccess() {
+		return false;
+	}
+
+	/**
+	 * @param position the position of the member to read
+	 * @return the member at the given position.
+	 * @throws UnsupportedOperationException if the
+	 * collection is not random access.
+	 */
+	public Object get(int position) {
+		throw new UnsupportedOperationException("Collection members can only be read in order");
+	}
+
+	/**
+	 * @return a cursor over every member, in order.
+	 */
+	public Cursor cursor() {
+		return new PositionCursor(this, 0, size());
+	}
+
+	/**
+	 * @param from the first position, inclusive
+	 * @param to the last position, exclusive
+	 * @return a cursor over the members at the given positions.
+	 * @throws UnsupportedOperationException if the
+	 * collection is not random access.
+	 */
+	public Cursor cursor(int from, int to) {
+		if (!isRandomAccess()) {
+			throw new UnsupportedOperationException("Collection members can only be read in order");
+		}
+		return new PositionCursor(this, from, to);
+	}
+
+	/**
+	 * Walks the members of a collection in order.
+	 * Call @link{#next()} to move to each member in turn.
+	 */
+	public abstract static class Cursor {
+
+		/**
+		 * @return true if moved to the next member,
+		 * or false if there are no more members.
+		 */
+		public abstract boolean next();
+
+		/**
+		 * @return the current member.
+		 */
+		public abstract Object get();
+
+		/**
+		 * @return the position of the current member in iteration order.
+		 */
+		public abstract int getPosition();
+
+		/**
+		 * @return the Map key of the current member,
+		 * or null if the collection is not a Map.
+		 */
+		public Object getKey() {
+			return null;
+		}
+
+		/**
+		 * @return the index of the current member for its path, such as "[2]".
+		 */
+		public String getIndex() {
+			Object key = getKey();
+			return "[" + (key != null ? key.toString() : String.valueOf(getPosition())) + "]";
+		}
+
+		/**
+		 * @return the traversal this cursor walks, if random access,
+		 * so that the current member can be read again later by position.
+		 */
+		public CollectionTraversal getRandomAccessTraversal() {
+			return null;
+		}
+	}
+
+	/**
+	 * Walks a range of positions of a random access collection.
+	 */
+	private static class PositionCursor extends Cursor {
+
+		private final CollectionTraversal traversal;
+
+		private final int to;
+
+		private int position;
+
+		private PositionCursor(CollectionTraversal traversal, int from, int to) {
+			this.traversal = traversal;
+			this.position = from - 1;
+			this.to = to;
+		}
+
+		public boolean next() {
+			return ++position < to;
+		}
+
+		public Object get() {
+			return traversal.get(position);
+		}
+
+		public int getPosition() {
+			return position;
+		}
+
+		@Override
+		public CollectionTraversal getRandomAccessTraversal() {
+			return traversal;
+		}
+	}
+
+	private static class ObjectArrayTraversal extends CollectionTraversal {
+
+		private final Object[] array;
+
+		private ObjectArrayTraversal(Object[] array) {
+			this.array = array;
+		}
+
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public boolean isRandomAccess() {
+			return true;
+		}
+
+		@Override
+		public Object get(int position) {
+			return array[position];
+		}
+	}
+
+	/**
+	 * Reads primitive array elements directly,
+	 * rather than by reflection or by copying the array.
+	 */
+	private static class PrimitiveArrayTraversal extends CollectionTraversal {
+
+		private final Object array;
+
+		private final int size;
+
+		private PrimitiveArrayTraversal(Object array) {
+			this.array = array;
+			this.size = java.lang.reflect.Array.getLength(array);
+		}
+
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean isRandomAccess() {
+			return true;
+		}
+
+		@Override
+		public Object get(int position) {
+			if (array instanceof int[]) {
+				return ((int[]) array)[position];
+			} else if (array instanceof long[]) {
+				return ((long[]) array)[position];
+			} else if (array instanceof double[]) {
+				return ((double[]) array)[position];
+			} else if (array instanceof boolean[]) {
+				return ((boolean[]) array)[position];
+			} else if (array instanceof char[]) {
+				return ((char[]) array)[position];
+			} else if (array instanceof byte[]) {
+				return ((byte[]) array)[position];
+			} else if (array instanceof short[]) {
+				return ((short[]) array)[position];
+			} else {
+				return ((float[]) array)[position];
+			}
+		}
+	}
+
+	private static class ListTraversal extends CollectionTraversal {
+
+		private final List<?> list;
+
+		private ListTraversal(List<?> list) {
+			this.list = list;
+		}
+
+		public int size() {
+			return list.size();
+		}
+
+		@Override
+		public boolean isRandomAccess() {
+			return true;
+		}
+
+		@Override
+		public Object get(int position) {
+			return list.get(position);
+		}
+	}
+
+	/**
+	 * Walks Sets, linked Lists and other Iterables using their
+	 * own iterators, so lazily loaded collections are not copied.
+	 */
+	private static class IterableTraversal extends CollectionTraversal {
+
+		private final Iterable<?> iterable;
+
+		private IterableTraversal(Iterable<?> iterable) {
+			this.iterable = iterable;
+		}
+
+		public int size() {
+			return iterable instanceof Collection ? ((Collection<?>) iterable).size() : -1;
+		}
+
+		@Override
+		public Cursor cursor() {
+			return new IteratorCursor(iterable.iterator());
+		}
+	}
+
+	private static class IteratorCursor extends Cursor {
+
+		private final Iterator<?> iterator;
+
+		private Object current;
+
+		private int position = -1;
+
+		private IteratorCursor(Iterator<?> iterator) {
+			this.iterator = iterator;
+		}
+
+		public boolean next() {
+			if (!iterator.hasNext()) {
+				return false;
+			}
+			current = iterator.next();
+			position++;
+			return true;
+		}
+
+		public Object get() {
+			return current;
+		}
+
+		public int getPosition() {
+			return position;
+		}
+	}
+
+	/**
+	 * Walks the values of a Map, keyed by their Map keys.
+	 */
+	private static class MapTraversal extends CollectionTraversal {
+
+		private final Map<?, ?> map;
+
+		private MapTraversal(Map<?, ?> map) {
+			this.map = map;
+		}
+
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public Cursor cursor() {
+			final Iterator<? extends Map.Entry<?, ?>> entries = map.entrySet().iterator();
+			return new Cursor() {
+
+				private Map.Entry<?, ?> current;
+
+				private int position = -1;
+
+				public boolean next() {
+					if (!entries.hasNext()) {
+						return false;
+					}
+					current = entries.next();
+					position++;
+					return true;
+				}
+
+				public Object get() {
+					return current.getValue();
+				}
+
+				public int getPosition() {
+					return position;
+				}
+
+				@Override
+				public Object getKey() {
+					return current.getKey();
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+/**
+ * The declared types along a property path of a class, resolved
+ * once by @link{PathUtils#getPathMetadata(Class, ValidationPath)}:
+ * for each path segment, the property type, whether that property
+ * is a collection, and the type of its elements.
+ * Arrays, Collections and Maps are collections: the element type
+ * of a Map is its value type. Element types are taken from the
+ * generic type of the property, and are Object where not declared.
+ * For properties which are not collections, the element type
+ * is the property type.
+ */
+public final class PathMetadata {
+
+	/**
+	 * The declared property type of each segment.
+	 */
+	private final Class<?>[] propertyTypes;
+
+	/**
+	 * The element type of each segment.
+	 */
+	private final Class<?>[] elementTypes;
+
+	/**
+	 * @param propertyTypes the declared property type of each segment
+	 * @param elementTypes the element type of each segment
+	 */
+	PathMetadata(Class<?>[] propertyTypes, Class<?>[] elementTypes) {
+		this.propertyTypes = propertyTypes;
+		this.elementTypes = elementTypes;
+	}
+
+	/**
+	 * @return the number of segments in the path.
+	 */
+	public int size() {
+		return propertyTypes.length;
+	}
+
+	/**
+	 * @param segment the segment number
+	 * @return the declared type of the property at the given segment.
+	 */
+	public Class<?> getPropertyType(int segment) {
+		return propertyTypes[segment];
+	}
+
+	/**
+	 * @param segment the segment number
+	 * @return the element type of the collection at the given segment,
+	 * or the property type if it is not a collection.
+	 */
+	public Class<?> getElementType(int segment) {
+		return elementTypes[segment];
+	}
+
+	/**
+	 * @param segment the segment number
+	 * @return true if the property at the given segment
+	 * is an array, Collection or Map.
+	 */
+	public boolean isCollection(int segment) {
+		return CollectionTraversal.isTraversable(propertyTypes[segment]);
+	}
+
+	/**
+	 * @return a copy of the declared property types of each segment.
+	 */
+	public Class<?>[] getPropertyTypes() {
+		return propertyTypes.clone();
+	}
+
+	/**
+	 * @return a copy of the element types of each segment.
+	 */
+	public Class<?>[] getElementTypes() {
+		return elementTypes.clone();
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A set of objects compared by identity, scoped to a path
+ * of nested levels: objects added at a level are discarded
+ * when that level is popped, restoring the set to its state
+ * before the level was pushed.
+ * Used to detect cycles during recursive sub bean validation,
+ * where the set holds the beans on the current nested path.
+ * Membership checks, additions, pushes and pops are all
+ * constant time, and no user hashCode() or equals() is invoked.
+ */
+public class PathScopedIdentitySet {
+
+	/**
+	 * The objects currently in the set.
+	 */
+	private final Map<Object, Boolean> members = new IdentityHashMap<Object, Boolean>();
+
+	/**
+	 * The objects added to the set, in order of addition,
+	 * used to undo additions when a level is popped.
+	 */
+	private final Deque<Object> additions = new ArrayDeque<Object>();
+
+	/**
+	 * For each pushed level, the number of additions
+	 * which had been made when the level was pushed.
+	 */
+	private int[] levelMarks = new int[16];
+
+	/**
+	 * The number of pushed levels.
+	 */
+	private int depth = 0;
+
+	/**
+	 * @param object the object to check for
+	 * @return true if the very same object is in the set.
+	 */
+	public boolean contains(Object object) {
+		return members.containsKey(object);
+	}
+
+	/**
+	 * Adds the given object at the current level.
+	 * @param object the object to add
+	 * @return true if the object was not already in the set.
+	 */
+	public boolean add(Object object) {
+		if (members.put(object, Boolean.TRUE) != null) {
+			return false;
+		}
+		additions.push(object);
+		return true;
+	}
+
+	/**
+	 * Opens a new level; objects added from here on
+	 * are discarded by the matching call to @link{#pop()}.
+	 */
+	public void push() {
+		if (depth == levelMarks.length) {
+			int[] grownMarks = new int[depth * 2];
+			System.arraycopy(levelMarks, 0, grownMarks, 0, depth);
+			levelMarks = grownMarks;
+		}
+		levelMarks[depth++] = additions.size();
+	}
+
+	/**
+	 * Closes the current level, removing
+	 * any objects added since it was pushed.
+	 */
+	public void pop() {
+		if (depth == 0) {
+			throw new IllegalStateException("No level to pop");
+		}
+		int mark = levelMarks[--depth];
+		while (additions.size() > mark) {
+			members.remove(additions.pop());
+		}
+	}
+
+	/**
+	 * @return a new set holding the same objects,
+	 * all at the outermost level, so that they
+	 * cannot be popped from the copy.
+	 */
+	public PathScopedIdentitySet copy() {
+		PathScopedIdentitySet copy = new PathScopedIdentitySet();
+		copy.members.putAll(members);
+		return copy;
+	}
+
+	/**
+	 * Removes all objects and levels from the set.
+	 */
+	public void clear() {
+		members.clear();
+		additions.clear();
+		depth = 0;
+	}
+
+	/**
+	 * @return the number of objects in the set.
+	 */
+	public int size() {
+		return members.size();
+	}
+
+	/**
+	 * @return the number of pushed levels.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+}
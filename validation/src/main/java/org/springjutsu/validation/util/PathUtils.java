@@ -17,13 +17,14 @@
 package org.springjutsu.validation.util;
 
 import java.beans.PropertyDescriptor;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.BeanUtils;
-import org.springframework.core.convert.TypeDescriptor;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.core.ResolvableType;
 
 /**
  * Provides several utility methods for manipulating
@@ -33,14 +34,41 @@ import org.springframework.util.ReflectionUtils;
  */
 public class PathUtils {
 	
+	/**
+	 * The maximum number of resolved paths to cache for each class.
+	 * Further paths on a class are resolved on each use, rather than
+	 * evicting paths which are already cached.
+	 */
+	public static final int MAX_CACHED_PATH_METADATA = 1024;
+	
+	/**
+	 * Cached in place of paths which don't exist on a class,
+	 * since a ConcurrentHashMap can't hold null.
+	 */
+	private static final PathMetadata NO_PATH_METADATA = new PathMetadata(new Class<?>[0], new Class<?>[0]);
+	
+	/**
+	 * The resolved types of each path, by class, then by path without indexes.
+	 * The types along a path depend only on the class and path, 
+	 * so each is resolved by reflection once, rather than on each use.
+	 * Held by each class, so that classes such as proxy classes,
+	 * and their class loaders, are not kept from being unloaded.
+	 */
+	private static final ClassValue<ConcurrentMap<ValidationPath, PathMetadata>> pathMetadataCache = 
+		new ClassValue<ConcurrentMap<ValidationPath, PathMetadata>>() {
+			@Override
+			protected ConcurrentMap<ValidationPath, PathMetadata> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<ValidationPath, PathMetadata>();
+			}
+		};
+	
 	/**
 	 * Conjoins several individual segments into a single path
 	 * @param pathSegments the segments to join
 	 * @return The joined path
 	 */
 	public static String appendPath(String... pathSegments) {
-		String joinedPath = StringUtils.join(pathSegments, ".");
-		return removeExtraneousPathSeparators(joinedPath);
+		return joinPathSegments(Arrays.asList(pathSegments));
 	}
 	
 	/**
@@ -49,8 +77,16 @@ public class PathUtils {
 	 * @return joined path.
 	 */
 	public static String joinPathSegments(Collection<String> pathSegments) {
-		String joinedPath = StringUtils.join(pathSegments, ".");
-		return removeExtraneousPathSeparators(joinedPath);
+		StringBuilder joinedPath = new StringBuilder();
+		for (String pathSegment : pathSegments) {
+			if (pathSegment != null && !pathSegment.isEmpty()) {
+				if (joinedPath.length() > 0) {
+					joinedPath.append('.');
+				}
+				joinedPath.append(pathSegment);
+			}
+		}
+		return removeExtraneousPathSeparators(joinedPath.toString());
 	}
 	
 	/**
@@ -62,7 +98,23 @@ public class PathUtils {
 	 * @return The cleaned path.
 	 */
 	public static String removeExtraneousPathSeparators(String path) {
-		return path == null ? null : path.replaceAll("\\.+", "\\.").replaceAll("^\\.|\\.$", "").trim();
+		if (path == null) {
+			return null;
+		} else if (path.indexOf('.') < 0) {
+			return path.trim();
+		}
+		StringBuilder cleanedPath = new StringBuilder(path.length());
+		for (int i = 0; i < path.length(); i++) {
+			char c = path.charAt(i);
+			if (c != '.' || (cleanedPath.length() > 0 && cleanedPath.charAt(cleanedPath.length() - 1) != '.')) {
+				cleanedPath.append(c);
+			}
+		}
+		int end = cleanedPath.length();
+		if (end > 0 && cleanedPath.charAt(end - 1) == '.') {
+			end--;
+		}
+		return cleanedPath.substring(0, end).trim();
 	}
 	
 	/**
@@ -99,34 +151,92 @@ public class PathUtils {
 	 * @return array of classes for each step of path.
 	 */
 	public static Class<?>[] getClassesForPathTokens(Class<?> clazz, String path, boolean unwrapCollectionTypes) {
-		if (path == null || path.trim().isEmpty()) {
+		return getClassesForPathTokens(clazz, ValidationPath.parse(path), unwrapCollectionTypes);
+	}
+	
+	/**
+	 * Determine the class of each step in the selected path on the target class. 
+	 * @param clazz Class to check 
+	 * @param path Path to check
+	 * @param unwrapCollectionTypes if true returns the parameterized collection type
+	 * @return array of classes for each step of path, or null if the path is empty.
+	 */
+	public static Class<?>[] getClassesForPathTokens(Class<?> clazz, ValidationPath path, boolean unwrapCollectionTypes) {
+		PathMetadata pathMetadata = getPathMetadata(clazz, path);
+		if (pathMetadata == null) {
+			return null;
+		}
+		return unwrapCollectionTypes ? pathMetadata.getElementTypes() : pathMetadata.getPropertyTypes();
+	}
+	
+	/**
+	 * Determine the declared types along the selected path on the target class.
+	 * Indexes in the path are ignored: a collection's members are looked
+	 * up on the collection's element type. Results are cached.
+	 * @param clazz Class to check 
+	 * @param path Path to check
+	 * @return the types along the path, or null if the path 
+	 * is empty or does not exist on the class.
+	 */
+	public static PathMetadata getPathMetadata(Class<?> clazz, ValidationPath path) {
+		if (path.isEmpty()) {
 			return null;
 		}
+		ValidationPath unindexedPath = path.withoutIndexes();
+		ConcurrentMap<ValidationPath, PathMetadata> classPathMetadata = pathMetadataCache.get(clazz);
+		PathMetadata pathMetadata = classPathMetadata.get(unindexedPath);
+		if (pathMetadata == null) {
+			pathMetadata = resolvePathMetadata(clazz, unindexedPath);
+			if (classPathMetadata.size() < MAX_CACHED_PATH_METADATA) {
+				classPathMetadata.putIfAbsent(unindexedPath, pathMetadata);
+			}
+		}
+		return pathMetadata == NO_PATH_METADATA ? null : pathMetadata;
+	}
+	
+	/**
+	 * Resolves the types along the given path by reflection.
+	 * @return the types along the path, or NO_PATH_METADATA
+	 * if the path does not exist on the class.
+	 */
+	private static PathMetadata resolvePathMetadata(Class<?> clazz, ValidationPath path) {
 		Class<?> intermediateClass = clazz;
-		String[] pathTokens = path.split("\\.");
-		Class<?>[] pathClasses = new Class<?>[pathTokens.length]; 
+		Class<?>[] propertyTypes = new Class<?>[path.size()];
+		Class<?>[] elementTypes = new Class<?>[path.size()];
 		
-		for (int i = 0; i < pathTokens.length; i++) {
-			String token = pathTokens[i];
-			token = token.replaceAll("\\[[^\\]]+\\]$", "");
-			PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(intermediateClass, token);
-			if (descriptor == null) {
-				return null;
-			} else if (List.class.isAssignableFrom(descriptor.getPropertyType())) {
-				intermediateClass = TypeDescriptor.nested(ReflectionUtils.findField(
-								intermediateClass, token), 1).getObjectType();
-			} else if (descriptor.getPropertyType().isArray()) {
-				intermediateClass = descriptor.getPropertyType().getComponentType();
-			} else {
-				intermediateClass = descriptor.getPropertyType();
-			}
-			if (unwrapCollectionTypes) {
-				pathClasses[i] = intermediateClass;
-			} else {
-				pathClasses[i] = descriptor.getPropertyType();
+		for (int i = 0; i < path.size(); i++) {
+			PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(intermediateClass, path.getProperty(i));
+			if (descriptor == null || descriptor.getPropertyType() == null) {
+				return NO_PATH_METADATA;
 			}
+			propertyTypes[i] = descriptor.getPropertyType();
+			elementTypes[i] = getElementType(intermediateClass, descriptor);
+			intermediateClass = elementTypes[i];
+		}
+		return new PathMetadata(propertyTypes, elementTypes);
+	}
+	
+	/**
+	 * @param beanClass the class declaring the property
+	 * @param descriptor the property
+	 * @return the generic element type of an array, Collection or other Iterable property, 
+	 * the value type of a Map property, Object if the generic type is
+	 * not declared, or the property type for any other property.
+	 */
+	private static Class<?> getElementType(Class<?> beanClass, PropertyDescriptor descriptor) {
+		Class<?> propertyType = descriptor.getPropertyType();
+		if (propertyType.isArray()) {
+			return propertyType.getComponentType();
+		}
+		boolean map = Map.class.isAssignableFrom(propertyType);
+		if (!map && !Iterable.class.isAssignableFrom(propertyType)) {
+			return propertyType;
 		}
-		return pathClasses;
+		ResolvableType type = descriptor.getReadMethod() != null 
+			? ResolvableType.forMethodReturnType(descriptor.getReadMethod(), beanClass)
+			: ResolvableType.forMethodParameter(descriptor.getWriteMethod(), 0, beanClass);
+		ResolvableType elementType = map ? type.asMap().getGeneric(1) : type.as(Iterable.class).getGeneric(0);
+		return elementType.resolve(Object.class);
 	}
 	
 	/**
@@ -153,7 +263,8 @@ public class PathUtils {
 	 * @return true if the path contains an EL fragment.
 	 */
 	public static boolean containsEL(String path) {
-		return path.matches(".*\\$\\{.+\\}.*");
+		int expressionStart = path.indexOf("${");
+		return expressionStart >= 0 && path.lastIndexOf('}') > expressionStart + 2;
 	}
 	
 	/**
@@ -162,6 +273,6 @@ public class PathUtils {
 	 * @return true if the path contains an EL expression.
 	 */
 	public static boolean isEL(String path) {
-		return path.matches("\\$\\{.+\\}");
+		return path.length() > 3 && path.startsWith("${") && path.endsWith("}");
 	}
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+/**
+ * Reads properties from model objects by path,
+ * as a rule model or sub bean is read during validation.
+ * Paths are those supported by a @link{BeanWrapper}, such as
+ * "address.city" or "orders[0].total"; implementations may
+ * read common paths faster than a BeanWrapper, and defer to one
+ * for anything else.
+ * Navigation is null-safe: a null object part way along a path
+ * results in a null value rather than an exception.
+ * A single accessor is shared by all validations,
+ * and so must be thread safe.
+ * @see ReflectivePropertyPathAccessor
+ */
+public interface PropertyPathAccessor {
+
+	/**
+	 * @param target the object to read from
+	 * @param path the path to read
+	 * @return true if the path can be read from the given object,
+	 * which requires every object along the path to be non-null.
+	 */
+	boolean isReadableProperty(Object target, String path);
+
+	/**
+	 * @param target the object to read from
+	 * @param path the path to read
+	 * @return the value at the path, or null if the path
+	 * is not readable from the given object.
+	 */
+	Object getPropertyValue(Object target, String path);
+
+	/**
+	 * @param target the object to read from
+	 * @param path the path to read
+	 * @return the declared type of the property at the path,
+	 * or null if it cannot be determined.
+	 */
+	Class<?> getPropertyType(Object target, String path);
+
+}
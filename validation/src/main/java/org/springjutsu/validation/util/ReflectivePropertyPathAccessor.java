@@ -0,0 +1,392 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.InvalidPropertyException;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * A @link{PropertyPathAccessor} which compiles each path into a
+ * series of property steps, and reads each step by invoking a
+ * @link{MethodHandle} for the getter of the property.
+ * The getter handles along each path are cached per root class
+ * and path, each step keeping the handle for the class last read
+ * at that step, so that a path is read without any lookups
+ * while the classes along it stay the same.
+ * Supports simple and nested properties, and indexed access to
+ * lists and arrays, e.g. "orders[0].total".
+ * Any other path syntax, such as map keys, is read using a
+ * @link{BeanWrapper}, which remains the reference behavior.
+ */
+public class ReflectivePropertyPathAccessor implements PropertyPathAccessor {
+
+	/**
+	 * Returned internally when a path is not readable.
+	 */
+	private static final Object UNREADABLE = new Object();
+
+	/**
+	 * Returned internally when a path must be read by a BeanWrapper.
+	 */
+	private static final Object UNSUPPORTED = new Object();
+
+	/**
+	 * The type every getter handle is adapted to.
+	 */
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	/**
+	 * Caches compiled paths by path string. Only paths without
+	 * indexes are cached, as these are drawn from the finite set
+	 * of configured rule paths, whereas indexed paths are not.
+	 */
+	private final Map<String, CompiledPath> compiledPathCache =
+		new ConcurrentHashMap<String, CompiledPath>();
+
+	/**
+	 * Caches getters by class, then by property name.
+	 * Held by each class, so that classes, such as proxy 
+	 * classes, are not kept from being unloaded.
+	 */
+	private final ClassValue<ConcurrentMap<String, Getter>> getterCache = 
+		new ClassValue<ConcurrentMap<String, Getter>>() {
+			@Override
+			protected ConcurrentMap<String, Getter> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<String, Getter>();
+			}
+		};
+
+	/**
+	 * Caches the getters along each path by root class, then by
+	 * the path with its indexes removed, which is the same for
+	 * every member of a collection.
+	 */
+	private final ClassValue<ConcurrentMap<String, Getter[]>> getterChainCache = 
+		new ClassValue<ConcurrentMap<String, Getter[]>>() {
+			@Override
+			protected ConcurrentMap<String, Getter[]> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<String, Getter[]>();
+			}
+		};
+
+	public boolean isReadableProperty(Object target, String path) {
+		Object value = read(target, path, 0);
+		if (value == UNSUPPORTED) {
+			return target != null && new BeanWrapperImpl(target).isReadableProperty(path);
+		}
+		return value != UNREADABLE;
+	}
+
+	public Object getPropertyValue(Object target, String path) {
+		Object value = read(target, path, 0);
+		if (value == UNSUPPORTED) {
+			if (target == null) {
+				return null;
+			}
+			BeanWrapper beanWrapper = new BeanWrapperImpl(target);
+			return beanWrapper.isReadableProperty(path) ? beanWrapper.getPropertyValue(path) : null;
+		}
+		return value == UNREADABLE ? null : value;
+	}
+
+	public Class<?> getPropertyType(Object target, String path) {
+		CompiledPath compiledPath = compile(path);
+		if (target != null && compiledPath != null && compiledPath.steps.length > 0) {
+			PathStep lastStep = compiledPath.steps[compiledPath.steps.length - 1];
+			if (lastStep.index < 0) {
+				Object parent = read(target, path, 1);
+				if (parent == null || parent == UNREADABLE) {
+					return null;
+				} else if (parent != UNSUPPORTED) {
+					Getter getter = getGetter(parent.getClass(), lastStep.name);
+					if (getter.handle != null) {
+						return getter.propertyType;
+					}
+				}
+			}
+		}
+		return target == null ? null : new BeanWrapperImpl(target).getPropertyType(path);
+	}
+
+	/**
+	 * Reads along the given path.
+	 * @param target the object to read from
+	 * @param path the path to read
+	 * @param skipLastSteps the number of steps at the end of the path
+	 * not to read, in order to read the parent of a property.
+	 * @return the value read, @link{#UNREADABLE} if the path could
+	 * not be read, or @link{#UNSUPPORTED} if a BeanWrapper should be used.
+	 */
+	protected Object read(Object target, String path, int skipLastSteps) {
+		if (target == null) {
+			return UNREADABLE;
+		}
+		CompiledPath compiledPath = compile(path);
+		if (compiledPath == null) {
+			return UNSUPPORTED;
+		}
+		Getter[] getterChain = getGetterChain(target.getClass(), compiledPath);
+		Object current = target;
+		for (int i = 0; i < compiledPath.steps.length - skipLastSteps; i++) {
+			if (current == null) {
+				return UNREADABLE;
+			}
+			PathStep step = compiledPath.steps[i];
+			Getter getter = getterChain[i];
+			if (getter == null || getter.declaringClass != current.getClass()) {
+				getter = getGetter(current.getClass(), step.name);
+				getterChain[i] = getter;
+			}
+			if (getter.handle == null) {
+				return UNREADABLE;
+			}
+			current = invokeGetter(getter.handle, current, step.name);
+			if (step.index >= 0) {
+				if (current == null) {
+					return UNREADABLE;
+				} else if (current instanceof List) {
+					List<?> list = (List<?>) current;
+					if (step.index >= list.size()) {
+						return UNREADABLE;
+					}
+					current = list.get(step.index);
+				} else if (current.getClass().isArray()) {
+					if (step.index >= Array.getLength(current)) {
+						return UNREADABLE;
+					}
+					current = Array.get(current, step.index);
+				} else {
+					return UNSUPPORTED;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Compiles the given path into steps.
+	 * @param path the path to compile
+	 * @return the compiled path, or null if the path
+	 * uses syntax which is not supported.
+	 */
+	protected CompiledPath compile(String path) {
+		CompiledPath compiledPath = compiledPathCache.get(path);
+		if (compiledPath == null) {
+			compiledPath = CompiledPath.parse(path);
+			if (compiledPath != null && path.indexOf('[') < 0) {
+				compiledPathCache.put(path, compiledPath);
+			}
+		}
+		return compiledPath;
+	}
+
+	/**
+	 * @param rootClass the class of the object the path is read from
+	 * @param compiledPath the path to read
+	 * @return the getters last used at each step of the path
+	 * from the given root class, null where none has been used yet.
+	 * Steps may be updated in place, as each getter is immutable.
+	 */
+	protected Getter[] getGetterChain(Class<?> rootClass, CompiledPath compiledPath) {
+		ConcurrentMap<String, Getter[]> rootClassChains = getterChainCache.get(rootClass);
+		Getter[] getterChain = rootClassChains.get(compiledPath.propertyNames);
+		if (getterChain == null) {
+			getterChain = new Getter[compiledPath.steps.length];
+			Getter[] existing = rootClassChains.putIfAbsent(compiledPath.propertyNames, getterChain);
+			if (existing != null) {
+				getterChain = existing;
+			}
+		}
+		return getterChain;
+	}
+
+	/**
+	 * @param clazz the class to find the getter on
+	 * @param propertyName the property to find the getter for
+	 * @return the getter, whose handle is null if the property is not readable.
+	 */
+	protected Getter getGetter(Class<?> clazz, String propertyName) {
+		ConcurrentMap<String, Getter> classGetters = getterCache.get(clazz);
+		Getter getter = classGetters.get(propertyName);
+		if (getter == null) {
+			PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(clazz, propertyName);
+			Method readMethod = descriptor == null ? null : descriptor.getReadMethod();
+			MethodHandle handle = null;
+			if (readMethod != null) {
+				ReflectionUtils.makeAccessible(readMethod);
+				try {
+					handle = MethodHandles.lookup().unreflect(readMethod).asType(GETTER_TYPE);
+				} catch (IllegalAccessException iae) {
+					throw new InvalidPropertyException(clazz, propertyName,
+						"Getter for property '" + propertyName + "' is not accessible", iae);
+				}
+			}
+			getter = new Getter(clazz, handle, readMethod == null ? null : readMethod.getReturnType());
+			classGetters.put(propertyName, getter);
+		}
+		return getter;
+	}
+
+	/**
+	 * Invokes the given getter handle, failing as a BeanWrapper would.
+	 */
+	protected Object invokeGetter(MethodHandle getter, Object target, String propertyName) {
+		try {
+			return (Object) getter.invokeExact(target);
+		} catch (Throwable t) {
+			throw new InvalidPropertyException(target.getClass(), propertyName,
+				"Getter for property '" + propertyName + "' threw exception", t);
+		}
+	}
+
+	/**
+	 * The getter for a property of a class.
+	 */
+	protected static final class Getter {
+
+		private final Class<?> declaringClass;
+
+		/**
+		 * The getter handle, adapted to take and return Object,
+		 * or null if the property is not readable.
+		 */
+		private final MethodHandle handle;
+
+		private final Class<?> propertyType;
+
+		private Getter(Class<?> declaringClass, MethodHandle handle, Class<?> propertyType) {
+			this.declaringClass = declaringClass;
+			this.handle = handle;
+			this.propertyType = propertyType;
+		}
+
+	}
+
+	/**
+	 * A path broken down into property steps.
+	 */
+	protected static class CompiledPath {
+
+		private final PathStep[] steps;
+
+		/**
+		 * The property names of the steps, without indexes.
+		 */
+		private final String propertyNames;
+
+		private CompiledPath(PathStep[] steps) {
+			this.steps = steps;
+			StringBuilder propertyNames = new StringBuilder();
+			for (PathStep step : steps) {
+				if (propertyNames.length() > 0) {
+					propertyNames.append('.');
+				}
+				propertyNames.append(step.name);
+			}
+			this.propertyNames = propertyNames.toString();
+		}
+
+		/**
+		 * @param path the path to parse
+		 * @return the compiled path, or null if the path
+		 * uses syntax which is not supported.
+		 */
+		protected static CompiledPath parse(String path) {
+			if (path.isEmpty()) {
+				return new CompiledPath(new PathStep[0]);
+			}
+			String[] tokens = path.split("\\.", -1);
+			PathStep[] steps = new PathStep[tokens.length];
+			for (int i = 0; i < tokens.length; i++) {
+				steps[i] = PathStep.parse(tokens[i]);
+				if (steps[i] == null) {
+					return null;
+				}
+			}
+			return new CompiledPath(steps);
+		}
+
+	}
+
+	/**
+	 * A single property step, optionally indexed.
+	 */
+	protected static class PathStep {
+
+		private final String name;
+
+		private final int index;
+
+		private PathStep(String name, int index) {
+			this.name = name;
+			this.index = index;
+		}
+
+		/**
+		 * @param token the token to parse, e.g. "name" or "name[0]"
+		 * @return the step, or null if the token
+		 * uses syntax which is not supported.
+		 */
+		protected static PathStep parse(String token) {
+			int bracket = token.indexOf('[');
+			if (bracket < 0) {
+				return isPropertyName(token) ? new PathStep(token, -1) : null;
+			}
+			String name = token.substring(0, bracket);
+			if (!isPropertyName(name) || !token.endsWith("]") || bracket + 2 >= token.length()) {
+				return null;
+			}
+			int index = 0;
+			for (int i = bracket + 1; i < token.length() - 1; i++) {
+				char digit = token.charAt(i);
+				if (digit < '0' || digit > '9' || index > (Integer.MAX_VALUE - 9) / 10) {
+					return null;
+				}
+				index = index * 10 + (digit - '0');
+			}
+			return new PathStep(name, index);
+		}
+
+		private static boolean isPropertyName(String name) {
+			if (name.isEmpty()) {
+				return false;
+			}
+			for (int i = 0; i < name.length(); i++) {
+				if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.GenericTypeResolver;
+import org.springjutsu.validation.executors.RuleExecutor;
+
+/**
+ * Provides utility methods for inspecting rule executors.
+ */
+public class RuleExecutorUtils {
+
+	/**
+	 * Stands in for executors whose argument type could
+	 * not be resolved, since the cache can't hold nulls.
+	 */
+	private static final Class<?> UNRESOLVED_ARGUMENT_TYPE = UnresolvedArgumentType.class;
+
+	/**
+	 * Caches the resolved argument type by executor class.
+	 * Executor classes are few, and fixed once the application
+	 * has started, so there is no need to bound this cache.
+	 */
+	private static final Map<Class<?>, Class<?>> argumentTypeCache =
+		new ConcurrentHashMap<Class<?>, Class<?>>();
+
+	/**
+	 * Determines the argument type of the given executor, as specified by
+	 * its parameterization of @link{RuleExecutor}. Proxied executors
+	 * are resolved against their target class.
+	 * Resolution is done only once per executor class.
+	 * @param executor the executor to get the argument type for
+	 * @return the argument type, or null if it could not be resolved.
+	 */
+	public static Class<?> getArgumentType(RuleExecutor<?, ?> executor) {
+		Class<?> executorClass = AopUtils.getTargetClass(executor);
+		Class<?> argumentType = argumentTypeCache.get(executorClass);
+		if (argumentType == null) {
+			Class<?>[] parameterizedTypes =
+				GenericTypeResolver.resolveTypeArguments(executorClass, RuleExecutor.class);
+			argumentType = parameterizedTypes == null ? UNRESOLVED_ARGUMENT_TYPE : parameterizedTypes[1];
+			argumentTypeCache.put(executorClass, argumentType);
+		}
+		return argumentType == UNRESOLVED_ARGUMENT_TYPE ? null : argumentType;
+	}
+	
+	/**
+	 * Marker type for unresolved argument types.
+	 */
+	private static final class UnresolvedArgumentType {
+	}
+
+}
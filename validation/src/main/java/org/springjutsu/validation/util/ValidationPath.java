@@ -0,0 +1,324 @@
+/*
+ * Copyright 2010-2013 Duplichien, Wicksell, Springjutsu.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springjutsu.validation.util;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, period-delimited bean property path, such as
+ * "customers[2].address.city", held as an array of segments: each
+ * a property name, with any index following it, such as "[2]".
+ * Paths are parsed once, and then joined, compared and have their
+ * collection members substituted segment by segment, rather than
+ * by re-joining strings and running regular expressions over them.
+ * The string form and hash code are computed once per path, and
+ * the string form is only needed where a path leaves validation,
+ * as when reading a property or recording an error.
+ */
+public final class ValidationPath {
+
+	/**
+	 * The empty path, referring to the model itself.
+	 */
+	public static final ValidationPath EMPTY = new ValidationPath(new String[0], new String[0]);
+
+	/**
+	 * The property name of each segment.
+	 */
+	private final String[] properties;
+
+	/**
+	 * The index of each segment including brackets,
+	 * such as "[2]", or null where the segment has no index.
+	 */
+	private final String[] indexes;
+
+	/**
+	 * The string form, computed on first use.
+	 */
+	private String string;
+
+	/**
+	 * The hash code, computed on first use.
+	 */
+	private int hash;
+
+	private ValidationPath(String[] properties, String[] indexes) {
+		this.properties = properties;
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Parses the given path. As when joining paths with
+	 * @link{PathUtils#appendPath(String...)}, empty segments
+	 * are dropped, so "address..city." parses as "address.city".
+	 * Periods within an index, such as a map key, don't split segments.
+	 * @param path the path to parse, which must not contain EL
+	 * @return the parsed path, or the empty path for a null or blank path
+	 */
+	public static ValidationPath parse(String path) {
+		if (path == null) {
+			return EMPTY;
+		}
+		String trimmedPath = path.trim();
+		if (trimmedPath.isEmpty()) {
+			return EMPTY;
+		}
+		int segmentCount = 0;
+		String[] properties = new String[4];
+		String[] indexes = new String[4];
+		int segmentStart = 0;
+		int indexStart = -1;
+		int bracketDepth = 0;
+		for (int i = 0; i <= trimmedPath.length(); i++) {
+			char c = i < trimmedPath.length() ? trimmedPath.charAt(i) : '.';
+			if (c == '[') {
+				if (bracketDepth++ == 0 && indexStart < 0) {
+					indexStart = i;
+				}
+			} else if (c == ']') {
+				bracketDepth = Math.max(0, bracketDepth - 1);
+			} else if (c == '.' && (bracketDepth == 0 || i == trimmedPath.length())) {
+				if (i > segmentStart) {
+					if (segmentCount == properties.length) {
+						properties = Arrays.copyOf(properties, segmentCount * 2);
+						indexes = Arrays.copyOf(indexes, segmentCount * 2);
+					}
+					if (indexStart < 0) {
+						properties[segmentCount] = trimmedPath.substring(segmentStart, i);
+					} else {
+						properties[segmentCount] = trimmedPath.substring(segmentStart, indexStart);
+						indexes[segmentCount] = trimmedPath.substring(indexStart, i);
+					}
+					segmentCount++;
+				}
+				segmentStart = i + 1;
+				indexStart = -1;
+				bracketDepth = 0;
+			}
+		}
+		if (segmentCount == 0) {
+			return EMPTY;
+		}
+		return new ValidationPath(Arrays.copyOf(properties, segmentCount), Arrays.copyOf(indexes, segmentCount));
+	}
+
+	/**
+	 * @return the number of segments in this path.
+	 */
+	public int size() {
+		return properties.length;
+	}
+
+	/**
+	 * @return true if this is the empty path.
+	 */
+	public boolean isEmpty() {
+		return properties.length == 0;
+	}
+
+	/**
+	 * @param segment the segment number
+	 * @return the property name of the given segment, without any index.
+	 */
+	public String getProperty(int segment) {
+		return properties[segment];
+	}
+
+	/**
+	 * @param segment the segment number
+	 * @return the index of the given segment including brackets,
+	 * such as "[2]", or null if the segment has no index.
+	 */
+	public String getIndex(int segment) {
+		return indexes[segment];
+	}
+
+	/**
+	 * @param segment the segment number
+	 * @return the given segment, including any index.
+	 */
+	public String getSegment(int segment) {
+		return indexes[segment] == null ? properties[segment] : properties[segment] + indexes[segment];
+	}
+
+	/**
+	 * @param path the path to append
+	 * @return this path followed by the given path.
+	 */
+	public ValidationPath append(ValidationPath path) {
+		if (path.isEmpty()) {
+			return this;
+		} else if (isEmpty()) {
+			return path;
+		}
+		String[] appendedProperties = Arrays.copyOf(properties, properties.length + path.properties.length);
+		String[] appendedIndexes = Arrays.copyOf(indexes, indexes.length + path.indexes.length);
+		System.arraycopy(path.properties, 0, appendedProperties, properties.length, path.properties.length);
+		System.arraycopy(path.indexes, 0, appendedIndexes, indexes.length, path.indexes.length);
+		return new ValidationPath(appendedProperties, appendedIndexes);
+	}
+
+	/**
+	 * @param path the path to parse and append
+	 * @return this path followed by the given path.
+	 */
+	public ValidationPath append(String path) {
+		return append(parse(path));
+	}
+
+	/**
+	 * @param index the index to add
+	 * @return this path, with the given index added to its last segment,
+	 * as for the path of a member of the collection at this path.
+	 */
+	public ValidationPath appendIndex(int index) {
+		if (isEmpty()) {
+			throw new IllegalStateException("Cannot index the empty path");
+		}
+		String[] appendedIndexes = indexes.clone();
+		int last = indexes.length - 1;
+		appendedIndexes[last] = (indexes[last] == null ? "" : indexes[last]) + "[" + index + "]";
+		return new ValidationPath(properties, appendedIndexes);
+	}
+
+	/**
+	 * @param segments the segments to index, in any order
+	 * @param segmentIndexes the index to add to each of the given segments,
+	 * including brackets, such as "[2]" or "[key]"
+	 * @return this path, with each given index added to its segment,
+	 * as for the path of a member of nested collections on this path.
+	 */
+	public ValidationPath appendIndexes(int[] segments, String[] segmentIndexes) {
+		String[] appendedIndexes = indexes.clone();
+		for (int i = 0; i < segments.length; i++) {
+			int segment = segments[i];
+			appendedIndexes[segment] = 
+				indexes[segment] == null ? segmentIndexes[i] : indexes[segment] + segmentIndexes[i];
+		}
+		return new ValidationPath(properties, appendedIndexes);
+	}
+
+	/**
+	 * @return this path without any indexes, as for the
+	 * declared path a collection member is found on.
+	 */
+	public ValidationPath withoutIndexes() {
+		for (String index : indexes) {
+			if (index != null) {
+				return new ValidationPath(properties, new String[indexes.length]);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @param start the first segment, inclusive
+	 * @param end the last segment, exclusive
+	 * @return the path of the given segments.
+	 */
+	public ValidationPath subPath(int start, int end) {
+		if (start == 0 && end == properties.length) {
+			return this;
+		} else if (start == end) {
+			return EMPTY;
+		}
+		return new ValidationPath(Arrays.copyOfRange(properties, start, end), Arrays.copyOfRange(indexes, start, end));
+	}
+
+	/**
+	 * @param prefix the path to check for
+	 * @return true if this path starts with every segment of the given path.
+	 */
+	public boolean startsWith(ValidationPath prefix) {
+		if (prefix.properties.length > properties.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.properties.length; i++) {
+			if (!segmentEquals(this, i, prefix, i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param prefix a path this path starts with
+	 * @param replacement the path to replace it with
+	 * @return this path, starting with the replacement instead of the prefix,
+	 * or this path if it does not start with the prefix.
+	 */
+	public ValidationPath replacePrefix(ValidationPath prefix, ValidationPath replacement) {
+		if (!startsWith(prefix)) {
+			return this;
+		}
+		return replacement.append(subPath(prefix.properties.length, properties.length));
+	}
+
+	private static boolean segmentEquals(ValidationPath path, int segment, ValidationPath otherPath, int otherSegment) {
+		String index = path.indexes[segment];
+		String otherIndex = otherPath.indexes[otherSegment];
+		return path.properties[segment].equals(otherPath.properties[otherSegment])
+			&& (index == null ? otherIndex == null : index.equals(otherIndex));
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		} else if (!(other instanceof ValidationPath)) {
+			return false;
+		}
+		ValidationPath otherPath = (ValidationPath) other;
+		return properties.length == otherPath.properties.length
+			&& hashCode() == otherPath.hashCode() && startsWith(otherPath);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = hash;
+		if (result == 0 && !isEmpty()) {
+			result = 31 * Arrays.hashCode(properties) + Arrays.hashCode(indexes);
+			hash = result;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the period-delimited string form of this path.
+	 */
+	@Override
+	public String toString() {
+		String result = string;
+		if (result == null) {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < properties.length; i++) {
+				if (i > 0) {
+					builder.append('.');
+				}
+				builder.append(properties[i]);
+				if (indexes[i] != null) {
+					builder.append(indexes[i]);
+				}
+			}
+			result = builder.toString();
+			string = result;
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,107 @@
+package org.springjutsu.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springjutsu.validation.rules.CompiledValidationRule;
+import org.springjutsu.validation.rules.ValidationRule;
+import org.springjutsu.validation.test.entities.Address;
+import org.springjutsu.validation.test.entities.Customer;
+
+public class ValidationEvaluationContextTest {
+	
+	protected ValidationEvaluationContext createContext(Object model) {
+		return new ValidationEvaluationContext(model, 
+			new BeanPropertyBindingResult(model, "model"), new SimpleTypeConverter());
+	}
+	
+	@Test
+	public void testPushAndPopNestedPath() {
+		Customer customer = new Customer();
+		Address address = new Address();
+		customer.setAddress(address);
+		ValidationEvaluationContext context = createContext(customer);
+		assertSame(customer, context.getBeanAtNestedPath());
+		
+		assertSame(address, context.pushNestedPath("address"));
+		assertSame(address, context.getBeanAtNestedPath());
+		assertSame(address, context.getCurrentModel());
+		
+		context.popNestedPath();
+		assertSame(customer, context.getBeanAtNestedPath());
+		assertSame(customer, context.getCurrentModel());
+	}
+	
+	@Test
+	public void testForkHasItsOwnModelWrapper() {
+		Customer customer = new Customer();
+		ValidationEvaluationContext context = createContext(customer);
+		ValidationEvaluationContext fork = context.fork();
+		assertNotSame(context.getModelWrapper(), fork.getModelWrapper());
+		assertSame(customer, fork.getModelWrapper().getWrappedInstance());
+	}
+	
+	@Test
+	public void testPushNullNestedPath() {
+		ValidationEvaluationContext context = createContext(new Customer());
+		assertNull(context.pushNestedPath("address"));
+		assertNull(context.getBeanAtNestedPath());
+		assertNull(context.getCurrentModel());
+	}
+	
+	@Test
+	public void testLocalizePathRelativeToNestedModel() {
+		Customer customer = new Customer();
+		customer.setAddress(new Address());
+		ValidationEvaluationContext context = createContext(customer);
+		context.pushNestedPath("address");
+		assertEquals("city", context.localizeRelativePath("city"));
+		assertEquals("address.city", context.localizePath("city"));
+		assertEquals("address", context.getCurrentNestedPath());
+	}
+	
+	@Test
+	public void testResolvedValuesMemoizedAtPosition() {
+		CountingCustomer customer = new CountingCustomer();
+		customer.setFirstName("bob");
+		customer.setAddress(new Address());
+		ValidationEvaluationContext context = createContext(customer);
+		CompiledValidationRule pathRule = new CompiledValidationRule(
+			new ValidationRule("firstName", "required", null), null);
+		CompiledValidationRule elRule = new CompiledValidationRule(
+			new ValidationRule("lastName", "matches", "${model.firstName}!"), null);
+		
+		// test sibling rules reading the same path or EL read it once.
+		assertEquals("bob", context.resolveRuleModel(pathRule));
+		assertEquals("bob", context.resolveRuleModel(pathRule));
+		assertEquals(1, customer.firstNameReads);
+		assertEquals("bob!", context.resolveRuleArgument(elRule));
+		assertEquals("bob!", context.resolveRuleArgument(elRule));
+		assertEquals(2, customer.firstNameReads);
+		
+		// test values are read again once the position changes.
+		context.pushNestedPath("address");
+		context.popNestedPath();
+		assertEquals("bob", context.resolveRuleModel(pathRule));
+		assertEquals("bob!", context.resolveRuleArgument(elRule));
+		assertEquals(4, customer.firstNameReads);
+	}
+	
+	protected static class CountingCustomer extends Customer {
+		
+		protected int firstNameReads = 0;
+		
+		@Override
+		public String getFirstName() {
+			firstNameReads++;
+			return super.getFirstName();
+		}
+		
+	}
+
+}
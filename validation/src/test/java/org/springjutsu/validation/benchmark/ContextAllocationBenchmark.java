@@ -0,0 +1,107 @@
+package org.springjutsu.validation.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springjutsu.validation.ValidationEvaluationContext;
+import org.springjutsu.validation.ValidationManager;
+import org.springjutsu.validation.test.entities.Customer;
+
+/**
+ * Measures the bytes allocated per validate call, now that each thread
+ * reuses an idle evaluation context, and builds its SPEL resolver only
+ * for validations which use EL, against the bytes it takes to build
+ * the context and SPEL resolver each validate call used to allocate.
+ * Needs a JVM which reports allocated bytes per thread.
+ * Not run as part of the build; run on demand with:
+ * mvn test -Dtest=ContextAllocationBenchmark
+ */
+public class ContextAllocationBenchmark {
+
+	private static final int VALIDATIONS = 20000;
+
+	private static final String XML_DIRECTORY = "org/springjutsu/validation/integration/";
+
+	@Test
+	public void benchmarkAllocationPerValidation() {
+		com.sun.management.ThreadMXBean threadBean = getThreadBean();
+		Assume.assumeNotNull(threadBean);
+		// debug logging, as configured for tests, would swamp the measurements.
+		Logger logger = Logger.getLogger("org.springjutsu");
+		Level level = logger.getLevel();
+		logger.setLevel(Level.INFO);
+		try {
+			run(threadBean);
+		} finally {
+			logger.setLevel(level);
+		}
+	}
+
+	protected void run(com.sun.management.ThreadMXBean threadBean) {
+		Customer customer = new Customer();
+		customer.setFirstName("bob");
+		customer.setLastName("bob");
+		customer.setEmailAddress("bob@bob.bob");
+
+		long start = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for (int i = 0; i < VALIDATIONS; i++) {
+			new ValidationEvaluationContext(customer, new BeanPropertyBindingResult(customer, "validationTarget"),
+				new SimpleTypeConverter()).getSpelResolver();
+		}
+		long contextBytes = (threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start) / VALIDATIONS;
+
+		long plainBytes = measure(threadBean, "basicRuleIntegrationTest/testBasicRules.xml", customer, 0);
+
+		Customer referrer = new Customer();
+		referrer.setFirstName("bob");
+		referrer.setMiddleName("bob");
+		referrer.setLastName("bob");
+		referrer.setEmailAddress("bob@bob.bob");
+		customer.setMiddleName("bob");
+		customer.setReferredBy(referrer);
+		long elBytes = measure(threadBean, "elIntegrationTest/testCurrentModelAccess.xml", customer, 0);
+
+		System.out.println(String.format("bytes allocated: building a context and SPEL resolver %d, "
+			+ "validate call with plain rules %d, validate call with EL rules %d", contextBytes, plainBytes, elBytes));
+	}
+
+	protected long measure(com.sun.management.ThreadMXBean threadBean, String configXml, Object model, int expectedErrors) {
+		ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(XML_DIRECTORY + configXml);
+		try {
+			ValidationManager manager = context.getBean(ValidationManager.class);
+			// warm up, so that caches are filled and an idle context is kept.
+			for (int i = 0; i < VALIDATIONS; i++) {
+				assertEquals(expectedErrors, manager.validate(model).getErrorCount());
+			}
+			long start = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			for (int i = 0; i < VALIDATIONS; i++) {
+				manager.validate(model);
+			}
+			return (threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start) / VALIDATIONS;
+		} finally {
+			context.close();
+		}
+	}
+
+	protected com.sun.management.ThreadMXBean getThreadBean() {
+		try {
+			java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+			if (threadBean instanceof com.sun.management.ThreadMXBean
+					&& ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+				return (com.sun.management.ThreadMXBean) threadBean;
+			}
+		} catch (LinkageError le) {
+			// not a HotSpot JVM.
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,192 @@
+package org.springjutsu.validation.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Stack;
+
+import org.junit.Test;
+import org.springjutsu.validation.util.PathScopedIdentitySet;
+
+/**
+ * Compares the cycle detection used during recursive sub bean validation
+ * against the copied hash code lists it replaced, over cyclic graphs of
+ * 10k+ nodes. Not run as part of the build; run on demand with:
+ * mvn test -Dtest=CycleDetectionBenchmark
+ */
+public class CycleDetectionBenchmark {
+
+	private static final int NODE_COUNT = 10000;
+
+	private static final int ITERATIONS = 3;
+
+	@Test
+	public void benchmarkDeepChain() {
+		// Every node references the next, and the last references the first.
+		List<Node> nodes = new ArrayList<Node>();
+		for (int i = 0; i < NODE_COUNT; i++) {
+			nodes.add(new Node());
+		}
+		for (int i = 0; i < NODE_COUNT; i++) {
+			nodes.get(i).references.add(nodes.get((i + 1) % NODE_COUNT));
+		}
+		run("deep chain", nodes.get(0));
+	}
+
+	@Test
+	public void benchmarkWideTreeWithBackReferences() {
+		// Every node references its children and its parent,
+		// and one in ten nodes also references the root.
+		Random random = new Random(42);
+		List<Node> nodes = new ArrayList<Node>();
+		nodes.add(new Node());
+		for (int i = 1; i < NODE_COUNT; i++) {
+			Node parent = nodes.get(random.nextInt(nodes.size()));
+			Node child = new Node();
+			parent.references.add(child);
+			child.references.add(parent);
+			if (random.nextInt(10) == 0) {
+				child.references.add(nodes.get(0));
+			}
+			nodes.add(child);
+		}
+		run("wide tree", nodes.get(0));
+	}
+
+	protected void run(String graphName, Node root) {
+		int legacyVisits = 0;
+		int identityVisits = 0;
+		long legacyTime = 0;
+		long identityTime = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+			legacyVisits = new LegacyHashListTraversal().traverse(root);
+			legacyTime += System.nanoTime() - start;
+			start = System.nanoTime();
+			identityVisits = new IdentitySetTraversal().traverse(root);
+			identityTime += System.nanoTime() - start;
+		}
+		assertEquals(legacyVisits, identityVisits);
+		System.out.println(String.format("%s, %d nodes, %d visits: copied hash lists %d ms, path scoped identity set %d ms",
+			graphName, NODE_COUNT, identityVisits, legacyTime / ITERATIONS / 1000000, identityTime / ITERATIONS / 1000000));
+	}
+
+	/**
+	 * A model object with a deliberately costly hashCode,
+	 * as is common on JPA entities.
+	 */
+	protected static class Node {
+
+		private static int nextId = 0;
+
+		protected List<Node> references = new ArrayList<Node>();
+
+		protected int id = nextId++;
+
+		@Override
+		public int hashCode() {
+			int hash = id;
+			for (int i = 0; i < 50; i++) {
+				hash = 31 * hash + i;
+			}
+			return hash;
+		}
+
+	}
+
+	/**
+	 * Walks the graph as recursive sub bean validation does,
+	 * iteratively to avoid overflowing the stack on deep graphs.
+	 */
+	protected static abstract class Traversal {
+
+		protected int traverse(Node root) {
+			int visits = 0;
+			Stack<Node> pending = new Stack<Node>();
+			Stack<Integer> pendingDepth = new Stack<Integer>();
+			pending.push(root);
+			pendingDepth.push(0);
+			int depth = 0;
+			while (!pending.isEmpty()) {
+				Node node = pending.pop();
+				int nodeDepth = pendingDepth.pop();
+				while (depth > nodeDepth) {
+					pop();
+					depth--;
+				}
+				push();
+				depth++;
+				if (previouslyValidated(node)) {
+					continue;
+				}
+				markValidated(node);
+				visits++;
+				for (Node reference : node.references) {
+					pending.push(reference);
+					pendingDepth.push(depth);
+				}
+			}
+			return visits;
+		}
+
+		protected abstract void push();
+
+		protected abstract void pop();
+
+		protected abstract boolean previouslyValidated(Node node);
+
+		protected abstract void markValidated(Node node);
+
+	}
+
+	protected static class LegacyHashListTraversal extends Traversal {
+
+		private Stack<List<Integer>> checkedModelHashes = new Stack<List<Integer>>();
+
+		{
+			checkedModelHashes.push(new ArrayList<Integer>());
+		}
+
+		protected void push() {
+			checkedModelHashes.push(new ArrayList<Integer>(checkedModelHashes.peek()));
+		}
+
+		protected void pop() {
+			checkedModelHashes.pop();
+		}
+
+		protected boolean previouslyValidated(Node node) {
+			return checkedModelHashes.peek().contains(node.hashCode());
+		}
+
+		protected void markValidated(Node node) {
+			checkedModelHashes.peek().add(node.hashCode());
+		}
+
+	}
+
+	protected static class IdentitySetTraversal extends Traversal {
+
+		private PathScopedIdentitySet checkedModels = new PathScopedIdentitySet();
+
+		protected void push() {
+			checkedModels.push();
+		}
+
+		protected void pop() {
+			checkedModels.pop();
+		}
+
+		protected boolean previouslyValidated(Node node) {
+			return checkedModels.contains(node);
+		}
+
+		protected void markValidated(Node node) {
+			checkedModels.add(node);
+		}
+
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.springjutsu.validation.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springjutsu.validation.spel.SPELResolver;
+import org.springjutsu.validation.test.entities.Customer;
+
+/**
+ * Compares resolving absent properties, such as missing optional request
+ * parameters, in the null tolerant evaluation context against the caught
+ * exceptions it replaced. Not run as part of the build; run on demand with:
+ * mvn test -Dtest=MissingPropertyBenchmark
+ */
+public class MissingPropertyBenchmark {
+
+	private static final int EVALUATIONS = 200000;
+
+	private static final int ITERATIONS = 3;
+
+	private static final String[] EXPRESSIONS = {
+		"${requestParameters.orderId}", 
+		"${requestParameters.couponCode}", 
+		"${model.firstName}", 
+		"${requestParameters.page}"
+	};
+
+	@Test
+	public void benchmarkAbsentRequestParameters() {
+		long exceptionTime = 0;
+		long nullTolerantTime = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			exceptionTime += run(false);
+			nullTolerantTime += run(true);
+		}
+		System.out.println(String.format("%d evaluations, half absent: caught exceptions %d ms, null tolerant context %d ms",
+			EVALUATIONS, exceptionTime / ITERATIONS / 1000000, nullTolerantTime / ITERATIONS / 1000000));
+	}
+
+	protected long run(boolean nullTolerant) {
+		Customer customer = new Customer();
+		customer.setFirstName("bob");
+		Map<String, String> requestParameters = new HashMap<String, String>();
+		requestParameters.put("page", "1");
+		SPELResolver resolver = new SPELResolver(customer, new SimpleTypeConverter());
+		resolver.getScopedContext().addContext("requestParameters", requestParameters);
+		resolver.getScopedContext().setNullTolerant(nullTolerant);
+		long start = System.nanoTime();
+		for (int i = 0; i < EVALUATIONS; i++) {
+			String expression = EXPRESSIONS[i % EXPRESSIONS.length];
+			Object result = resolver.resolveSPELString(expression);
+			if (i % EXPRESSIONS.length < 2) {
+				assertNull(result);
+			} else {
+				assertEquals(i % EXPRESSIONS.length == 2 ? "bob" : "1", result);
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+}
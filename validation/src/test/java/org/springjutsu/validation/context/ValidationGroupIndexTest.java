@@ -0,0 +1,39 @@
+package org.springjutsu.validation.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.Test;
+import org.springjutsu.validation.ValidationOptions;
+import org.springjutsu.validation.test.entities.Customer;
+
+public class ValidationGroupIndexTest {
+
+	@Test
+	public void testHintBitsMatchGroupBits() {
+		ValidationGroupIndex index = new ValidationGroupIndex();
+		BitSet customerGroup = index.getGroupBits(Arrays.asList(Customer.class.getCanonicalName()));
+		BitSet adminGroups = index.getGroupBits(Arrays.asList("admin", "superuser"));
+		assertEquals(3, index.size());
+		assertEquals(customerGroup, index.getGroupBits(Arrays.asList(Customer.class.getCanonicalName())));
+
+		BitSet hintBits = index.getHintBits(new Object[] {Customer.class, new ValidationOptions(), "unknown"});
+		assertTrue(customerGroup.intersects(hintBits));
+		assertFalse(adminGroups.intersects(hintBits));
+		assertTrue(adminGroups.intersects(index.getHintBits(new Object[] {"superuser"})));
+		assertTrue(index.getHintBits(new Object[] {"unknown"}).isEmpty());
+		assertTrue(adminGroups.intersects(index.getHintBits(new Object[] {new StringBuilder("admin")})));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testGroupName() {
+		assertEquals(Customer.class.getCanonicalName(), ValidationGroupIndex.getGroupName(Customer.class));
+		assertEquals("admin", ValidationGroupIndex.getGroupName("admin"));
+	}
+
+}
@@ -110,6 +110,17 @@ public class ValidationRuleBuilderTest {
 	
 	}
 	
+	@Test
+	public void testWithShortCircuitPaths()
+	{
+		ValidationEntity entity = Validation.forEntity(Person.class)
+				.withShortCircuitPaths(true)
+				.build();
+		
+		Assert.assertEquals(Boolean.TRUE, entity.getShortCircuitPaths());
+		Assert.assertNull(Validation.forEntity(Person.class).build().getShortCircuitPaths());
+	}
+	
 
 }
 
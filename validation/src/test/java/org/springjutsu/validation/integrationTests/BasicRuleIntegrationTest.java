@@ -1,13 +1,26 @@
 package org.springjutsu.validation.integrationTests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 import org.junit.Test;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.MessageSource;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.validation.Errors;
+import org.springjutsu.validation.ValidationManager;
+import org.springjutsu.validation.ValidationOptions;
 import org.springjutsu.validation.test.entities.Customer;
+import org.springjutsu.validation.test.entities.ValuedCustomer;
 
 public class BasicRuleIntegrationTest extends ValidationIntegrationTest {
 	
@@ -69,5 +82,132 @@ public class BasicRuleIntegrationTest extends ValidationIntegrationTest {
 		assertEquals(1, errors.getErrorCount());
 		assertEquals("messageOverride.errors.proxyMe", errors.getFieldError("firstName").getCode());
 	}
-
+	
+	@Test
+	public void testValidateAll() {
+		ValidationManager manager = getValidationManager("testBasicRules.xml");
+		Customer namedCustomer = new Customer();
+		namedCustomer.setFirstName("bob");
+		namedCustomer.setLastName("joe");
+		Customer completeCustomer = new Customer();
+		completeCustomer.setFirstName("bob");
+		completeCustomer.setLastName("joe");
+		completeCustomer.setEmailAddress("bob@joe.com");
+		
+		List<Errors> results = manager.validateAll(
+			Arrays.asList(new Customer(), namedCustomer, null, completeCustomer));
+		assertEquals(4, results.size());
+		assertEquals(3, results.get(0).getErrorCount());
+		assertEquals(1, results.get(1).getErrorCount());
+		assertEquals("messageOverride.errors.required", results.get(1).getFieldError("emailAddress").getCode());
+		assertEquals(0, results.get(2).getErrorCount());
+		assertEquals(0, results.get(3).getErrorCount());
+	}
+	
+	@Test
+	public void testValidateAllFromStream() {
+		ValidationManager manager = getValidationManager("testBasicRules.xml");
+		Customer completeCustomer = new Customer();
+		completeCustomer.setFirstName("bob");
+		completeCustomer.setLastName("joe");
+		completeCustomer.setEmailAddress("bob@joe.com");
+		
+		List<Errors> results = manager.validateAll(Stream.of(new Customer(), completeCustomer));
+		assertEquals(2, results.size());
+		assertEquals(3, results.get(0).getErrorCount());
+		assertEquals(0, results.get(1).getErrorCount());
+		
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			results = manager.validateAll(Stream.of(new Customer(), completeCustomer), executor);
+			assertEquals(3, results.get(0).getErrorCount());
+			assertEquals(0, results.get(1).getErrorCount());
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testValidateAllOnExecutor() {
+		ValidationManager manager = getValidationManager("testBasicRules.xml");
+		List<Customer> customers = new ArrayList<Customer>();
+		for (int i = 0; i < ValidationManager.BATCH_CHUNK_SIZE * 3 + 1; i++) {
+			Customer customer = new Customer();
+			if (i % 2 == 0) {
+				customer.setFirstName("first" + i);
+			}
+			if (i % 3 == 0) {
+				customer.setLastName("last" + i);
+			}
+			customers.add(customer);
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			List<Errors> results = manager.validateAll(customers, executor);
+			assertEquals(customers.size(), results.size());
+			for (int i = 0; i < customers.size(); i++) {
+				Errors expected = manager.validate(customers.get(i));
+				assertEquals(expected.getFieldErrors().toString(), results.get(i).getFieldErrors().toString());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testFailFast() {
+		ValidationManager manager = getValidationManager("testBasicRules.xml");
+		Errors errors = manager.validate(new Customer(), ValidationOptions.failFast());
+		assertEquals(1, errors.getErrorCount());
+		assertEquals("messageOverride.errors.required", errors.getFieldError("firstName").getCode());
+		
+		errors = manager.validate(new Customer(), ValidationOptions.maxErrors(2));
+		assertEquals(2, errors.getErrorCount());
+		assertEquals("messageOverride.errors.required", errors.getFieldError("firstName").getCode());
+		assertEquals("messageOverride.errors.required", errors.getFieldError("lastName").getCode());
+	}
+	
+	@Test
+	public void testShortCircuitPaths() {
+		ValidationManager manager = getValidationManager("testShortCircuitPaths.xml");
+		assertTrue(manager.isShortCircuitPaths());
+		Customer customer = new Customer();
+		customer.setFirstName("1");
+		customer.setLastName("2");
+		Errors errors = manager.validate(customer);
+		assertEquals(2, errors.getErrorCount());
+		assertEquals("messageOverride.errors.alphabetic", errors.getFieldError("firstName").getCode());
+		assertEquals("messageOverride.errors.alphabetic", errors.getFieldError("lastName").getCode());
+		
+		// the entity setting overrides the configured default.
+		ValuedCustomer valuedCustomer = new ValuedCustomer();
+		valuedCustomer.setFirstName("1");
+		valuedCustomer.setLastName("2");
+		assertEquals(4, manager.validate(valuedCustomer).getErrorCount());
+		
+		manager.setShortCircuitPaths(false);
+		assertEquals(4, manager.validate(customer).getErrorCount());
+	}
+	
+	@Test
+	public void testValidatePaths() {
+		ValidationManager manager = getValidationManager("testBasicRules.xml");
+		Errors errors = manager.validatePath(new Customer(), "firstName");
+		assertEquals(1, errors.getErrorCount());
+		assertEquals("messageOverride.errors.required", errors.getFieldError("firstName").getCode());
+		
+		errors = manager.validatePaths(new Customer(), new HashSet<String>(Arrays.asList("lastName", "emailAddress")));
+		assertEquals(2, errors.getErrorCount());
+		assertEquals("messageOverride.errors.required", errors.getFieldError("lastName").getCode());
+		assertEquals("messageOverride.errors.required", errors.getFieldError("emailAddress").getCode());
+		
+		assertEquals(0, manager.validatePath(new Customer(), "address").getErrorCount());
+	}
+	
+	protected ValidationManager getValidationManager(String configXml) {
+		ApplicationContext context = new ClassPathXmlApplicationContext(
+			xmlDirectory + getXmlSubdirectory() + "/" + configXml);
+		return context.getBean(ValidationManager.class);
+	}
 }
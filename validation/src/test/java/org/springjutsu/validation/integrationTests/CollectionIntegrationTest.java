@@ -1,11 +1,23 @@
 package org.springjutsu.validation.integrationTests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springjutsu.validation.ValidationManager;
+import org.springjutsu.validation.ValidationOptions;
+import org.springjutsu.validation.test.entities.Address;
 import org.springjutsu.validation.test.entities.Company;
 import org.springjutsu.validation.test.entities.Customer;
 
@@ -230,4 +242,99 @@ public class CollectionIntegrationTest extends ValidationIntegrationTest {
 		assertEquals("messageOverride.errors.required", errors.getFieldError("acquisitions").getCode());
 	}
 
+	@Test
+	public void testCollectionValidationWithErrorLimits() {
+		Company company = createCompany();
+		ApplicationContext context = new ClassPathXmlApplicationContext(
+			xmlDirectory + getXmlSubdirectory() + "/testParallelCollectionValidation.xml");
+		ValidationManager manager = context.getBean(ValidationManager.class);
+		List<String> allErrors = describeErrors(manager.validate(company));
+		
+		assertEquals(allErrors.subList(0, 1), 
+			describeErrors(manager.validate(company, ValidationOptions.failFast())));
+		assertEquals(allErrors.subList(0, 5), 
+			describeErrors(manager.validate(company, ValidationOptions.maxErrors(5))));
+		
+		// one error for the company, and one for each customer.
+		List<String> entityLimitedErrors = 
+			describeErrors(manager.validate(company, ValidationOptions.maxErrorsPerEntity(1)));
+		assertEquals(501, entityLimitedErrors.size());
+		assertTrue(entityLimitedErrors.get(0).startsWith("customers[0].firstName:"));
+		assertTrue(entityLimitedErrors.get(1).startsWith("customers[0].lastName:"));
+		assertTrue(entityLimitedErrors.get(2).startsWith("customers[1].address.city:"));
+	}
+	
+	@Test
+	public void testValidateCollectionPaths() {
+		Company company = createCompany();
+		ApplicationContext context = new ClassPathXmlApplicationContext(
+			xmlDirectory + getXmlSubdirectory() + "/testParallelCollectionValidation.xml");
+		ValidationManager manager = context.getBean(ValidationManager.class);
+		
+		Errors errors = manager.validatePath(company, "customers[3].firstName");
+		assertEquals(1, errors.getErrorCount());
+		assertNotNull(errors.getFieldError("customers[3].firstName"));
+		
+		assertEquals(167, manager.validatePath(company, "customers.firstName").getErrorCount());
+		
+		errors = manager.validatePath(company, "customers[0].address");
+		assertEquals(1, errors.getErrorCount());
+		assertNotNull(errors.getFieldError("customers[0].address.city"));
+	}
+	
+	@Test
+	public void testParallelCollectionValidationMatchesSequential() {
+		Company company = createCompany();
+		
+		ApplicationContext context = new ClassPathXmlApplicationContext(
+			xmlDirectory + getXmlSubdirectory() + "/testParallelCollectionValidation.xml");
+		ValidationManager manager = context.getBean(ValidationManager.class);
+		assertEquals(10, manager.getParallelCollectionThreshold());
+		assertEquals(4, manager.getParallelism());
+		List<String> parallelErrors = describeErrors(manager.validate(company));
+		
+		manager.setParallelCollectionThreshold(0);
+		List<String> sequentialErrors = describeErrors(manager.validate(company));
+		
+		assertEquals(167 + 100 + 500, sequentialErrors.size());
+		assertEquals(sequentialErrors, parallelErrors);
+		
+		manager.setParallelCollectionThreshold(10);
+		manager.setParallelism(0);
+		assertEquals(sequentialErrors, describeErrors(manager.validate(company)));
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			manager.setCollectionPool(pool);
+			assertEquals(sequentialErrors, describeErrors(manager.validate(company)));
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	protected Company createCompany() {
+		Company company = new Company();
+		for (int i = 0; i < 500; i++) {
+			Customer customer = new Customer();
+			if (i % 3 != 0) {
+				customer.setFirstName("first" + i);
+			}
+			if (i % 5 != 0) {
+				customer.setLastName("last" + i);
+			}
+			if (i % 7 != 0) {
+				customer.setAddress(new Address());
+			}
+			company.getCustomers().add(customer);
+		}
+		return company;
+	}
+	
+	protected List<String> describeErrors(Errors errors) {
+		List<String> descriptions = new ArrayList<String>();
+		for (FieldError error : errors.getFieldErrors()) {
+			descriptions.add(error.getField() + ":" + error.getCode() + ":" + error.getDefaultMessage());
+		}
+		return descriptions;
+	}
+
 }
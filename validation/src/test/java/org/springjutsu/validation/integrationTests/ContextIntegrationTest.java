@@ -3,7 +3,10 @@ package org.springjutsu.validation.integrationTests;
 import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.validation.Errors;
+import org.springjutsu.validation.ValidationManager;
 import org.springjutsu.validation.test.entities.Customer;
 
 public class ContextIntegrationTest extends ValidationIntegrationTest {
@@ -63,6 +66,26 @@ public class ContextIntegrationTest extends ValidationIntegrationTest {
 		assertEquals("messageOverride.errors.required", errors.getFieldError("firstName").getCode());
 	}
 
+	@Test
+	public void testContextScopesRestoredAfterContext() {
+		ApplicationContext context = new ClassPathXmlApplicationContext(
+			xmlDirectory + getXmlSubdirectory() + "/testContextScopesRestoredAfterContext.xml");
+		ValidationManager manager = context.getBean(ValidationManager.class);
+		Customer customer = new Customer();
+		customer.setFirstName("Bob");
+		customer.setLastName("Bob");
+		customer.setCopayer(new Customer());
+		customer.getCopayer().setFirstName("Joe");
+		customer.getCopayer().setLastName("Joe");
+		// validate more than once, so that reused evaluation contexts are checked too.
+		for (int i = 0; i < 3; i++) {
+			Errors errors = manager.validate(customer);
+			assertEquals(2, errors.getErrorCount());
+			assertEquals("messageOverride.errors.matches", errors.getFieldError("emailAddress").getCode());
+			assertEquals("messageOverride.errors.matches", errors.getFieldError("copayer.emailAddress").getCode());
+		}
+	}
+
 	public static class AlwaysActiveTestNameContextHandler extends TestNameContextHandler {
 
 		@Override
@@ -9,6 +9,10 @@ import org.springjutsu.validation.test.entities.ValuedCustomer;
 
 public class ValidationGroupsIntegrationTest extends ValidationIntegrationTest {
 	
+	public enum GroupMarker {
+		matchingGroupName
+	}
+	
 	@Override
 	protected String getXmlSubdirectory() {
 		return "validationGroupsIntegrationTest";
@@ -34,6 +38,16 @@ public class ValidationGroupsIntegrationTest extends ValidationIntegrationTest {
 		assertEquals("messageOverride.errors.required", errors.getFieldError("firstName").getCode());
 	}
 	
+	@Test
+	public void testGroupActivationByEnum() {
+		Customer customer = new Customer();
+		Errors errors = doValidate("testGroupActivationByEnum.xml", customer, 
+				new Object[]{GroupMarker.matchingGroupName}).errors;
+		assertEquals(2, errors.getErrorCount());
+		assertEquals("messageOverride.errors.required", errors.getFieldError("emailAddress").getCode());
+		assertEquals("messageOverride.errors.required", errors.getFieldError("firstName").getCode());
+	}
+	
 	@Test
 	public void testGroupActivationWithMultipleQualifiers() {
 		Customer customer = new Customer();
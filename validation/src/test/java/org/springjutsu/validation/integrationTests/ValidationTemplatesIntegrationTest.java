@@ -3,11 +3,12 @@ package org.springjutsu.validation.integrationTests;
 import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.validation.Errors;
 import org.springjutsu.validation.exceptions.CircularValidationTemplateReferenceException;
 import org.springjutsu.validation.exceptions.IllegalTemplateReferenceException;
 import org.springjutsu.validation.test.entities.Address;
-import org.springjutsu.validation.test.entities.Color;
 import org.springjutsu.validation.test.entities.Customer;
 
 public class ValidationTemplatesIntegrationTest extends ValidationIntegrationTest {
@@ -30,21 +31,12 @@ public class ValidationTemplatesIntegrationTest extends ValidationIntegrationTes
 	
 	@Test(expected=CircularValidationTemplateReferenceException.class)
 	public void testValidationTemplatesWithBasicIllegalRecursion() {
-		setCurrentFormPath("/foo/new");
-		Customer customer = new Customer();
-		doValidate("testValidationTemplatesWithBasicIllegalRecursion.xml", customer);
+		loadConfiguration("testValidationTemplatesWithBasicIllegalRecursion.xml");
 	}
 	
 	@Test(expected=CircularValidationTemplateReferenceException.class)
 	public void testValidationTemplatesWithComplexIllegalRecursion() {
-		setCurrentFormPath("/foo/new");
-		Customer customer = new Customer();
-		customer.setFavoriteColor(Color.GREEN);
-		customer.setAddress(new Address());
-		customer.getAddress().setLineOne("555 Some road");
-		customer.getAddress().setLineTwo("Fourth building on the left");
-		customer.getAddress().setZipCode("55555");
-		doValidate("testValidationTemplatesWithComplexIllegalRecursion.xml", customer);
+		loadConfiguration("testValidationTemplatesWithComplexIllegalRecursion.xml");
 	}
 	
 	@Test
@@ -145,10 +137,23 @@ public class ValidationTemplatesIntegrationTest extends ValidationIntegrationTes
 	
 	@Test(expected=IllegalTemplateReferenceException.class)
 	public void testValidationTemplatesWithWrongClassForTemplate() {
-		setCurrentFormPath("/foo/new");
-		Customer customer = new Customer();
-		customer.setFavoriteColor(Color.GREEN);
-		doValidate("testValidationTemplatesWithWrongClassForTemplate.xml", customer);
+		loadConfiguration("testValidationTemplatesWithWrongClassForTemplate.xml");
+	}
+	
+	/**
+	 * Template references are checked on container startup, so
+	 * loads the given configuration, rethrowing the exception 
+	 * which failed startup of the validation rules container.
+	 */
+	protected void loadConfiguration(String configXml) {
+		try {
+			new ClassPathXmlApplicationContext(xmlDirectory + getXmlSubdirectory() + "/" + configXml).close();
+		} catch (BeanCreationException bce) {
+			if (bce.getMostSpecificCause() instanceof RuntimeException) {
+				throw (RuntimeException) bce.getMostSpecificCause();
+			}
+			throw bce;
+		}
 	}
 
 }
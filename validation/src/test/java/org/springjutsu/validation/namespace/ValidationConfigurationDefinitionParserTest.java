@@ -63,6 +63,16 @@ public class ValidationConfigurationDefinitionParserTest {
 		assertEquals("testFieldLabelPrefix.", errorMessageHandler.getFieldLabelPrefix());
 	}
 
+	/**
+	 * Ensure execution-config settings are set accordingly.
+	 */
+	@Test
+	public void testExecutionConfiguration() {
+		assertEquals(100, validationManager.getParallelCollectionThreshold());
+		assertEquals(4, validationManager.getParallelism());
+		assertTrue(validationManager.isShortCircuitPaths());
+	}
+
 	/**
 	 * Ensure a rules container has been registered.
 	 */
@@ -0,0 +1,42 @@
+package org.springjutsu.validation.rules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springjutsu.validation.context.ValidationGroupContextHandler;
+import org.springjutsu.validation.context.ValidationGroupIndex;
+
+public class CompiledRuleHolderTest {
+
+	@Test
+	public void testValidationContextsForActiveGroups() {
+		ValidationGroupIndex index = new ValidationGroupIndex();
+		CompiledValidationContext adminContext = new CompiledValidationContext(
+			new ValidationContext(), new ValidationGroupContextHandler());
+		adminContext.setGroupBits(index.getGroupBits(Collections.singleton("admin")));
+		CompiledValidationContext userContext = new CompiledValidationContext(
+			new ValidationContext(), new ValidationGroupContextHandler());
+		userContext.setGroupBits(index.getGroupBits(Collections.singleton("user")));
+		CompiledValidationContext formContext = new CompiledValidationContext(new ValidationContext(), null);
+
+		CompiledRuleHolder ruleHolder = new CompiledRuleHolder();
+		ruleHolder.setValidationContexts(Arrays.asList(adminContext, formContext, userContext));
+		BitSet userHint = index.getHintBits(new Object[] {"user"});
+		assertEquals(Arrays.asList(formContext, userContext), ruleHolder.getValidationContexts(userHint));
+		assertSame(ruleHolder.getValidationContexts(userHint), 
+			ruleHolder.getValidationContexts(index.getHintBits(new Object[] {"user"})));
+		assertEquals(Arrays.asList(formContext), ruleHolder.getValidationContexts(new BitSet()));
+		assertEquals(Arrays.asList(adminContext, formContext, userContext), 
+			ruleHolder.getValidationContexts(index.getHintBits(new Object[] {"admin", "user"})));
+
+		CompiledRuleHolder groupless = new CompiledRuleHolder();
+		groupless.setValidationContexts(Arrays.asList(formContext));
+		assertSame(groupless.getValidationContexts(), groupless.getValidationContexts(userHint));
+	}
+
+}
@@ -3,9 +3,12 @@ package org.springjutsu.validation.rules;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Before;
@@ -15,6 +18,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springjutsu.validation.context.ValidationContextHandlerContainer;
+import org.springjutsu.validation.executors.RuleExecutorContainer;
+import org.springjutsu.validation.executors.impl.MatchesRuleExecutor;
+import org.springjutsu.validation.executors.impl.MaxLengthRuleExecutor;
+import org.springjutsu.validation.executors.impl.RequiredRuleExecutor;
+import org.springjutsu.validation.test.entities.Address;
+import org.springjutsu.validation.test.entities.Customer;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ValidationRulesContainerTest {
@@ -25,9 +35,17 @@ public class ValidationRulesContainerTest {
 	@Mock
 	ValidationRule validationRule;
 	
+	@Mock
+	RuleExecutorContainer ruleExecutorContainer;
+	
+	@Mock
+	ValidationContextHandlerContainer contextHandlerContainer;
+	
 	@InjectMocks
 	ValidationRulesContainer container = new ValidationRulesContainer();
 	
+	RequiredRuleExecutor requiredRuleExecutor = new RequiredRuleExecutor();
+	
 	@Before
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public void setup() {
@@ -39,6 +57,8 @@ public class ValidationRulesContainerTest {
 		
 		Mockito.when(validationEntity.getValidationClass()).thenReturn((Class) List.class);
 		Mockito.when(validationEntity.getRules()).thenReturn(rules);
+		Mockito.when(validationRule.getType()).thenReturn("required");
+		Mockito.when((Object) ruleExecutorContainer.getRuleExecutorByName("required")).thenReturn(requiredRuleExecutor);
 		
 		container.setValidationEntities(entityList);
 		container.initializeValdationEntities();
@@ -61,4 +81,147 @@ public class ValidationRulesContainerTest {
 		assertFalse(container.supportsClass(String.class));
 	}
 
+	@Test
+	public void testGetCompiledValidationEntity() {
+		CompiledValidationEntity compiledEntity = container.getCompiledValidationEntity(List.class);
+		assertSame(validationEntity, compiledEntity.getValidationEntity());
+		assertEquals(1, compiledEntity.getRules().size());
+		assertSame(validationRule, compiledEntity.getRules().get(0).getRule());
+		assertSame(requiredRuleExecutor, compiledEntity.getRules().get(0).getRuleExecutor());
+		assertNull(container.getCompiledValidationEntity(String.class));
+	}
+	
+	@Test
+	public void testCompileRuleConvertsLiteralValue() {
+		ValidationRule rule = new ValidationRule("name", "maxLength", "50");
+		rule.setRuleExecutor(new MaxLengthRuleExecutor());
+		CompiledValidationRule compiledRule = container.compileRule(rule);
+		assertEquals(Integer.class, compiledRule.getArgumentType());
+		assertTrue(compiledRule.isValueConverted());
+		assertEquals(50, compiledRule.getConvertedValue());
+	}
+	
+	@Test
+	public void testCompileRuleDoesNotConvertELValue() {
+		ValidationRule rule = new ValidationRule("name", "matches", "${model.otherName}");
+		rule.setRuleExecutor(new MatchesRuleExecutor());
+		CompiledValidationRule compiledRule = container.compileRule(rule);
+		assertFalse(compiledRule.isValueConverted());
+		assertNull(compiledRule.getConvertedValue());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCompileRuleRejectsUnconvertibleLiteralValue() {
+		ValidationRule rule = new ValidationRule("name", "maxLength", "fifty");
+		rule.setRuleExecutor(new MaxLengthRuleExecutor());
+		container.compileRule(rule);
+	}
+	
+	@Test
+	public void testCompileRuleFindsDependencies() {
+		ValidationRule rule = new ValidationRule("name", "matches", "${model.otherName} ${currentModel.address.city}");
+		rule.setRuleExecutor(new MatchesRuleExecutor());
+		ValidationRule childRule = new ValidationRule("nickName", "matches", "${model.customers[0].name eq 'model.x'}");
+		childRule.setRuleExecutor(new MatchesRuleExecutor());
+		rule.getRules().add(childRule);
+		CompiledValidationRule compiledRule = container.compileRule(rule);
+		assertFalse(compiledRule.isDependingOnAnyPath());
+		assertEquals(Arrays.asList("name", "address.city", "nickName"), Arrays.asList(compiledRule.getDependencyPaths()));
+		assertEquals(Arrays.asList("otherName", "customers"), Arrays.asList(compiledRule.getRootDependencyPaths()));
+	}
+	
+	@Test
+	public void testCompileRuleWithUnknownDependencies() {
+		ValidationRule rule = new ValidationRule("name", "matches", "${requestParameters.name}");
+		rule.setRuleExecutor(new MatchesRuleExecutor());
+		assertTrue(container.compileRule(rule).isDependingOnAnyPath());
+		
+		rule = new ValidationRule("name", "matches", "${model.getName()}");
+		rule.setRuleExecutor(new MatchesRuleExecutor());
+		assertTrue(container.compileRule(rule).isDependingOnAnyPath());
+		
+		rule = new ValidationRule("", "required", null);
+		rule.setRuleExecutor(new MatchesRuleExecutor());
+		assertTrue(container.compileRule(rule).isDependingOnAnyPath());
+	}
+	
+	@Test
+	public void testCompileInlinesTemplateRules() {
+		ValidationTemplate plainTemplate = new ValidationTemplate("plainAddress", Address.class);
+		plainTemplate.getRules().add(new ValidationRule("zipCode", "required", null));
+		ValidationTemplate elTemplate = new ValidationTemplate("elAddress", Address.class);
+		elTemplate.getRules().add(new ValidationRule("lineOne", "matches", "${currentModel.lineTwo}"));
+		ValidationEntity addressEntity = new ValidationEntity();
+		addressEntity.setValidationClass(Address.class);
+		addressEntity.getValidationTemplates().addAll(Arrays.asList(plainTemplate, elTemplate));
+		
+		ValidationEntity customerEntity = new ValidationEntity();
+		customerEntity.setValidationClass(Customer.class);
+		customerEntity.getTemplateReferences().add(new ValidationTemplateReference("address", "plainAddress"));
+		customerEntity.getTemplateReferences().add(new ValidationTemplateReference("secondaryAddress", "elAddress"));
+		customerEntity.getTemplateReferences().add(new ValidationTemplateReference("secondaryAddress", "plainAddress"));
+		
+		ValidationRulesContainer templateContainer = new ValidationRulesContainer();
+		templateContainer.ruleExecutorContainer = ruleExecutorContainer;
+		templateContainer.setValidationEntities(Arrays.asList(addressEntity, customerEntity));
+		templateContainer.initializeValdationEntities();
+		
+		CompiledValidationEntity compiledEntity = templateContainer.getCompiledValidationEntity(Customer.class);
+		assertEquals(1, compiledEntity.getRules().size());
+		CompiledValidationRule inlinedRule = compiledEntity.getRules().get(0);
+		assertEquals("address.zipCode", inlinedRule.getPath());
+		assertSame(requiredRuleExecutor, inlinedRule.getRuleExecutor());
+		assertTrue(inlinedRule.isInlinedFromTemplate());
+		assertEquals("plainAddress", inlinedRule.getInlinedTemplateName());
+		assertEquals("address", inlinedRule.getInlinedTemplateBasePath());
+		assertFalse(inlinedRule.isDependingOnAnyPath());
+		
+		// templates following one which can't be inlined are still referenced, to keep rule order.
+		assertEquals(2, compiledEntity.getTemplateReferences().size());
+		assertEquals("elAddress", compiledEntity.getTemplateReferences().get(0).getTemplateName());
+		assertEquals("plainAddress", compiledEntity.getTemplateReferences().get(1).getTemplateName());
+		assertEquals("secondaryAddress", compiledEntity.getTemplateReferences().get(1).getBasePath());
+	}
+	
+	@Test
+	public void testResolveValidationEntityForSubclassesAndInterfaces() {
+		ValidationEntity customerEntity = new ValidationEntity();
+		customerEntity.setValidationClass(Customer.class);
+		customerEntity.getRules().add(new ValidationRule("firstName", "required", null));
+		ValidationEntity emailableEntity = new ValidationEntity();
+		emailableEntity.setValidationClass(Emailable.class);
+		emailableEntity.getRules().add(new ValidationRule("emailAddress", "required", null));
+		
+		ValidationRulesContainer resolvingContainer = new ValidationRulesContainer();
+		resolvingContainer.ruleExecutorContainer = ruleExecutorContainer;
+		resolvingContainer.setValidationEntities(Arrays.asList(customerEntity, emailableEntity));
+		resolvingContainer.initializeValdationEntities();
+		
+		// an unregistered subclass, such as a proxy, uses its superclass entity.
+		CompiledValidationEntity compiledCustomer = resolvingContainer.getCompiledValidationEntity(Customer.class);
+		assertSame(compiledCustomer, resolvingContainer.getCompiledValidationEntity(ProxiedCustomer.class));
+		assertTrue(resolvingContainer.supportsClass(ProxiedCustomer.class));
+		
+		// interface entities are merged after the class entity.
+		CompiledValidationEntity compiledEmailable = resolvingContainer.getCompiledValidationEntity(EmailableCustomer.class);
+		assertEquals(EmailableCustomer.class, compiledEmailable.getValidationClass());
+		assertEquals(2, compiledEmailable.getRules().size());
+		assertEquals("firstName", compiledEmailable.getRules().get(0).getPath());
+		assertEquals("emailAddress", compiledEmailable.getRules().get(1).getPath());
+		assertSame(compiledEmailable, resolvingContainer.getCompiledValidationEntity(EmailableCustomer.class));
+		
+		assertNull(resolvingContainer.getCompiledValidationEntity(String.class));
+		assertFalse(resolvingContainer.supportsClass(String.class));
+	}
+	
+	public interface Emailable {
+		String getEmailAddress();
+	}
+	
+	public static class ProxiedCustomer extends Customer {
+	}
+	
+	public static class EmailableCustomer extends Customer implements Emailable {
+	}
+
 }
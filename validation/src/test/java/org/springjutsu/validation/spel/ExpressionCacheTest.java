@@ -0,0 +1,74 @@
+package org.springjutsu.validation.spel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springjutsu.validation.test.entities.Company;
+import org.springjutsu.validation.test.entities.Customer;
+
+public class ExpressionCacheTest {
+
+	@Test
+	public void testExpressionsAreParsedOnce() {
+		ExpressionCache cache = new ExpressionCache();
+		Expression expression = cache.getExpression("model.firstName");
+		assertSame(expression, cache.getExpression("model.firstName"));
+		assertNotSame(expression, cache.getExpression("model.lastName"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testCacheIsBounded() {
+		ExpressionCache cache = new ExpressionCache(10, SpelCompilerMode.OFF);
+		for (int i = 0; i < 100; i++) {
+			cache.getExpression("model.property" + i);
+		}
+		assertEquals(10, cache.size());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedExpressionIsEvicted() {
+		ExpressionCache cache = new ExpressionCache(10, SpelCompilerMode.OFF);
+		Expression hotExpression = cache.getExpression("model.hot");
+		for (int i = 0; i < 100; i++) {
+			assertSame(hotExpression, cache.getExpression("model.hot"));
+			cache.getExpression("model.property" + i);
+		}
+		assertSame(hotExpression, cache.getExpression("model.hot"));
+		assertEquals(10, cache.size());
+	}
+
+	@Test
+	public void testCompiledExpressionsFallBackToInterpretation() {
+		Customer customer = new Customer();
+		customer.setFirstName("bob");
+		Company company = new Company();
+		company.setName("acme");
+		SPELResolver customerResolver = new SPELResolver(customer, new SimpleTypeConverter());
+		SPELResolver companyResolver = new SPELResolver(company, new SimpleTypeConverter());
+		customerResolver.expressionCache = new ExpressionCache(10, SpelCompilerMode.MIXED);
+		companyResolver.expressionCache = customerResolver.expressionCache;
+		customerResolver.expressionParser = customerResolver.expressionCache.getExpressionParser();
+		companyResolver.expressionParser = customerResolver.expressionParser;
+
+		// enough evaluations for the expression to be compiled against a customer,
+		// after which evaluation against a company must still succeed.
+		for (int i = 0; i < 500; i++) {
+			assertEquals("bob", customerResolver.resolveSPELString("${model.firstName}"));
+		}
+		assertNull(companyResolver.resolveSPELString("${model.firstName}"));
+		for (int i = 0; i < 500; i++) {
+			assertEquals("acme", companyResolver.resolveSPELString("${model.name}"));
+			assertEquals("bob", customerResolver.resolveSPELString("${model.firstName}"));
+		}
+		customer.setFirstName(null);
+		assertNull(customerResolver.resolveSPELString("${model.firstName}"));
+	}
+
+}
@@ -1,15 +1,23 @@
 
 package org.springjutsu.validation.spel;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static junit.framework.Assert.*;
 
 import org.junit.Test;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springjutsu.validation.test.entities.Company;
+import org.springjutsu.validation.test.entities.Customer;
 
 public class NamedScopeEvaluationContextTest {
 	
@@ -56,4 +64,156 @@ public class NamedScopeEvaluationContextTest {
 		}
 	}
 
+	@Test
+	public void testNullTolerantContextEvaluation() {
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put("present", "here");
+		
+		NamedScopeEvaluationContext context = new NamedScopeEvaluationContext();
+		context.setNullTolerant(true);
+		context.addContext("first", new Integer("5"));
+		context.addContext("parameters", parameters);
+		
+		ExpressionParser expressionParser = new SpelExpressionParser();
+		
+		// test absent properties resolve to null rather than exploding.
+		assertEquals("here", expressionParser.parseExpression("parameters.present").getValue(context));
+		assertNull(expressionParser.parseExpression("parameters.absent").getValue(context));
+		assertNull(expressionParser.parseExpression("absent").getValue(context));
+		assertNull(expressionParser.parseExpression("first.carmen").getValue(context));
+		assertNull(expressionParser.parseExpression("parameters.absent.length").getValue(context));
+		// test absent properties aren't mistaken for properties of the first scope.
+		assertEquals(Integer.class, expressionParser.parseExpression("class").getValue(context));
+		
+		// test an expression which found nothing will still find a property on another object.
+		Customer customer = new Customer();
+		customer.setFirstName("bob");
+		Expression expression = expressionParser.parseExpression("model.firstName");
+		context.addContext("model", new Company());
+		assertNull(expression.getValue(context));
+		context.addContext("model", customer);
+		assertEquals("bob", expression.getValue(context));
+		
+		// test writes to absent properties still explode.
+		boolean spelExceptionCaught = false;
+		try {
+			expressionParser.parseExpression("parameters.absent.length").setValue(context, 1);
+		} catch (SpelEvaluationException see) {
+			spelExceptionCaught = true;
+		} finally {
+			assertTrue("\"length\" should NOT be writable on null...", spelExceptionCaught);
+		}
+	}
+
+	@Test
+	public void testCachedScopeLookup() {
+		Map<String, Object> flowScope = new HashMap<String, Object>();
+		flowScope.put("someFlowVar", "flow");
+		Map<String, Object> currentScope = new HashMap<String, Object>();
+		
+		NamedScopeEvaluationContext context = new NamedScopeEvaluationContext();
+		context.setNullTolerant(true);
+		context.addDynamicContext("current", currentScope);
+		context.addContext("flowScope", flowScope);
+		
+		ExpressionParser expressionParser = new SpelExpressionParser();
+		
+		// test unqualified lookups, found and missed, twice over.
+		for (int i = 0; i < 2; i++) {
+			assertEquals("flow", expressionParser.parseExpression("someFlowVar").getValue(context));
+			assertNull(expressionParser.parseExpression("otherVar").getValue(context));
+		}
+		
+		// test dynamic contexts are checked on each lookup.
+		currentScope.put("someFlowVar", "current");
+		currentScope.put("otherVar", "other");
+		assertEquals("current", expressionParser.parseExpression("someFlowVar").getValue(context));
+		assertEquals("other", expressionParser.parseExpression("otherVar").getValue(context));
+		currentScope.clear();
+		assertEquals("flow", expressionParser.parseExpression("someFlowVar").getValue(context));
+		
+		// test adding a context discards cached misses.
+		Map<String, Object> lateScope = new HashMap<String, Object>();
+		lateScope.put("otherVar", "late");
+		context.addContext("lateScope", lateScope);
+		assertEquals("late", expressionParser.parseExpression("otherVar").getValue(context));
+	}
+
+	@Test
+	public void testLazyContextEvaluation() {
+		final List<String> obtained = new ArrayList<String>();
+		final Map<String, Object> flowScope = new HashMap<String, Object>();
+		flowScope.put("someFlowVar", "flow");
+		
+		NamedScopeEvaluationContext context = new NamedScopeEvaluationContext();
+		context.setNullTolerant(true);
+		context.addContext("model", new HashMap<String, Object>());
+		context.addLazyContext("flowScope", new ObjectFactory<Object>() {
+			public Object getObject() {
+				obtained.add("flowScope");
+				return flowScope;
+			}
+		});
+		context.addLazyContext("session", new ObjectFactory<Object>() {
+			public Object getObject() {
+				obtained.add("session");
+				return new HashMap<String, Object>();
+			}
+		});
+		
+		ExpressionParser expressionParser = new SpelExpressionParser();
+		
+		// test lazy contexts are only obtained when used, and only once.
+		assertNull(expressionParser.parseExpression("model.firstName").getValue(context));
+		assertTrue(obtained.isEmpty());
+		assertEquals("flow", expressionParser.parseExpression("flowScope.someFlowVar").getValue(context));
+		assertEquals("flow", expressionParser.parseExpression("someFlowVar").getValue(context));
+		assertEquals(Arrays.asList("flowScope"), obtained);
+		assertTrue(context.hasContext("session"));
+		assertEquals(Arrays.asList("flowScope"), obtained);
+		assertNull(expressionParser.parseExpression("otherVar").getValue(context));
+		assertEquals(Arrays.asList("flowScope", "session"), obtained);
+	}
+
+	@Test
+	public void testPushAndPopScopes() {
+		Map<String, Object> model = new HashMap<String, Object>();
+		model.put("firstName", "bob");
+		Map<String, Object> requestParameters = new HashMap<String, Object>();
+		requestParameters.put("page", "1");
+		
+		NamedScopeEvaluationContext context = new NamedScopeEvaluationContext();
+		context.setNullTolerant(true);
+		context.addContext("model", model);
+		ExpressionParser expressionParser = new SpelExpressionParser();
+		Expression pageExpression = expressionParser.parseExpression("page");
+		Expression lengthExpression = expressionParser.parseExpression("model.firstName.length()");
+		
+		// test scopes and accessors added after a push are there until popped.
+		context.pushScopes();
+		context.addContext("requestParameters", requestParameters);
+		context.addContext("model", new HashMap<String, Object>());
+		context.addPropertyAccessor(new MapAccessor());
+		assertEquals(1, context.getScopeDepth());
+		assertEquals("1", pageExpression.getValue(context));
+		assertNull(expressionParser.parseExpression("model.firstName").getValue(context));
+		
+		// test popping restores the scopes and accessors as they were.
+		int accessorCount = context.getPropertyAccessors().size();
+		context.popScopes();
+		assertEquals(0, context.getScopeDepth());
+		assertEquals(accessorCount - 1, context.getPropertyAccessors().size());
+		assertFalse(context.hasContext("requestParameters"));
+		assertNull(pageExpression.getValue(context));
+		assertEquals("bob", expressionParser.parseExpression("model.firstName").getValue(context));
+		assertEquals(3, lengthExpression.getValue(context));
+		
+		try {
+			context.popScopes();
+			fail("Expected nothing to pop");
+		} catch (IllegalStateException ise) {
+			// expected
+		}
+	}
+
 }
@@ -0,0 +1,189 @@
+package org.springjutsu.validation.spel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.LiteralExpression;
+import org.springjutsu.validation.context.ValidationContextHandler;
+import org.springjutsu.validation.test.entities.Address;
+import org.springjutsu.validation.test.entities.Customer;
+
+public class SPELResolverTest {
+
+	@Test
+	public void testPropertyPathsResolveAsSpel() {
+		Customer customer = new Customer();
+		customer.setFirstName("bob");
+		customer.setLastName("");
+		customer.setAddress(new Address());
+		customer.getAddress().setCity("Springfield");
+		Map<String, Object> requestParameters = new HashMap<String, Object>();
+		requestParameters.put("page", "1");
+		
+		SPELResolver resolver = new SPELResolver(customer, new SimpleTypeConverter());
+		resolver.getScopedContext().addContext("requestParameters", requestParameters);
+		
+		String[] expressions = {"${model.firstName}", "${model.lastName}", "${model.address.city}",
+			"${model.address.zip}", "${model.copayer.firstName}", "${model.missing}",
+			"${requestParameters.page}", "${requestParameters.absent}", "${unregistered.firstName}",
+			"Hi ${model.firstName} ${model.lastName}, page ${requestParameters.page}."};
+		for (String expression : expressions) {
+			SPELTemplate template = SPELTemplate.parse(expression);
+			StringBuilder spelResult = new StringBuilder();
+			for (int i = 0; i < template.getSegmentCount(); i++) {
+				if (template.isExpressionSegment(i)) {
+					assertNotNull(expression, template.getPropertyPath(i));
+					Object elResult = resolver.getBySpel(template.getResolvableExpression(i));
+					if (template.isExpression()) {
+						assertEquals(expression, elResult, resolver.resolveSPELString(expression));
+					}
+					spelResult.append(elResult == null ? "" : elResult);
+				} else {
+					spelResult.append(template.getSegment(i));
+				}
+			}
+			if (!template.isExpression()) {
+				assertEquals(expression, spelResult.toString(), resolver.resolveSPELString(expression));
+			}
+		}
+		assertEquals("bob", resolver.resolveSPELString("${model.firstName}"));
+		assertEquals("Springfield", resolver.resolveSPELString("${model.address.city}"));
+		assertNull(resolver.resolveSPELString("${model.lastName}"));
+	}
+
+	@Test
+	public void testComplexExpressionsAreNotPropertyPaths() {
+		String[] expressions = {"${model}", "${model.firstName.length()}", "${model.customers[0]}",
+			"${model?.firstName}", "${model.firstName + 'x'}", "${#root.model}", "${model.and}", "${model.9}"};
+		for (String expression : expressions) {
+			assertNull(expression, SPELTemplate.parse(expression).getPropertyPath(0));
+		}
+	}
+
+	@Test
+	public void testDeferredInitialization() {
+		Customer customer = new Customer();
+		customer.setFirstName("bob");
+		SPELResolver resolver = new SPELResolver(customer, new SimpleTypeConverter());
+		CountingContextHandler contextHandler = new CountingContextHandler();
+		
+		// test expressions needing only the model don't initialize.
+		resolver.deferInitialization(contextHandler);
+		assertEquals("bob", resolver.resolveSPELString("${model.firstName}"));
+		assertEquals("bob!", resolver.resolveSPELString("${model.firstName}!"));
+		assertEquals(0, contextHandler.initializations);
+		assertFalse(resolver.revertInitialization(contextHandler));
+		
+		// test expressions needing other scopes do, once.
+		resolver.deferInitialization(contextHandler);
+		assertEquals("1", resolver.resolveSPELString("${requestParameters.page}"));
+		assertEquals("1", resolver.resolveSPELString("${requestParameters.page}"));
+		assertEquals(1, contextHandler.initializations);
+		assertTrue(resolver.revertInitialization(contextHandler));
+		
+		// test reverting pops the added scopes, but keeps the rest.
+		assertNull(resolver.resolveSPELString("${requestParameters.page}"));
+		assertEquals("bob", resolver.resolveSPELString("${model.firstName}"));
+		
+		// test any other SPEL initializes.
+		resolver.deferInitialization(contextHandler);
+		assertEquals(3, resolver.resolveSPELString("${model.firstName.length()}"));
+		assertEquals(2, contextHandler.initializations);
+		assertTrue(resolver.revertInitialization(contextHandler));
+	}
+	
+	@Test
+	public void testNestedInitialization() {
+		Customer customer = new Customer();
+		customer.setFirstName("bob");
+		SPELResolver resolver = new SPELResolver(customer, new SimpleTypeConverter());
+		resolver.getScopedContext().addContext("flowScope", new HashMap<String, Object>());
+		CountingContextHandler outerHandler = new CountingContextHandler();
+		CountingContextHandler innerHandler = new CountingContextHandler() {
+			@Override
+			public void initializeSPELResolver(SPELResolver spelResolver) {
+				initializations++;
+				spelResolver.getScopedContext().addContext("inner", "inner");
+			}
+		};
+		
+		// test both initialize in order, and revert in reverse.
+		resolver.deferInitialization(outerHandler);
+		resolver.deferInitialization(innerHandler);
+		assertEquals("1", resolver.resolveSPELString("${requestParameters.page}"));
+		assertEquals("inner", resolver.resolveSPELString("${inner}"));
+		assertEquals(1, outerHandler.initializations);
+		assertEquals(1, innerHandler.initializations);
+		assertTrue(resolver.revertInitialization(innerHandler));
+		assertNull(resolver.resolveSPELString("${inner}"));
+		assertEquals("1", resolver.resolveSPELString("${requestParameters.page}"));
+		assertTrue(resolver.revertInitialization(outerHandler));
+		assertNull(resolver.resolveSPELString("${requestParameters.page}"));
+		assertTrue(resolver.getScopedContext().hasContext("flowScope"));
+		
+		// test a new model keeps customizations, but not pending scopes.
+		resolver.deferInitialization(outerHandler);
+		assertEquals("1", resolver.resolveSPELString("${requestParameters.page}"));
+		Customer otherCustomer = new Customer();
+		otherCustomer.setFirstName("joe");
+		resolver.setModel(otherCustomer);
+		assertEquals("joe", resolver.resolveSPELString("${model.firstName}"));
+		assertNull(resolver.resolveSPELString("${requestParameters.page}"));
+		assertTrue(resolver.getScopedContext().hasContext("flowScope"));
+		assertEquals(0, resolver.getScopedContext().getScopeDepth());
+	}
+
+	@Test
+	public void testCustomExpressionParserIsUsed() {
+		Customer customer = new Customer();
+		customer.setFirstName("bob");
+		SPELResolver resolver = new SPELResolver(customer, new SimpleTypeConverter()) {
+			{
+				expressionParser = new ExpressionParser() {
+					public Expression parseExpression(String expressionString) {
+						return new LiteralExpression("parsed " + expressionString);
+					}
+					public Expression parseExpression(String expressionString, ParserContext context) {
+						return parseExpression(expressionString);
+					}
+				};
+			}
+		};
+		assertEquals("parsed model.firstName", resolver.getBySpel("model.firstName"));
+		assertEquals("parsed model.firstName?: null", resolver.resolveSPELString("${model.firstName}"));
+	}
+
+	protected static class CountingContextHandler implements ValidationContextHandler {
+
+		protected int initializations = 0;
+
+		public boolean isActive(Set<String> qualifiers, Object rootModel, String[] validationHints) {
+			return true;
+		}
+
+		public boolean enableDuringSubBeanValidation() {
+			return true;
+		}
+
+		public void initializeSPELResolver(SPELResolver spelResolver) {
+			initializations++;
+			Map<String, Object> requestParameters = new HashMap<String, Object>();
+			requestParameters.put("page", "1");
+			spelResolver.getScopedContext().addContext("requestParameters", requestParameters);
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.springjutsu.validation.spel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class SPELTemplateTest {
+
+	@Test
+	public void testLiteral() {
+		SPELTemplate template = SPELTemplate.parse("customer.firstName");
+		assertFalse(template.containsExpressions());
+		assertFalse(template.isExpression());
+		assertEquals(1, template.getSegmentCount());
+		assertEquals("customer.firstName", template.getSegment(0));
+	}
+
+	@Test
+	public void testSingleExpression() {
+		SPELTemplate template = SPELTemplate.parse("${model.firstName}");
+		assertTrue(template.isExpression());
+		assertEquals("model.firstName", template.getSegment(0));
+		assertEquals("model.firstName?: null", template.getResolvableExpression(0));
+	}
+
+	@Test
+	public void testMixedSegments() {
+		SPELTemplate template = SPELTemplate.parse("Hi ${model.firstName} ${model.lastName}!");
+		assertTrue(template.containsExpressions());
+		assertFalse(template.isExpression());
+		assertEquals(5, template.getSegmentCount());
+		assertEquals("Hi ", template.getSegment(0));
+		assertTrue(template.isExpressionSegment(1));
+		assertEquals("model.firstName", template.getSegment(1));
+		assertEquals(" ", template.getSegment(2));
+		assertEquals("model.lastName", template.getSegment(3));
+		assertEquals("!", template.getSegment(4));
+		assertEquals("Hi model.firstName model.lastName!", template.toLiteralText());
+	}
+
+	@Test
+	public void testParsesLikeExpressionMatcher() {
+		String[] texts = {"", "${}", "${a}", "$${a}}", "${a} and }", "${${a}}", "${a ${b}",
+			"${ab${c}", "{a} ${b", "x ${a}\n${b} y", "${a\n}", "${{'a','b'}.size()} items"};
+		for (String text : texts) {
+			List<String> expected = new ArrayList<String>();
+			Matcher matcher = Pattern.compile(SPELResolver.EXPRESSION_MATCHER).matcher(text);
+			while (matcher.find()) {
+				expected.add(matcher.group().substring(2, matcher.group().length() - 1));
+			}
+			SPELTemplate template = SPELTemplate.parse(text);
+			List<String> actual = new ArrayList<String>();
+			for (int i = 0; i < template.getSegmentCount(); i++) {
+				if (template.isExpressionSegment(i)) {
+					actual.add(template.getSegment(i));
+				}
+			}
+			assertEquals(text, expected, actual);
+			assertEquals(text, text.matches(SPELResolver.EXPRESSION_MATCHER), template.isExpression());
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package org.springjutsu.validation.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ChangedPathSetTest {
+
+	@Test
+	public void testAffectsSamePath() {
+		ChangedPathSet changedPaths = new ChangedPathSet(Arrays.asList("firstName", "address.city"));
+		assertTrue(changedPaths.affects("firstName"));
+		assertTrue(changedPaths.affects("address.city"));
+		assertFalse(changedPaths.affects("lastName"));
+		assertFalse(changedPaths.affects("firstNameSuffix"));
+		assertFalse(changedPaths.affects("address.zip"));
+	}
+
+	@Test
+	public void testAffectsNestedPaths() {
+		ChangedPathSet changedPaths = new ChangedPathSet(Arrays.asList("address", "customers.referredBy.firstName"));
+		assertTrue(changedPaths.affects("address.city"));
+		assertTrue(changedPaths.affects("customers.referredBy"));
+		assertTrue(changedPaths.affects("customers"));
+		assertFalse(changedPaths.affects("customers.firstName"));
+	}
+
+	@Test
+	public void testAffectsIndexedPaths() {
+		ChangedPathSet changedPaths = new ChangedPathSet(Arrays.asList("customers[1].firstName", "orders.total"));
+		assertTrue(changedPaths.affects("customers[1].firstName"));
+		assertTrue(changedPaths.affects("customers.firstName"));
+		assertFalse(changedPaths.affects("customers[2].firstName"));
+		assertTrue(changedPaths.affects("orders[0].total"));
+		assertTrue(changedPaths.affects("orders[5].total"));
+	}
+
+	@Test
+	public void testEmptyPathAffectsEverything() {
+		assertTrue(new ChangedPathSet(Arrays.asList("")).affects("firstName"));
+		assertTrue(new ChangedPathSet(Arrays.asList("firstName")).affects(""));
+	}
+
+}
@@ -0,0 +1,102 @@
+package org.springjutsu.validation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springjutsu.validation.test.entities.Address;
+import org.springjutsu.validation.test.entities.Company;
+import org.springjutsu.validation.test.entities.Customer;
+
+public class CollectionMembersTest {
+
+	@Test
+	public void testNestedCollectionMembers() {
+		Company company = new Company();
+		Company acquisition = new Company();
+		Customer bob = new Customer();
+		Customer joe = new Customer();
+		acquisition.getCustomers().add(bob);
+		acquisition.getCustomers().add(joe);
+		company.getAcquisitions().add(new Company());
+		company.getAcquisitions().add(acquisition);
+
+		CollectionMembers members = new CollectionMembers(company, ValidationPath.parse("acquisitions.customers"),
+			new int[] {0, 1}, new ReflectivePropertyPathAccessor());
+		assertEquals(2, members.getOuterSize());
+		assertFalse(members.iterator(0).hasNext());
+
+		Iterator<CollectionMember> acquisitionMembers = members.iterator(1);
+		CollectionMember member = acquisitionMembers.next();
+		assertSame(bob, member.getMember());
+		assertEquals(1, member.getIndex(0));
+		assertEquals(0, member.getIndex(1));
+		assertEquals("acquisitions[1].customers[0]", member.getPath().toString());
+		member = acquisitionMembers.next();
+		assertSame(joe, member.getMember());
+		assertEquals("acquisitions[1].customers[1]", member.getPath().toString());
+		assertFalse(acquisitionMembers.hasNext());
+	}
+
+	@Test
+	public void testSetMapAndPrimitiveArrayMembers() {
+		PathUtilsTest.Catalog catalog = new PathUtilsTest.Catalog();
+		Address address = new Address();
+		Set<Address> tags = new LinkedHashSet<Address>();
+		tags.add(address);
+		catalog.setTags(tags);
+		Customer bob = new Customer();
+		bob.setAddress(address);
+		Map<String, Customer> customersByName = new LinkedHashMap<String, Customer>();
+		customersByName.put("bob", bob);
+		catalog.setCustomersByName(customersByName);
+		catalog.setRatings(new int[] {4, 2});
+		ReflectivePropertyPathAccessor accessor = new ReflectivePropertyPathAccessor();
+
+		CollectionMembers members = new CollectionMembers(catalog, ValidationPath.parse("tags"), new int[] {0}, accessor);
+		assertFalse(members.isGroupedByOuterPosition());
+		CollectionMember member = members.iterator().next();
+		assertSame(address, member.getMember());
+		assertEquals("tags[0]", member.getPath().toString());
+
+		members = new CollectionMembers(catalog, ValidationPath.parse("customersByName.address"), new int[] {0}, accessor);
+		member = members.iterator().next();
+		assertSame(address, member.getMember());
+		assertEquals("bob", member.getKey(0));
+		assertEquals("customersByName[bob].address", member.getPath().toString());
+
+		members = new CollectionMembers(catalog, ValidationPath.parse("ratings"), new int[] {0}, accessor);
+		assertEquals(2, members.getOuterSize());
+		member = members.iterator(1).next();
+		assertEquals(2, member.getMember());
+		assertEquals("ratings[1]", member.getPath().toString());
+	}
+
+	@Test
+	public void testCollectionObjectMembers() {
+		Company company = new Company();
+		Company acquisition = new Company();
+		company.getAcquisitions().add(acquisition);
+		acquisition.setCustomers(null);
+
+		CollectionMembers members = new CollectionMembers(company, ValidationPath.parse("acquisitions.customers"),
+			new int[] {0}, new ReflectivePropertyPathAccessor());
+		CollectionMember member = members.iterator(0).next();
+		assertNull(member.getMember());
+		assertEquals("acquisitions[0].customers", member.getPath().toString());
+
+		company.setAcquisitions(null);
+		members = new CollectionMembers(company, ValidationPath.parse("acquisitions.customers"),
+			new int[] {0}, new ReflectivePropertyPathAccessor());
+		assertEquals(0, members.getOuterSize());
+	}
+
+}
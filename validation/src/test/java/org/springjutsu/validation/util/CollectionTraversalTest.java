@@ -0,0 +1,78 @@
+package org.springjutsu.validation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springjutsu.validation.test.entities.Address;
+import org.springjutsu.validation.util.CollectionTraversal.Cursor;
+
+public class CollectionTraversalTest {
+
+	@Test
+	public void testIsTraversable() {
+		assertTrue(CollectionTraversal.isTraversable(int[].class));
+		assertTrue(CollectionTraversal.isTraversable(List.class));
+		assertTrue(CollectionTraversal.isTraversable(Set.class));
+		assertTrue(CollectionTraversal.isTraversable(HashMap.class));
+		assertFalse(CollectionTraversal.isTraversable(String.class));
+		assertFalse(CollectionTraversal.isTraversable(Address.class));
+		assertNull(CollectionTraversal.forCollection("not a collection"));
+		assertNull(CollectionTraversal.forCollection(null));
+	}
+
+	@Test
+	public void testPrimitiveArray() {
+		CollectionTraversal traversal = CollectionTraversal.forCollection(new int[] {3, 5});
+		assertTrue(traversal.isRandomAccess());
+		assertEquals(2, traversal.size());
+		assertEquals(5, traversal.get(1));
+		Cursor cursor = traversal.cursor(1, 2);
+		assertTrue(cursor.next());
+		assertEquals("[1]", cursor.getIndex());
+		assertFalse(cursor.next());
+		assertEquals(true, CollectionTraversal.forCollection(new boolean[] {true}).get(0));
+	}
+
+	@Test
+	public void testSetAndLinkedList() {
+		Set<String> set = new LinkedHashSet<String>(Arrays.asList("a", "b"));
+		CollectionTraversal traversal = CollectionTraversal.forCollection(set);
+		assertFalse(traversal.isRandomAccess());
+		assertEquals(2, traversal.size());
+		Cursor cursor = traversal.cursor();
+		assertTrue(cursor.next());
+		assertTrue(cursor.next());
+		assertEquals("b", cursor.get());
+		assertEquals("[1]", cursor.getIndex());
+		assertFalse(cursor.next());
+		assertFalse(CollectionTraversal.forCollection(new LinkedList<String>(set)).isRandomAccess());
+	}
+
+	@Test
+	public void testMapValues() {
+		Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+		map.put("bob", 1);
+		map.put("joe", 2);
+		Cursor cursor = CollectionTraversal.forCollection(map).cursor();
+		assertTrue(cursor.next());
+		assertTrue(cursor.next());
+		assertEquals(2, cursor.get());
+		assertEquals("joe", cursor.getKey());
+		assertEquals(1, cursor.getPosition());
+		assertEquals("[joe]", cursor.getIndex());
+		assertFalse(cursor.next());
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.springjutsu.validation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PathScopedIdentitySetTest {
+	
+	@Test
+	public void testContainsByIdentity() {
+		PathScopedIdentitySet set = new PathScopedIdentitySet();
+		String first = new String("bean");
+		String second = new String("bean");
+		assertTrue(set.add(first));
+		assertTrue(set.contains(first));
+		assertFalse(set.contains(second));
+		assertFalse(set.add(first));
+		assertTrue(set.add(second));
+	}
+	
+	@Test
+	public void testPopDiscardsAdditionsAtLevel() {
+		PathScopedIdentitySet set = new PathScopedIdentitySet();
+		Object root = new Object();
+		Object child = new Object();
+		Object grandChild = new Object();
+		set.add(root);
+		set.push();
+		set.add(child);
+		set.push();
+		set.add(grandChild);
+		assertEquals(3, set.size());
+		set.pop();
+		assertFalse(set.contains(grandChild));
+		assertTrue(set.contains(child));
+		set.pop();
+		assertFalse(set.contains(child));
+		assertTrue(set.contains(root));
+		assertEquals(0, set.getDepth());
+	}
+	
+	@Test
+	public void testPopKeepsObjectsAddedAtOuterLevel() {
+		PathScopedIdentitySet set = new PathScopedIdentitySet();
+		Object root = new Object();
+		set.push();
+		set.add(root);
+		set.push();
+		assertFalse(set.add(root));
+		set.pop();
+		assertTrue(set.contains(root));
+	}
+	
+	@Test
+	public void testDeepNesting() {
+		PathScopedIdentitySet set = new PathScopedIdentitySet();
+		Object[] beans = new Object[1000];
+		for (int i = 0; i < beans.length; i++) {
+			beans[i] = new Object();
+			set.push();
+			set.add(beans[i]);
+		}
+		assertEquals(1000, set.getDepth());
+		for (int i = beans.length - 1; i >= 0; i--) {
+			assertTrue(set.contains(beans[i]));
+			set.pop();
+			assertFalse(set.contains(beans[i]));
+		}
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testPopWithoutPush() {
+		new PathScopedIdentitySet().pop();
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.springjutsu.validation.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springjutsu.validation.test.entities.Address;
+import org.springjutsu.validation.test.entities.Company;
+import org.springjutsu.validation.test.entities.Customer;
+
+public class PathUtilsTest {
+
+	@Test
+	public void testGetClassesForPathTokens() {
+		assertArrayEquals(new Class<?>[] {List.class, Address.class},
+			PathUtils.getClassesForPathTokens(Company.class, "customers.address", false));
+		assertArrayEquals(new Class<?>[] {Customer.class, Address.class},
+			PathUtils.getClassesForPathTokens(Company.class, "customers[1].address", true));
+		assertNull(PathUtils.getClassesForPathTokens(Company.class, "customers.notAProperty", false));
+		assertNull(PathUtils.getClassesForPathTokens(Company.class, "", false));
+	}
+
+	@Test
+	public void testGetPathMetadataForGenericCollections() {
+		PathMetadata pathMetadata = PathUtils.getPathMetadata(Catalog.class, ValidationPath.parse("tags.city"));
+		assertEquals(Set.class, pathMetadata.getPropertyType(0));
+		assertEquals(Address.class, pathMetadata.getElementType(0));
+		assertTrue(pathMetadata.isCollection(0));
+		assertFalse(pathMetadata.isCollection(1));
+
+		pathMetadata = PathUtils.getPathMetadata(Catalog.class, ValidationPath.parse("customersByName['bob'].address"));
+		assertEquals(Map.class, pathMetadata.getPropertyType(0));
+		assertEquals(Customer.class, pathMetadata.getElementType(0));
+		assertEquals(Address.class, pathMetadata.getPropertyType(1));
+
+		pathMetadata = PathUtils.getPathMetadata(Catalog.class, ValidationPath.parse("ratings"));
+		assertEquals(int.class, pathMetadata.getElementType(0));
+		assertTrue(pathMetadata.isCollection(0));
+	}
+
+	@Test
+	public void testGetPathMetadataIsCached() {
+		assertSame(PathUtils.getPathMetadata(Company.class, ValidationPath.parse("customers[0].address")),
+			PathUtils.getPathMetadata(Company.class, ValidationPath.parse("customers.address")));
+	}
+
+	public static class Catalog {
+
+		private Set<Address> tags;
+
+		private Map<String, Customer> customersByName;
+
+		private int[] ratings;
+
+		public Set<Address> getTags() {
+			return tags;
+		}
+
+		public void setTags(Set<Address> tags) {
+			this.tags = tags;
+		}
+
+		public Map<String, Customer> getCustomersByName() {
+			return customersByName;
+		}
+
+		public void setCustomersByName(Map<String, Customer> customersByName) {
+			this.customersByName = customersByName;
+		}
+
+		public int[] getRatings() {
+			return ratings;
+		}
+
+		public void setRatings(int[] ratings) {
+			this.ratings = ratings;
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+package org.springjutsu.validation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springjutsu.validation.test.entities.Address;
+import org.springjutsu.validation.test.entities.Company;
+import org.springjutsu.validation.test.entities.Customer;
+import org.springjutsu.validation.test.entities.ValuedCustomer;
+
+public class ReflectivePropertyPathAccessorTest {
+	
+	private ReflectivePropertyPathAccessor accessor = new ReflectivePropertyPathAccessor();
+	
+	protected Company createCompany() {
+		Company company = new Company();
+		Customer customer = new Customer();
+		customer.setFirstName("Bob");
+		Address address = new Address();
+		address.setCity("Springfield");
+		customer.setAddress(address);
+		company.getCustomers().add(customer);
+		return company;
+	}
+	
+	@Test
+	public void testGetSimpleAndNestedProperty() {
+		Company company = createCompany();
+		company.setName("Acme");
+		assertEquals("Acme", accessor.getPropertyValue(company, "name"));
+		Customer customer = company.getCustomers().get(0);
+		assertEquals("Springfield", accessor.getPropertyValue(customer, "address.city"));
+		assertSame(company, accessor.getPropertyValue(company, ""));
+	}
+	
+	@Test
+	public void testGetIndexedProperty() {
+		Company company = createCompany();
+		assertEquals("Bob", accessor.getPropertyValue(company, "customers[0].firstName"));
+		assertEquals("Springfield", accessor.getPropertyValue(company, "customers[0].address.city"));
+		assertNull(accessor.getPropertyValue(company, "customers[1].firstName"));
+		assertFalse(accessor.isReadableProperty(company, "customers[1]"));
+	}
+	
+	@Test
+	public void testGetPropertyOfMembersOfDifferentClasses() {
+		Company company = createCompany();
+		ValuedCustomer valuedCustomer = new ValuedCustomer();
+		valuedCustomer.setFirstName("Joe");
+		company.getCustomers().add(valuedCustomer);
+		for (int i = 0; i < 2; i++) {
+			assertEquals("Bob", accessor.getPropertyValue(company, "customers[0].firstName"));
+			assertEquals("Joe", accessor.getPropertyValue(company, "customers[1].firstName"));
+		}
+		assertNull(accessor.getPropertyValue(company, "customers[1].address"));
+	}
+	
+	@Test
+	public void testNullSafeNavigation() {
+		Customer customer = new Customer();
+		assertTrue(accessor.isReadableProperty(customer, "address"));
+		assertNull(accessor.getPropertyValue(customer, "address"));
+		assertFalse(accessor.isReadableProperty(customer, "address.city"));
+		assertNull(accessor.getPropertyValue(customer, "address.city"));
+		assertNull(accessor.getPropertyValue(null, "address"));
+	}
+	
+	@Test
+	public void testUnknownProperty() {
+		Customer customer = new Customer();
+		assertFalse(accessor.isReadableProperty(customer, "notAProperty"));
+		assertNull(accessor.getPropertyValue(customer, "notAProperty"));
+		assertNull(accessor.getPropertyType(customer, "notAProperty"));
+	}
+	
+	@Test
+	public void testGetPropertyType() {
+		Company company = createCompany();
+		assertEquals(List.class, accessor.getPropertyType(company, "customers"));
+		assertEquals(Address.class, accessor.getPropertyType(company, "customers[0].address"));
+		assertEquals(Customer.class, accessor.getPropertyType(company, "customers[0]"));
+		assertNull(accessor.getPropertyType(new Customer(), "address.city"));
+	}
+	
+	@Test
+	public void testFallsBackToBeanWrapperForMapKeys() {
+		Map<String, String> map = Collections.singletonMap("key", "value");
+		MapHolder holder = new MapHolder(map);
+		assertEquals("value", accessor.getPropertyValue(holder, "map[key]"));
+		assertTrue(accessor.isReadableProperty(holder, "map[key]"));
+	}
+	
+	public static class MapHolder {
+		
+		private Map<String, String> map;
+		
+		public MapHolder(Map<String, String> map) {
+			this.map = map;
+		}
+		
+		public Map<String, String> getMap() {
+			return map;
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package org.springjutsu.validation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ValidationPathTest {
+
+	@Test
+	public void testParse() {
+		ValidationPath path = ValidationPath.parse(" customers[2].address..city. ");
+		assertEquals(3, path.size());
+		assertEquals("customers", path.getProperty(0));
+		assertEquals("[2]", path.getIndex(0));
+		assertEquals("customers[2]", path.getSegment(0));
+		assertNull(path.getIndex(1));
+		assertEquals("customers[2].address.city", path.toString());
+		assertSame(ValidationPath.EMPTY, ValidationPath.parse(null));
+		assertSame(ValidationPath.EMPTY, ValidationPath.parse(" "));
+		assertEquals("", ValidationPath.EMPTY.toString());
+	}
+
+	@Test
+	public void testParseMapKeyContainingPeriod() {
+		ValidationPath path = ValidationPath.parse("settings['a.b'].value");
+		assertEquals(2, path.size());
+		assertEquals("['a.b']", path.getIndex(0));
+		assertEquals("settings['a.b'].value", path.toString());
+	}
+
+	@Test
+	public void testAppend() {
+		ValidationPath path = ValidationPath.parse("customers");
+		assertEquals("customers.address.city", path.append("address.city").toString());
+		assertEquals("customers[0][1]", path.appendIndex(0).appendIndex(1).toString());
+		assertSame(path, path.append(ValidationPath.EMPTY));
+		assertSame(path, ValidationPath.EMPTY.append(path));
+		assertEquals("customers", path.toString());
+	}
+
+	@Test
+	public void testSubPath() {
+		ValidationPath path = ValidationPath.parse("customers[1].address.city");
+		assertEquals("customers[1].address", path.subPath(0, 2).toString());
+		assertEquals("city", path.subPath(2, 3).toString());
+		assertSame(ValidationPath.EMPTY, path.subPath(1, 1));
+	}
+
+	@Test
+	public void testReplacePrefix() {
+		ValidationPath path = ValidationPath.parse("customers.address.city");
+		ValidationPath prefix = ValidationPath.parse("customers");
+		assertTrue(path.startsWith(prefix));
+		assertEquals("customers[3].address.city", path.replacePrefix(prefix, prefix.appendIndex(3)).toString());
+		// prefixes match whole segments only.
+		ValidationPath partialPrefix = ValidationPath.parse("cust");
+		assertFalse(path.startsWith(partialPrefix));
+		assertSame(path, path.replacePrefix(partialPrefix, prefix));
+		assertFalse(ValidationPath.parse("customers[1].city").startsWith(prefix));
+	}
+
+	@Test
+	public void testEquals() {
+		assertEquals(ValidationPath.parse("customers[1].city"), ValidationPath.parse("customers").appendIndex(1).append("city"));
+		assertEquals(ValidationPath.parse("a.b").hashCode(), ValidationPath.parse("a").append("b").hashCode());
+		assertFalse(ValidationPath.parse("customers.city").equals(ValidationPath.parse("customers[1].city")));
+		assertFalse(ValidationPath.parse("a.b").equals(ValidationPath.parse("a")));
+	}
+
+}